@@ -0,0 +1,50 @@
+-- Converts an existing chat_messages heap table into a table range-partitioned by month
+-- and adds per-classroom chat retention. Run once, during a quiet period, against
+-- databases created before chat partitioning. New databases get this from schema.sql.
+
+BEGIN;
+
+ALTER TABLE classrooms ADD COLUMN IF NOT EXISTS chat_retention_months INT;
+
+-- Detach the id sequence first so it keeps its name and survives dropping the legacy table.
+ALTER SEQUENCE chat_messages_id_seq OWNED BY NONE;
+
+ALTER TABLE chat_messages RENAME TO chat_messages_legacy;
+
+CREATE TABLE chat_messages (
+    id              BIGINT NOT NULL DEFAULT nextval('chat_messages_id_seq'),
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    sender_id       BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    content         TEXT NOT NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest message through two months ahead.
+DO $$
+DECLARE
+    m DATE;
+BEGIN
+    FOR m IN
+        SELECT generate_series(
+                   date_trunc('month', COALESCE((SELECT MIN(created_at) FROM chat_messages_legacy), now())),
+                   date_trunc('month', now()) + INTERVAL '2 months',
+                   INTERVAL '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF chat_messages FOR VALUES FROM (%L) TO (%L)',
+                       'chat_messages_p' || to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO chat_messages (id, classroom_id, sender_id, content, created_at)
+SELECT id, classroom_id, sender_id, content, created_at FROM chat_messages_legacy;
+
+SELECT setval('chat_messages_id_seq', COALESCE((SELECT MAX(id) FROM chat_messages), 0) + 1, false);
+
+DROP TABLE chat_messages_legacy;
+
+ALTER SEQUENCE chat_messages_id_seq OWNED BY chat_messages.id;
+
+CREATE INDEX IF NOT EXISTS idx_chat_messages_classroom_created_at ON chat_messages(classroom_id, created_at DESC);
+
+COMMIT;
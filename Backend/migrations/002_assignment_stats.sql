@@ -0,0 +1,34 @@
+-- Creates the materialized assignment statistics table and fills it from the source
+-- tables. Safe to re-run; rows missing afterwards are also rebuilt on first read and
+-- by the nightly repair job. New databases get the table from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS assignment_stats (
+    assignment_id   BIGINT PRIMARY KEY REFERENCES assignments(id) ON DELETE CASCADE,
+    total_students  INT NOT NULL DEFAULT 0,
+    submitted_count INT NOT NULL DEFAULT 0,
+    graded_count    INT NOT NULL DEFAULT 0,
+    marks_sum       BIGINT NOT NULL DEFAULT 0,
+    highest_marks   INT,
+    late_count      INT NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMPTZ
+);
+
+INSERT INTO assignment_stats (assignment_id, total_students, submitted_count, graded_count,
+                              marks_sum, highest_marks, late_count, updated_at)
+SELECT a.id,
+       (SELECT COUNT(*) FROM classroom_members cm
+        WHERE cm.classroom_id = a.classroom_id AND cm.role_in_class = 'STUDENT'),
+       COUNT(s.id),
+       COUNT(s.marks),
+       COALESCE(SUM(s.marks), 0),
+       MAX(s.marks),
+       COUNT(s.id) FILTER (WHERE a.due_date IS NOT NULL AND s.submitted_at > a.due_date),
+       now()
+FROM assignments a
+LEFT JOIN assignment_submissions s ON s.assignment_id = a.id
+GROUP BY a.id, a.classroom_id, a.due_date
+ON CONFLICT (assignment_id) DO NOTHING;
+
+COMMIT;
@@ -0,0 +1,37 @@
+-- Switches entity id generation from IDENTITY to the existing <table>_id_seq sequences
+-- with Hibernate's pooled optimizer (allocationSize = 50). Each nextval now reserves a
+-- block of 50 ids ending at the returned value, so every sequence is stepped by 50 and
+-- moved past the current maximum id. Column defaults are left in place: a row inserted
+-- by plain SQL takes a returned value that no application block can contain.
+-- Run once while the application is stopped; new databases get this from schema.sql.
+
+BEGIN;
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+SELECT setval('users_id_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 50);
+
+ALTER SEQUENCE classrooms_id_seq INCREMENT BY 50;
+SELECT setval('classrooms_id_seq', COALESCE((SELECT MAX(id) FROM classrooms), 0) + 50);
+
+ALTER SEQUENCE classroom_members_id_seq INCREMENT BY 50;
+SELECT setval('classroom_members_id_seq', COALESCE((SELECT MAX(id) FROM classroom_members), 0) + 50);
+
+ALTER SEQUENCE announcements_id_seq INCREMENT BY 50;
+SELECT setval('announcements_id_seq', COALESCE((SELECT MAX(id) FROM announcements), 0) + 50);
+
+ALTER SEQUENCE assignments_id_seq INCREMENT BY 50;
+SELECT setval('assignments_id_seq', COALESCE((SELECT MAX(id) FROM assignments), 0) + 50);
+
+ALTER SEQUENCE assignment_submissions_id_seq INCREMENT BY 50;
+SELECT setval('assignment_submissions_id_seq', COALESCE((SELECT MAX(id) FROM assignment_submissions), 0) + 50);
+
+ALTER SEQUENCE chat_messages_id_seq INCREMENT BY 50;
+SELECT setval('chat_messages_id_seq', COALESCE((SELECT MAX(id) FROM chat_messages), 0) + 50);
+
+ALTER SEQUENCE meetings_id_seq INCREMENT BY 50;
+SELECT setval('meetings_id_seq', COALESCE((SELECT MAX(id) FROM meetings), 0) + 50);
+
+ALTER SEQUENCE audit_logs_id_seq INCREMENT BY 50;
+SELECT setval('audit_logs_id_seq', COALESCE((SELECT MAX(id) FROM audit_logs), 0) + 50);
+
+COMMIT;
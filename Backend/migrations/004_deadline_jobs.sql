@@ -0,0 +1,30 @@
+-- Creates the deadline job table and schedules every open assignment that has a due
+-- date: a CLOSE job at the due date (already-passed ones close on the next startup) and a
+-- REMINDER job 24 hours before it where that is still ahead. Safe to re-run. New
+-- databases get the table from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS deadline_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    job_type        VARCHAR(16) NOT NULL CHECK (job_type IN ('CLOSE', 'REMINDER')),
+    assignment_id   BIGINT NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    fire_at         TIMESTAMPTZ NOT NULL,
+    CONSTRAINT uq_deadline_job UNIQUE (job_type, assignment_id)
+);
+
+ALTER SEQUENCE deadline_jobs_id_seq INCREMENT BY 50;
+
+INSERT INTO deadline_jobs (job_type, assignment_id, fire_at)
+SELECT 'CLOSE', id, due_date
+FROM assignments
+WHERE closed = FALSE AND due_date IS NOT NULL
+ON CONFLICT (job_type, assignment_id) DO NOTHING;
+
+INSERT INTO deadline_jobs (job_type, assignment_id, fire_at)
+SELECT 'REMINDER', id, due_date - INTERVAL '24 hours'
+FROM assignments
+WHERE closed = FALSE AND due_date - INTERVAL '24 hours' > now()
+ON CONFLICT (job_type, assignment_id) DO NOTHING;
+
+COMMIT;
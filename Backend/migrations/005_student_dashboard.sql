@@ -0,0 +1,40 @@
+-- Creates the "My assignments" read model and fills it from the source tables. Safe to
+-- re-run. Afterwards GET /api/stats/student-dashboard/check should report no missing or
+-- unexpected rows; POST /api/stats/student-dashboard/rebuild regenerates it if not.
+-- New databases get the table from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS student_dashboard (
+    student_id      BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    assignment_id   BIGINT NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    classroom_name  VARCHAR(255) NOT NULL,
+    title           VARCHAR(255) NOT NULL,
+    description     TEXT,
+    due_date        TIMESTAMPTZ,
+    max_marks       INT,
+    assignment_created_at TIMESTAMPTZ,
+    attachment_url  TEXT,
+    submitted_at    TIMESTAMPTZ,
+    marks           INT,
+    feedback        TEXT,
+    PRIMARY KEY (student_id, assignment_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_student_dashboard_due ON student_dashboard(student_id, due_date);
+CREATE INDEX IF NOT EXISTS idx_student_dashboard_assignment ON student_dashboard(assignment_id);
+CREATE INDEX IF NOT EXISTS idx_student_dashboard_classroom ON student_dashboard(classroom_id);
+
+INSERT INTO student_dashboard (student_id, assignment_id, classroom_id, classroom_name, title, description,
+                               due_date, max_marks, assignment_created_at, attachment_url,
+                               submitted_at, marks, feedback)
+SELECT cm.user_id, a.id, c.id, c.name, a.title, a.description, a.due_date,
+       a.max_marks, a.created_at, a.attachment_url, s.submitted_at, s.marks, s.feedback
+FROM classroom_members cm
+JOIN assignments a ON a.classroom_id = cm.classroom_id
+JOIN classrooms c ON c.id = a.classroom_id
+LEFT JOIN assignment_submissions s ON s.assignment_id = a.id AND s.student_id = cm.user_id
+ON CONFLICT (student_id, assignment_id) DO NOTHING;
+
+COMMIT;
@@ -0,0 +1,20 @@
+-- Creates the per-mark grade counts behind grade distributions and fills them from the
+-- graded submissions. Safe to re-run. New databases get the table from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS assignment_mark_counts (
+    assignment_id    BIGINT NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    marks            INT NOT NULL,
+    submission_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (assignment_id, marks)
+);
+
+INSERT INTO assignment_mark_counts (assignment_id, marks, submission_count)
+SELECT assignment_id, marks, COUNT(*)
+FROM assignment_submissions
+WHERE marks IS NOT NULL
+GROUP BY assignment_id, marks
+ON CONFLICT (assignment_id, marks) DO NOTHING;
+
+COMMIT;
@@ -0,0 +1,31 @@
+-- Adds soft-hiding of classrooms and the background deletion job table. Classroom
+-- deletes now return at once and are carried out by ClassroomDeletionService. Safe to
+-- re-run. New databases get both from schema.sql.
+
+BEGIN;
+
+ALTER TABLE classrooms ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMPTZ;
+
+CREATE TABLE IF NOT EXISTS classroom_deletion_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    classroom_id    BIGINT NOT NULL,
+    requested_by    BIGINT NOT NULL,
+    status          VARCHAR(16) NOT NULL CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED')),
+    step            INT NOT NULL DEFAULT 0,
+    rows_deleted    BIGINT NOT NULL DEFAULT 0,
+    attempts        INT NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    lease_owner     VARCHAR(36),
+    lease_until     TIMESTAMPTZ,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMPTZ,
+    completed_at    TIMESTAMPTZ,
+    CONSTRAINT uq_classroom_deletion_job UNIQUE (classroom_id)
+);
+
+ALTER SEQUENCE classroom_deletion_jobs_id_seq INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS idx_classroom_deletion_jobs_open
+    ON classroom_deletion_jobs(id) WHERE status IN ('PENDING', 'RUNNING');
+
+COMMIT;
@@ -0,0 +1,22 @@
+-- Adds the blob and file-name tables behind content-addressed uploads. Existing files
+-- are not moved: they have no stored_files row and are still served from their flat
+-- path in the upload directory. Safe to re-run. New databases get both from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS file_blobs (
+    sha256          CHAR(64) PRIMARY KEY,
+    size_bytes      BIGINT NOT NULL,
+    ref_count       INT NOT NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS stored_files (
+    name            VARCHAR(255) PRIMARY KEY,
+    blob_sha256     CHAR(64) NOT NULL REFERENCES file_blobs(sha256),
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stored_files_blob ON stored_files(blob_sha256);
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- Records owner, size, content type and original name for each stored file, for file
+-- listings and storage usage. Existing rows take their size from their blob; the other
+-- columns stay NULL for them. Blob files move into the hashed fan-out layout, and legacy
+-- flat files get rows, online after the application starts (FileLayoutMigrator). Safe to
+-- re-run. New databases get these from schema.sql.
+
+BEGIN;
+
+ALTER TABLE stored_files ADD COLUMN IF NOT EXISTS owner_id BIGINT REFERENCES users(id) ON DELETE SET NULL;
+ALTER TABLE stored_files ADD COLUMN IF NOT EXISTS size_bytes BIGINT;
+ALTER TABLE stored_files ADD COLUMN IF NOT EXISTS content_type VARCHAR(255);
+ALTER TABLE stored_files ADD COLUMN IF NOT EXISTS original_name VARCHAR(255);
+
+UPDATE stored_files f SET size_bytes = b.size_bytes
+FROM file_blobs b
+WHERE b.sha256 = f.blob_sha256 AND f.size_bytes IS NULL;
+ALTER TABLE stored_files ALTER COLUMN size_bytes SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_stored_files_owner ON stored_files(owner_id, created_at DESC) INCLUDE (size_bytes);
+
+COMMIT;
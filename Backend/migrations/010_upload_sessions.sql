@@ -0,0 +1,22 @@
+-- Adds the table behind resumable uploads (/api/uploads). The received bytes live in
+-- uploads/partial/<id> on the instance that took them; ResumableUploadService removes
+-- sessions, and their partial files, once past expires_at. Safe to re-run. New databases
+-- get this from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id              VARCHAR(36) PRIMARY KEY,
+    owner_id        BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    original_name   VARCHAR(255) NOT NULL,
+    content_type    VARCHAR(255),
+    upload_length   BIGINT NOT NULL,
+    upload_offset   BIGINT NOT NULL DEFAULT 0,
+    stored_name     VARCHAR(255),
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at      TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires ON upload_sessions(expires_at);
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Moves the list ETag versions of chat, announcements and assignments from per-instance
+-- memory into the database, so every instance answers If-None-Match the same way.
+-- Classrooms start without rows (version 0); tags issued by older builds never match.
+-- Safe to re-run. New databases get this from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS classroom_list_versions (
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    resource        CHAR(1) NOT NULL,
+    version         BIGINT NOT NULL,
+    PRIMARY KEY (classroom_id, resource)
+);
+
+COMMIT;
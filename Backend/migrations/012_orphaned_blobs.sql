@@ -0,0 +1,14 @@
+-- Blobs are no longer deleted in the transaction that drops their last reference. They
+-- are marked with orphaned_at and removed by FileStorageService's sweep after a grace
+-- period. Blobs already at zero references are marked now, so the first sweep collects
+-- them. Safe to re-run. New databases get this from schema.sql.
+
+BEGIN;
+
+ALTER TABLE file_blobs ADD COLUMN IF NOT EXISTS orphaned_at TIMESTAMPTZ;
+
+UPDATE file_blobs SET orphaned_at = now() WHERE ref_count <= 0 AND orphaned_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_file_blobs_orphaned ON file_blobs(orphaned_at) WHERE ref_count = 0;
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Chat archives move from each instance's app.chat.archive-dir to the shared storage
+-- backend, listed in chat_archives so every instance can serve a classroom's history.
+-- Files already in an instance's archive dir are moved into storage by that instance on
+-- its next chat maintenance run. Safe to re-run. New databases get this from schema.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS chat_archives (
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    month           DATE NOT NULL,
+    storage_key     VARCHAR(255) NOT NULL,
+    PRIMARY KEY (classroom_id, month)
+);
+
+COMMIT;
@@ -21,7 +21,9 @@ CREATE TABLE IF NOT EXISTS classrooms (
     description     TEXT,
     code            VARCHAR(16) NOT NULL,
     teacher_id      BIGINT NOT NULL REFERENCES users(id) ON DELETE RESTRICT,
+    chat_retention_months INT,
     created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deleted_at      TIMESTAMPTZ,
     CONSTRAINT uq_classrooms_code UNIQUE (code)
 );
 
@@ -68,14 +70,147 @@ CREATE TABLE IF NOT EXISTS assignment_submissions (
     CONSTRAINT uq_assignment_submission UNIQUE (assignment_id, student_id)
 );
 
-CREATE TABLE IF NOT EXISTS chat_messages (
+-- Materialized per-assignment statistics, maintained by AssignmentStatsService in the
+-- same transaction as submissions, grades and membership changes.
+CREATE TABLE IF NOT EXISTS assignment_stats (
+    assignment_id   BIGINT PRIMARY KEY REFERENCES assignments(id) ON DELETE CASCADE,
+    total_students  INT NOT NULL DEFAULT 0,
+    submitted_count INT NOT NULL DEFAULT 0,
+    graded_count    INT NOT NULL DEFAULT 0,
+    marks_sum       BIGINT NOT NULL DEFAULT 0,
+    highest_marks   INT,
+    late_count      INT NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMPTZ
+);
+
+-- Graded submissions per (assignment, mark): an exact, mergeable histogram maintained by
+-- GradeDistributionService in the grading transaction.
+CREATE TABLE IF NOT EXISTS assignment_mark_counts (
+    assignment_id    BIGINT NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    marks            INT NOT NULL,
+    submission_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (assignment_id, marks)
+);
+
+-- Denormalized "My assignments" read model: one row per (classroom member, assignment),
+-- maintained by StudentDashboardProjection in the same transaction as the source change.
+CREATE TABLE IF NOT EXISTS student_dashboard (
+    student_id      BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    assignment_id   BIGINT NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    classroom_name  VARCHAR(255) NOT NULL,
+    title           VARCHAR(255) NOT NULL,
+    description     TEXT,
+    due_date        TIMESTAMPTZ,
+    max_marks       INT,
+    assignment_created_at TIMESTAMPTZ,
+    attachment_url  TEXT,
+    submitted_at    TIMESTAMPTZ,
+    marks           INT,
+    feedback        TEXT,
+    PRIMARY KEY (student_id, assignment_id)
+);
+
+-- Pending assignment deadline events (auto-close, due-soon reminder), one row per type
+-- and assignment. DeadlineScheduler keeps them in an in-memory timing wheel and deletes
+-- each row when it fires.
+CREATE TABLE IF NOT EXISTS deadline_jobs (
     id              BIGSERIAL PRIMARY KEY,
+    job_type        VARCHAR(16) NOT NULL CHECK (job_type IN ('CLOSE', 'REMINDER')),
+    assignment_id   BIGINT NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+    fire_at         TIMESTAMPTZ NOT NULL,
+    CONSTRAINT uq_deadline_job UNIQUE (job_type, assignment_id)
+);
+
+-- Background classroom deletions. The classroom is hidden (deleted_at) when the job is
+-- created; ClassroomDeletionService then purges it in chunks, recording the step reached
+-- so an interrupted job resumes. classroom_id is not a foreign key: the job outlives it.
+CREATE TABLE IF NOT EXISTS classroom_deletion_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    classroom_id    BIGINT NOT NULL,
+    requested_by    BIGINT NOT NULL,
+    status          VARCHAR(16) NOT NULL CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED')),
+    step            INT NOT NULL DEFAULT 0,
+    rows_deleted    BIGINT NOT NULL DEFAULT 0,
+    attempts        INT NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    lease_owner     VARCHAR(36),
+    lease_until     TIMESTAMPTZ,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMPTZ,
+    completed_at    TIMESTAMPTZ,
+    CONSTRAINT uq_classroom_deletion_job UNIQUE (classroom_id)
+);
+
+-- Version of each classroom's chat, announcement and assignment lists (resource c, n, a),
+-- bumped in the transaction of every write that changes the list; the list endpoints
+-- use it as their ETag.
+CREATE TABLE IF NOT EXISTS classroom_list_versions (
     classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
-    sender_id       BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
-    content         TEXT NOT NULL,
+    resource        CHAR(1) NOT NULL,
+    version         BIGINT NOT NULL,
+    PRIMARY KEY (classroom_id, resource)
+);
+
+-- Monthly chat archives written by ChatRetentionService, one file per classroom and
+-- month, kept in the configured storage backend under storage_key.
+CREATE TABLE IF NOT EXISTS chat_archives (
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    month           DATE NOT NULL,
+    storage_key     VARCHAR(255) NOT NULL,
+    PRIMARY KEY (classroom_id, month)
+);
+
+-- Content-addressed uploads. Each distinct content is one blob, stored once on disk
+-- under its SHA-256; stored_files maps the names in /api/files/{name} URLs to blobs and
+-- ref_count counts those names. Blob files live under blobs/<sha[0:2]>/<sha[2:4]>/<sha>.
+-- Files uploaded before this table existed are given rows by FileLayoutMigrator and served
+-- from their original flat path until then.
+CREATE TABLE IF NOT EXISTS file_blobs (
+    sha256          CHAR(64) PRIMARY KEY,
+    size_bytes      BIGINT NOT NULL,
+    ref_count       INT NOT NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- Set while ref_count is 0; the blob is swept once this is older than the grace period
+    orphaned_at     TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_blobs_orphaned ON file_blobs(orphaned_at) WHERE ref_count = 0;
+
+CREATE TABLE IF NOT EXISTS stored_files (
+    name            VARCHAR(255) PRIMARY KEY,
+    blob_sha256     CHAR(64) NOT NULL REFERENCES file_blobs(sha256),
+    owner_id        BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    size_bytes      BIGINT NOT NULL,
+    content_type    VARCHAR(255),
+    original_name   VARCHAR(255),
     created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Resumable uploads in progress; the received bytes are in uploads/partial/<id>.
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id              VARCHAR(36) PRIMARY KEY,
+    owner_id        BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    original_name   VARCHAR(255) NOT NULL,
+    content_type    VARCHAR(255),
+    upload_length   BIGINT NOT NULL,
+    upload_offset   BIGINT NOT NULL DEFAULT 0,
+    stored_name     VARCHAR(255),
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at      TIMESTAMPTZ NOT NULL
+);
+
+-- Range-partitioned by month. ChatRetentionService creates upcoming partitions and
+-- archives + drops expired ones; the primary key must include the partition key.
+CREATE TABLE IF NOT EXISTS chat_messages (
+    id              BIGSERIAL,
+    classroom_id    BIGINT NOT NULL REFERENCES classrooms(id) ON DELETE CASCADE,
+    sender_id       BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    content         TEXT NOT NULL,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
 CREATE TABLE IF NOT EXISTS meetings (
     id              BIGSERIAL PRIMARY KEY,
     meeting_id      VARCHAR(64) NOT NULL,
@@ -100,6 +235,20 @@ CREATE TABLE IF NOT EXISTS audit_logs (
     created_at      TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Entity ids are allocated by Hibernate's pooled optimizer in blocks of 50 per nextval,
+-- which lets inserts be JDBC-batched. Keep in step with allocationSize on the entities.
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE classrooms_id_seq INCREMENT BY 50;
+ALTER SEQUENCE classroom_members_id_seq INCREMENT BY 50;
+ALTER SEQUENCE announcements_id_seq INCREMENT BY 50;
+ALTER SEQUENCE assignments_id_seq INCREMENT BY 50;
+ALTER SEQUENCE assignment_submissions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE chat_messages_id_seq INCREMENT BY 50;
+ALTER SEQUENCE meetings_id_seq INCREMENT BY 50;
+ALTER SEQUENCE audit_logs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE deadline_jobs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE classroom_deletion_jobs_id_seq INCREMENT BY 50;
+
 -- Helpful indexes for high-traffic queries
 CREATE INDEX IF NOT EXISTS idx_classrooms_teacher_id ON classrooms(teacher_id);
 CREATE INDEX IF NOT EXISTS idx_classroom_members_classroom ON classroom_members(classroom_id);
@@ -114,3 +263,11 @@ CREATE INDEX IF NOT EXISTS idx_chat_messages_classroom_created_at ON chat_messag
 CREATE INDEX IF NOT EXISTS idx_meetings_code_active ON meetings(meeting_code, active);
 CREATE INDEX IF NOT EXISTS idx_meetings_host ON meetings(host_user_id);
 CREATE INDEX IF NOT EXISTS idx_audit_logs_user ON audit_logs(user_id);
+CREATE INDEX IF NOT EXISTS idx_student_dashboard_due ON student_dashboard(student_id, due_date);
+CREATE INDEX IF NOT EXISTS idx_student_dashboard_assignment ON student_dashboard(assignment_id);
+CREATE INDEX IF NOT EXISTS idx_student_dashboard_classroom ON student_dashboard(classroom_id);
+CREATE INDEX IF NOT EXISTS idx_classroom_deletion_jobs_open ON classroom_deletion_jobs(id) WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX IF NOT EXISTS idx_stored_files_blob ON stored_files(blob_sha256);
+-- Walks a user's files newest first; usage totals are answered from the index alone.
+CREATE INDEX IF NOT EXISTS idx_stored_files_owner ON stored_files(owner_id, created_at DESC) INCLUDE (size_bytes);
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires ON upload_sessions(expires_at);
@@ -64,9 +64,11 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
 public CorsConfigurationSource corsConfigurationSource() {
     CorsConfiguration configuration = new CorsConfiguration();
     configuration.setAllowedOrigins(resolveAllowedOrigins());
-    configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+    configuration.setAllowedMethods(List.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
     configuration.setAllowedHeaders(List.of("*"));
-    configuration.setExposedHeaders(List.of("Authorization"));
+    configuration.setExposedHeaders(List.of("Authorization", "ETag", "Content-Disposition",
+            "Accept-Ranges", "Content-Range", "Content-Length", "Last-Modified",
+            "Location", "Tus-Resumable", "Upload-Offset", "Upload-Length", "Upload-Expires"));
     configuration.setAllowCredentials(true);
     configuration.setMaxAge(Duration.ofHours(1));
 
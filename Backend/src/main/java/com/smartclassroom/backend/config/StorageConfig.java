@@ -0,0 +1,81 @@
+package com.smartclassroom.backend.config;
+
+import com.smartclassroom.backend.service.storage.LocalStorageBackend;
+import com.smartclassroom.backend.service.storage.S3StorageBackend;
+import com.smartclassroom.backend.service.storage.StorageBackend;
+import com.smartclassroom.backend.service.storage.TieredStorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Picks where uploaded content is kept ({@code app.storage.type}): {@code local} keeps
+ * it under the upload directory, which every instance must then share; {@code s3} keeps
+ * it in an S3-compatible bucket; {@code tiered} keeps it in the bucket with a local
+ * read-through cache on each instance.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.storage.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${app.storage.s3.bucket:}")
+    private String s3Bucket;
+
+    @Value("${app.storage.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Value("${app.storage.s3.prefix:blobs/}")
+    private String s3Prefix;
+
+    @Value("${app.storage.s3.part-size:8388608}")
+    private int s3PartSize;
+
+    @Value("${app.storage.cache.dir:storage-cache}")
+    private String cacheDir;
+
+    @Value("${app.storage.cache.max-bytes:10737418240}")
+    private long cacheMaxBytes;
+
+    @Value("${app.storage.cache.eviction-grace:PT1M}")
+    private Duration cacheEvictionGrace;
+
+    @Bean
+    public StorageBackend storageBackend(@Value("${app.storage.type:local}") String type) {
+        Path uploads = Paths.get(uploadDir).toAbsolutePath().normalize();
+        return switch (type) {
+            case "local" -> new LocalStorageBackend(uploads.resolve("blobs"), uploads.resolve("tmp"));
+            case "s3" -> s3();
+            case "tiered" -> {
+                Path cache = Paths.get(cacheDir).toAbsolutePath().normalize();
+                yield new TieredStorageBackend(s3(),
+                        new LocalStorageBackend(cache.resolve("blobs"), cache.resolve("tmp")), cacheMaxBytes,
+                        cacheEvictionGrace);
+            }
+            default -> throw new IllegalStateException("Unknown app.storage.type: " + type);
+        };
+    }
+
+    private S3StorageBackend s3() {
+        if (s3Endpoint.isBlank() || s3Bucket.isBlank()) {
+            throw new IllegalStateException("app.storage.s3.endpoint and app.storage.s3.bucket must be set");
+        }
+        return new S3StorageBackend(URI.create(s3Endpoint), s3Region, s3Bucket, s3AccessKey, s3SecretKey,
+                s3Prefix, Math.max(S3StorageBackend.MIN_PART_SIZE, s3PartSize));
+    }
+}
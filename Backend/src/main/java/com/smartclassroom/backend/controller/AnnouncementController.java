@@ -6,10 +6,14 @@ import com.smartclassroom.backend.dto.auth.UserResponseDTO;
 import com.smartclassroom.backend.model.Announcement;
 import com.smartclassroom.backend.model.User;
 import com.smartclassroom.backend.service.AnnouncementService;
+import com.smartclassroom.backend.service.ClassroomVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,7 +23,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AnnouncementController {
 
+    // Stored by the client, but revalidated with If-None-Match on every use.
+    private static final CacheControl LIST_CACHE = CacheControl.noCache().cachePrivate();
+
     private final AnnouncementService announcementService;
+    private final ClassroomVersionService classroomVersionService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -32,10 +40,17 @@ public class AnnouncementController {
     }
 
     @GetMapping
-    public List<AnnouncementResponseDTO> list(@PathVariable Long classroomId) {
-        return announcementService.getAnnouncements(classroomId).stream()
+    public ResponseEntity<List<AnnouncementResponseDTO>> list(@PathVariable Long classroomId, WebRequest webRequest) {
+        String etag = classroomVersionService.etag(ClassroomVersionService.Resource.ANNOUNCEMENTS, classroomId);
+        if (webRequest.checkNotModified(etag)) {
+            classroomVersionService.recordNotModified(ClassroomVersionService.Resource.ANNOUNCEMENTS);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(LIST_CACHE).build();
+        }
+        classroomVersionService.recordFullResponse(ClassroomVersionService.Resource.ANNOUNCEMENTS);
+        List<AnnouncementResponseDTO> announcements = announcementService.getAnnouncements(classroomId).stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
+        return ResponseEntity.ok().cacheControl(LIST_CACHE).body(announcements);
     }
 
     @GetMapping("/{announcementId}")
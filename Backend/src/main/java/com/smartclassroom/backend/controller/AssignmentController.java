@@ -4,14 +4,17 @@ import com.smartclassroom.backend.dto.assignment.AssignmentCreateRequestDTO;
 import com.smartclassroom.backend.dto.assignment.AssignmentResponseDTO;
 import com.smartclassroom.backend.dto.assignment.AssignmentStatisticsDTO;
 import com.smartclassroom.backend.dto.assignment.AssignmentUpdateRequestDTO;
-import com.smartclassroom.backend.dto.auth.UserResponseDTO;
+import com.smartclassroom.backend.dto.assignment.NonSubmittedStudentPageDTO;
 import com.smartclassroom.backend.model.Assignment;
-import com.smartclassroom.backend.model.User;
 import com.smartclassroom.backend.service.AssignmentService;
+import com.smartclassroom.backend.service.ClassroomVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,7 +24,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AssignmentController {
 
+    // Stored by the client, but revalidated with If-None-Match on every use.
+    private static final CacheControl LIST_CACHE = CacheControl.noCache().cachePrivate();
+
     private final AssignmentService assignmentService;
+    private final ClassroomVersionService classroomVersionService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -35,10 +42,17 @@ public class AssignmentController {
     }
 
     @GetMapping
-    public List<AssignmentResponseDTO> list(@PathVariable Long classroomId) {
-        return assignmentService.getAssignmentsForClassroom(classroomId).stream()
+    public ResponseEntity<List<AssignmentResponseDTO>> list(@PathVariable Long classroomId, WebRequest webRequest) {
+        String etag = classroomVersionService.etag(ClassroomVersionService.Resource.ASSIGNMENTS, classroomId);
+        if (webRequest.checkNotModified(etag)) {
+            classroomVersionService.recordNotModified(ClassroomVersionService.Resource.ASSIGNMENTS);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(LIST_CACHE).build();
+        }
+        classroomVersionService.recordFullResponse(ClassroomVersionService.Resource.ASSIGNMENTS);
+        List<AssignmentResponseDTO> assignments = assignmentService.getAssignmentsForClassroom(classroomId).stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
+        return ResponseEntity.ok().cacheControl(LIST_CACHE).body(assignments);
     }
 
     @GetMapping("/{assignmentId}")
@@ -61,10 +75,13 @@ public class AssignmentController {
     }
 
     @GetMapping("/{assignmentId}/non-submitted-students")
-    public List<UserResponseDTO> getNonSubmittedStudents(@PathVariable Long classroomId, @PathVariable Long assignmentId) {
-        return assignmentService.getNonSubmittedStudents(assignmentId).stream()
-                .map(this::toUserResponse)
-                .collect(Collectors.toList());
+    public NonSubmittedStudentPageDTO getNonSubmittedStudents(@PathVariable Long classroomId,
+                                                              @PathVariable Long assignmentId,
+                                                              @RequestParam(value = "name", required = false) String name,
+                                                              @RequestParam(value = "afterName", required = false) String afterName,
+                                                              @RequestParam(value = "afterId", required = false) Long afterId,
+                                                              @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return assignmentService.getNonSubmittedStudents(assignmentId, name, afterName, afterId, limit);
     }
 
     @DeleteMapping("/{assignmentId}")
@@ -86,13 +103,4 @@ public class AssignmentController {
                 .closed(assignment.getClosed())
                 .build();
     }
-
-    private UserResponseDTO toUserResponse(User user) {
-        return UserResponseDTO.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .build();
-    }
 }
@@ -2,16 +2,27 @@ package com.smartclassroom.backend.controller;
 
 import com.smartclassroom.backend.dto.assignment.AssignmentSubmissionRequestDTO;
 import com.smartclassroom.backend.dto.assignment.AssignmentSubmissionResponseDTO;
+import com.smartclassroom.backend.dto.assignment.BulkGradeRequestDTO;
+import com.smartclassroom.backend.dto.assignment.BulkGradeResultDTO;
 import com.smartclassroom.backend.dto.assignment.GradeSubmissionRequestDTO;
 import com.smartclassroom.backend.dto.auth.UserResponseDTO;
 import com.smartclassroom.backend.model.AssignmentSubmission;
 import com.smartclassroom.backend.model.User;
+import com.smartclassroom.backend.security.UserPrincipal;
 import com.smartclassroom.backend.service.AssignmentSubmissionService;
+import com.smartclassroom.backend.service.BulkGradingService;
+import com.smartclassroom.backend.service.SubmissionArchiveService;
 import com.smartclassroom.backend.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -23,6 +34,8 @@ public class AssignmentSubmissionController {
 
     private final AssignmentSubmissionService submissionService;
     private final UserService userService;
+    private final BulkGradingService bulkGradingService;
+    private final SubmissionArchiveService submissionArchiveService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -48,6 +61,24 @@ public class AssignmentSubmissionController {
         return toResponse(submission);
     }
 
+    /**
+     * All submission files as one ZIP, one entry per student, streamed as it is built.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(@PathVariable Long assignmentId,
+                                                                 @AuthenticationPrincipal UserPrincipal principal) {
+        // Checked up front so errors get a proper status before the streamed response is committed.
+        submissionArchiveService.verifyTeacher(assignmentId, principal.getId());
+
+        StreamingResponseBody body = out -> submissionArchiveService.write(assignmentId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("assignment-" + assignmentId + "-submissions.zip")
+                        .build().toString())
+                .body(body);
+    }
+
     @PutMapping("/{submissionId}/grade")
     public AssignmentSubmissionResponseDTO grade(@PathVariable Long assignmentId,
                                                  @PathVariable Long submissionId,
@@ -56,6 +87,17 @@ public class AssignmentSubmissionController {
         return toResponse(submission);
     }
 
+    /**
+     * Grades many submissions of this assignment at once. Invalid rows are reported
+     * individually and skipped; the rest are applied in one transaction.
+     */
+    @PostMapping("/grades")
+    public BulkGradeResultDTO gradeAll(@PathVariable Long assignmentId,
+                                       @Valid @RequestBody BulkGradeRequestDTO request,
+                                       @AuthenticationPrincipal UserPrincipal principal) {
+        return bulkGradingService.gradeAll(assignmentId, principal.getId(), request.getGrades());
+    }
+
     private AssignmentSubmissionResponseDTO toResponse(AssignmentSubmission submission) {
         User student = submission.getStudent();
         UserResponseDTO studentDto = UserResponseDTO.builder()
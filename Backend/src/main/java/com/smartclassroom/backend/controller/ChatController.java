@@ -3,23 +3,39 @@ package com.smartclassroom.backend.controller;
 import com.smartclassroom.backend.dto.auth.UserResponseDTO;
 import com.smartclassroom.backend.dto.chat.ChatMessageRequestDTO;
 import com.smartclassroom.backend.dto.chat.ChatMessageResponseDTO;
+import com.smartclassroom.backend.dto.chat.ChatMessageView;
+import com.smartclassroom.backend.dto.chat.ChatPageResponseDTO;
+import com.smartclassroom.backend.dto.chat.ChatSenderDTO;
+import com.smartclassroom.backend.dto.chat.CompactChatMessageDTO;
 import com.smartclassroom.backend.model.ChatMessage;
 import com.smartclassroom.backend.model.User;
 import com.smartclassroom.backend.service.ChatService;
+import com.smartclassroom.backend.service.ClassroomVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/classrooms/{classroomId}/chat")
 @RequiredArgsConstructor
 public class ChatController {
 
+    // Stored by the client, but revalidated with If-None-Match on every use.
+    private static final CacheControl LIST_CACHE = CacheControl.noCache().cachePrivate();
+
     private final ChatService chatService;
+    private final ClassroomVersionService classroomVersionService;
 
     @PostMapping("/messages")
     @ResponseStatus(HttpStatus.CREATED)
@@ -32,11 +48,31 @@ public class ChatController {
     }
 
     @GetMapping("/messages")
-    public List<ChatMessageResponseDTO> getMessages(@PathVariable Long classroomId,
-                                                     @RequestParam("userId") Long userId) {
-        return chatService.getRecentMessages(classroomId, userId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public ResponseEntity<ChatPageResponseDTO> getMessages(@PathVariable Long classroomId,
+                                                           @RequestParam("userId") Long userId,
+                                                           WebRequest webRequest) {
+        chatService.verifyMember(classroomId, userId);
+        long version = classroomVersionService.version(ClassroomVersionService.Resource.CHAT, classroomId);
+        String etag = classroomVersionService.etag(ClassroomVersionService.Resource.CHAT, classroomId, version);
+        if (webRequest.checkNotModified(etag)) {
+            classroomVersionService.recordNotModified(ClassroomVersionService.Resource.CHAT);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(LIST_CACHE).build();
+        }
+        classroomVersionService.recordFullResponse(ClassroomVersionService.Resource.CHAT);
+        return ResponseEntity.ok()
+                .cacheControl(LIST_CACHE)
+                .body(toPageResponse(classroomId, chatService.getRecentMessages(classroomId, userId, version)));
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> getArchivedMessages(@PathVariable Long classroomId,
+                                                                     @RequestParam("userId") Long userId) {
+        // Checked up front so a non-member gets a 400 before the streamed response is committed.
+        chatService.verifyMember(classroomId, userId);
+        StreamingResponseBody body = out -> chatService.streamArchivedMessages(classroomId, userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @DeleteMapping("/messages")
@@ -46,6 +82,25 @@ public class ChatController {
         chatService.clearMessages(classroomId, requesterId);
     }
 
+    private ChatPageResponseDTO toPageResponse(Long classroomId, List<ChatMessageView> views) {
+        List<CompactChatMessageDTO> messages = new ArrayList<>(views.size());
+        Map<Long, ChatSenderDTO> senders = new LinkedHashMap<>();
+        for (ChatMessageView view : views) {
+            senders.putIfAbsent(view.getSender().getId(), view.getSender());
+            messages.add(CompactChatMessageDTO.builder()
+                    .id(view.getId())
+                    .senderId(view.getSender().getId())
+                    .content(view.getContent())
+                    .createdAt(view.getCreatedAt())
+                    .build());
+        }
+        return ChatPageResponseDTO.builder()
+                .classroomId(classroomId)
+                .messages(messages)
+                .senders(senders)
+                .build();
+    }
+
     private ChatMessageResponseDTO toResponse(ChatMessage message) {
         User sender = message.getSender();
         UserResponseDTO senderDto = UserResponseDTO.builder()
@@ -5,10 +5,12 @@ import com.smartclassroom.backend.dto.classroom.*;
 import com.smartclassroom.backend.model.Classroom;
 import com.smartclassroom.backend.model.ClassroomMember;
 import com.smartclassroom.backend.model.User;
+import com.smartclassroom.backend.service.ClassroomDeletionService;
 import com.smartclassroom.backend.service.ClassroomService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 public class ClassroomController {
 
     private final ClassroomService classroomService;
+    private final ClassroomDeletionService classroomDeletionService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -59,10 +62,31 @@ public class ClassroomController {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Hides the classroom at once and deletes its contents in the background. The job
+     * can be followed at the returned Location.
+     */
     @DeleteMapping("/{id}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteClassroom(@PathVariable Long id, @RequestParam("teacherId") Long teacherId) {
-        classroomService.deleteClassroom(id, teacherId);
+    public ResponseEntity<ClassroomDeletionJobDTO> deleteClassroom(@PathVariable Long id,
+                                                                   @RequestParam("teacherId") Long teacherId) {
+        ClassroomDeletionJobDTO job = classroomDeletionService.requestDeletion(id, teacherId);
+        return ResponseEntity.accepted()
+                .header("Location", "/api/classrooms/deletion-jobs/" + job.getJobId())
+                .body(job);
+    }
+
+    @GetMapping("/deletion-jobs/{jobId}")
+    public ClassroomDeletionJobDTO getDeletionJob(@PathVariable Long jobId,
+                                                  @RequestParam("teacherId") Long teacherId) {
+        return classroomDeletionService.getJob(jobId, teacherId);
+    }
+
+    @PutMapping("/{id}/chat-retention")
+    public ClassroomResponseDTO updateChatRetention(@PathVariable Long id,
+                                                    @RequestParam("teacherId") Long teacherId,
+                                                    @RequestParam(value = "months", required = false) Integer months) {
+        Classroom classroom = classroomService.updateChatRetention(id, teacherId, months);
+        return toClassroomResponse(classroom);
     }
 
     @DeleteMapping("/{id}/leave")
@@ -85,6 +109,7 @@ public class ClassroomController {
                 .description(classroom.getDescription())
                 .code(classroom.getCode())
                 .teacher(teacherDto)
+                .chatRetentionMonths(classroom.getChatRetentionMonths())
                 .build();
     }
 
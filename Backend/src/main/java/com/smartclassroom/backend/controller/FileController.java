@@ -1,28 +1,72 @@
 package com.smartclassroom.backend.controller;
 
+import com.smartclassroom.backend.dto.file.FilePreviewDTO;
+import com.smartclassroom.backend.dto.file.StorageUsageDTO;
+import com.smartclassroom.backend.dto.file.StoredFileDTO;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.security.UserPrincipal;
 import com.smartclassroom.backend.service.FileStorageService;
+import com.smartclassroom.backend.service.PdfPreviewService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpRange;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/files")
 @RequiredArgsConstructor
 public class FileController {
 
+    // Names handed out by FileStorageService.storeFile; such a file never changes.
+    private static final Pattern STORED_NAME = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.[A-Za-z0-9]+)?");
+    private static final String CACHE_IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDATE = "private, no-cache";
+    // Seconds a client should wait before asking again for a preview still being rendered.
+    private static final String PREVIEW_RETRY_AFTER = "2";
+
+    // Tomcat sends the file with sendfile(2) after the servlet returns when these are set.
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final FileStorageService fileStorageService;
+    private final PdfPreviewService pdfPreviewService;
 
     @PostMapping("/upload")
-    public Map<String, String> uploadFile(@RequestParam("file") MultipartFile file) {
-        String storedFilename = fileStorageService.storeFile(file);
+    public Map<String, String> uploadFile(@RequestParam("file") MultipartFile file,
+                                          @AuthenticationPrincipal UserPrincipal principal) {
+        String storedFilename = fileStorageService.storeFile(file, principal != null ? principal.getId() : null);
         String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
                 .path("/api/files/")
                 .path(storedFilename)
@@ -33,13 +77,259 @@ public class FileController {
         return response;
     }
 
+    /**
+     * The caller's own uploads, newest first. Pass the last file's {@code createdAt} as
+     * {@code before} to get the next page.
+     */
+    @GetMapping
+    public List<StoredFileDTO> listFiles(@AuthenticationPrincipal UserPrincipal principal,
+                                         @RequestParam(value = "before", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                         @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return fileStorageService.listFiles(principal.getId(), before, limit);
+    }
+
+    @GetMapping("/usage")
+    public StorageUsageDTO getUsage(@AuthenticationPrincipal UserPrincipal principal) {
+        return fileStorageService.usage(principal.getId());
+    }
+
+    /**
+     * Serves a stored file with conditional GET (strong ETag, Last-Modified), a single
+     * byte range (206/416) and long-lived caching for immutable stored names. When the
+     * file is on local disk the body is sent without passing through the heap: by
+     * sendfile when the container supports it, otherwise with
+     * {@link FileChannel#transferTo}; otherwise it is relayed from object storage.
+     * Requests for several ranges get the whole file, which HTTP allows.
+     */
     @GetMapping("/{filename:.+}")
-    public ResponseEntity<Resource> getFile(@PathVariable String filename) {
-        Resource resource = fileStorageService.loadFileAsResource(filename);
+    public void getFile(@PathVariable String filename,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        FileStorageService.ResolvedFile file = fileStorageService.resolveStoredFile(filename)
+                .orElseThrow(() -> new ResourceNotFoundException("File not found: " + filename));
+        long length = file.size();
+        long lastModified = file.lastModified();
+        String etag = file.etag();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                STORED_NAME.matcher(filename).matches() ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        // Sets ETag and Last-Modified, and answers 304 when the client's copy is current.
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        MediaType contentType = contentType(file, filename);
+        response.setContentType(contentType.toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.builder(isInlineSafe(contentType) ? "inline" : "attachment")
+                        .filename(file.originalName() != null ? file.originalName() : filename, StandardCharsets.UTF_8)
+                        .build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = singleRange(request, etag, lastModified);
+        if (range != null && length > 0) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException ex) {
+                start = length;
+            }
+            if (start >= length || start > end) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setContentLengthLong(0);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count <= 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        Optional<Path> local;
+        try {
+            local = fileStorageService.localFile(file);
+            if (local.isEmpty()) {
+                // Object storage without a local copy: relay the range as it arrives.
+                try (InputStream in = fileStorageService.open(file, start, count)) {
+                    in.transferTo(response.getOutputStream());
+                }
+                return;
+            }
+        } catch (NoSuchFileException ex) {
+            throw new ResourceNotFoundException("File not found: " + filename);
+        }
+        Path path = local.get();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                count -= sent;
+            }
+        }
+    }
+
+    /**
+     * Whether a PDF's thumbnail and page previews are ready, queueing it for rendering if
+     * it never was (stored before previews existed, or skipped while the queue was full).
+     */
+    @GetMapping("/{filename:.+}/preview")
+    public FilePreviewDTO getPreviewStatus(@PathVariable String filename) {
+        String sha256 = pdfBlob(filename);
+        if (sha256 == null) {
+            return new FilePreviewDTO("UNAVAILABLE", 0);
+        }
+        Optional<Integer> pages = pdfPreviewService.pageCount(sha256);
+        if (pages.isEmpty()) {
+            pdfPreviewService.enqueue(sha256);
+            return new FilePreviewDTO("PENDING", 0);
+        }
+        return new FilePreviewDTO(pages.get() > 0 ? "READY" : "UNAVAILABLE", pages.get());
+    }
+
+    /**
+     * First-page thumbnail of a PDF. 202 with Retry-After while it is being rendered.
+     */
+    @GetMapping("/{filename:.+}/thumbnail")
+    public void getThumbnail(@PathVariable String filename,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        servePreview(filename, "thumbnail", pdfPreviewService::thumbnail, request, response);
+    }
+
+    /**
+     * Low-resolution preview of one page of a PDF, counted from 1. 202 with Retry-After
+     * while it is being rendered.
+     */
+    @GetMapping("/{filename:.+}/pages/{page}")
+    public void getPagePreview(@PathVariable String filename,
+                               @PathVariable int page,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        servePreview(filename, "page-" + page, sha256 -> pdfPreviewService.page(sha256, page), request, response);
+    }
+
+    // Previews are derived from immutable content, so they are cached as long as the file is.
+    private void servePreview(String filename, String variant,
+                              Function<String, Optional<Path>> lookup,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        FileStorageService.ResolvedFile file = fileStorageService.resolveStoredFile(filename)
+                .orElseThrow(() -> new ResourceNotFoundException("File not found: " + filename));
+        String sha256 = isPdf(file, filename) ? file.sha256() : null;
+        if (sha256 == null) {
+            throw new ResourceNotFoundException("No preview for file: " + filename);
+        }
+        Optional<Path> preview = lookup.apply(sha256);
+        if (preview.isEmpty()) {
+            if (pdfPreviewService.isDone(sha256)) {
+                throw new ResourceNotFoundException("No preview for file: " + filename);
+            }
+            pdfPreviewService.enqueue(sha256);
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader(HttpHeaders.RETRY_AFTER, PREVIEW_RETRY_AFTER);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                STORED_NAME.matcher(filename).matches() ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        if (new ServletWebRequest(request, response)
+                .checkNotModified("\"" + sha256 + "-" + variant + "\"", file.lastModified())) {
+            return;
+        }
+        Path path = preview.get();
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLengthLong(Files.size(path));
+        if (!"HEAD".equals(request.getMethod())) {
+            Files.copy(path, response.getOutputStream());
+        }
+    }
+
+    // The blob hash of a stored PDF, or null for anything that has no previews.
+    private String pdfBlob(String filename) {
+        return fileStorageService.resolveStoredFile(filename)
+                .filter(file -> isPdf(file, filename))
+                .map(FileStorageService.ResolvedFile::sha256)
+                .orElse(null);
+    }
+
+    private static boolean isPdf(FileStorageService.ResolvedFile file, String filename) {
+        return MediaType.APPLICATION_PDF.includes(contentType(file, filename));
+    }
+
+    /**
+     * The one range to serve, or null to serve the whole file: no or malformed Range
+     * header, several ranges, or an If-Range validator that no longer matches.
+     */
+    private static HttpRange singleRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range needs a strong match, so a weak validator never matches.
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    // The type recorded at upload, else guessed from the name.
+    private static MediaType contentType(FileStorageService.ResolvedFile file, String filename) {
+        if (file.contentType() != null) {
+            try {
+                return MediaType.parseMediaType(file.contentType());
+            } catch (InvalidMediaTypeException ignored) {
+                // Fall through to the name.
+            }
+        }
+        return MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(resource);
+    // Anything a browser could run as a page or script is downloaded instead of shown.
+    private static boolean isInlineSafe(MediaType type) {
+        if (type.getSubtype().contains("svg")) {
+            return false;
+        }
+        return "image".equals(type.getType())
+                || "video".equals(type.getType())
+                || "audio".equals(type.getType())
+                || MediaType.APPLICATION_PDF.includes(type)
+                || MediaType.TEXT_PLAIN.includes(type);
     }
 }
@@ -0,0 +1,46 @@
+package com.smartclassroom.backend.controller;
+
+import com.smartclassroom.backend.dto.assignment.GradeDistributionDTO;
+import com.smartclassroom.backend.security.UserPrincipal;
+import com.smartclassroom.backend.service.GradeDistributionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Grade histograms and percentiles. Classroom and teacher distributions merge their
+ * assignments on a percent-of-max-marks scale. Each is limited to the teacher who owns it.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('TEACHER')")
+public class GradeDistributionController {
+
+    private final GradeDistributionService gradeDistributionService;
+
+    @GetMapping("/assignments/{assignmentId}/grade-distribution")
+    public GradeDistributionDTO getAssignmentDistribution(
+            @PathVariable Long assignmentId,
+            @RequestParam(value = "buckets", defaultValue = "10") int buckets,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return gradeDistributionService.forAssignment(assignmentId, principal.getId(), buckets);
+    }
+
+    @GetMapping("/classrooms/{classroomId}/grade-distribution")
+    public GradeDistributionDTO getClassroomDistribution(
+            @PathVariable Long classroomId,
+            @RequestParam(value = "buckets", defaultValue = "10") int buckets,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return gradeDistributionService.forClassroom(classroomId, principal.getId(), buckets);
+    }
+
+    @GetMapping("/users/{teacherId}/grade-distribution")
+    public GradeDistributionDTO getTeacherDistribution(
+            @PathVariable Long teacherId,
+            @RequestParam(value = "buckets", defaultValue = "10") int buckets,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return gradeDistributionService.forTeacher(teacherId, principal.getId(), buckets);
+    }
+}
@@ -0,0 +1,43 @@
+package com.smartclassroom.backend.controller;
+
+import com.smartclassroom.backend.security.UserPrincipal;
+import com.smartclassroom.backend.service.GradebookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/classrooms/{classroomId}/gradebook")
+@RequiredArgsConstructor
+public class GradebookController {
+
+    private final GradebookService gradebookService;
+
+    /**
+     * Students × assignments matrix of marks and status, as JSON (default), CSV or XLSX.
+     * The body is streamed row by row while the database cursor is read.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getGradebook(@PathVariable Long classroomId,
+                                                              @RequestParam(value = "format", defaultValue = "json") String format,
+                                                              @AuthenticationPrincipal UserPrincipal principal) {
+        GradebookService.Format outputFormat = GradebookService.Format.from(format);
+        // Checked up front so errors get a proper status before the streamed response is committed.
+        gradebookService.verifyTeacher(classroomId, principal.getId());
+
+        StreamingResponseBody body = out -> gradebookService.write(classroomId, outputFormat, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(outputFormat.getContentType()));
+        if (outputFormat != GradebookService.Format.JSON) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("gradebook-" + classroomId + "." + outputFormat.getExtension())
+                    .build().toString());
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,51 @@
+package com.smartclassroom.backend.controller;
+
+import com.smartclassroom.backend.dto.chat.ChatCacheStatsDTO;
+import com.smartclassroom.backend.dto.stats.ConditionalGetStatsDTO;
+import com.smartclassroom.backend.dto.stats.PdfPreviewStatsDTO;
+import com.smartclassroom.backend.dto.stats.StudentDashboardCheckDTO;
+import com.smartclassroom.backend.service.ChatMessageCache;
+import com.smartclassroom.backend.service.ClassroomVersionService;
+import com.smartclassroom.backend.service.PdfPreviewService;
+import com.smartclassroom.backend.service.StudentDashboardProjection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operational counters for teachers. Repairing the student dashboard is not exposed here;
+ * see {@code app.student-dashboard.rebuild-on-startup}.
+ */
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('TEACHER')")
+public class StatsController {
+
+    private final ChatMessageCache chatMessageCache;
+    private final ClassroomVersionService classroomVersionService;
+    private final StudentDashboardProjection studentDashboardProjection;
+    private final PdfPreviewService pdfPreviewService;
+
+    @GetMapping("/chat-cache")
+    public ChatCacheStatsDTO getChatCacheStats() {
+        return chatMessageCache.getStats();
+    }
+
+    @GetMapping("/conditional-get")
+    public ConditionalGetStatsDTO getConditionalGetStats() {
+        return classroomVersionService.getStats();
+    }
+
+    @GetMapping("/pdf-previews")
+    public PdfPreviewStatsDTO getPdfPreviewStats() {
+        return pdfPreviewService.getStats();
+    }
+
+    @GetMapping("/student-dashboard/check")
+    public StudentDashboardCheckDTO checkStudentDashboard() {
+        return studentDashboardProjection.check();
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartclassroom.backend.controller;
+
+import com.smartclassroom.backend.dto.file.UploadSessionDTO;
+import com.smartclassroom.backend.security.UserPrincipal;
+import com.smartclassroom.backend.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resumable uploads in the style of the tus 1.0 protocol. {@code POST} declares the
+ * length and returns the upload's URL; {@code PATCH} with an {@code Upload-Offset}
+ * header appends the raw request body; {@code HEAD} (or {@code GET}) reports the offset
+ * to resume from after a dropped connection; {@code POST .../finalize} turns the
+ * complete upload into a file with the same URL form as {@code /api/files/upload}.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_METADATA = "Upload-Metadata";
+    private static final String UPLOAD_EXPIRES = "Upload-Expires";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDTO> createUpload(@RequestHeader(UPLOAD_LENGTH) long length,
+                                                         @RequestHeader(value = UPLOAD_METADATA, required = false) String metadata,
+                                                         @AuthenticationPrincipal UserPrincipal principal) {
+        UploadSessionDTO upload = resumableUploadService.create(principal.getId(), length, metadata);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(upload.getId())
+                .toUri();
+        return ResponseEntity.created(location)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, Long.toString(upload.getUploadOffset()))
+                .header(UPLOAD_EXPIRES, httpDate(upload))
+                .body(upload);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String id,
+                                                      @AuthenticationPrincipal UserPrincipal principal) {
+        UploadSessionDTO upload = resumableUploadService.getStatus(id, principal.getId());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, Long.toString(upload.getUploadOffset()))
+                .header(UPLOAD_LENGTH, Long.toString(upload.getUploadLength()))
+                .header(UPLOAD_EXPIRES, httpDate(upload))
+                .body(upload);
+    }
+
+    @PatchMapping(value = "/{id}", consumes = "application/offset+octet-stream")
+    public ResponseEntity<Void> appendChunk(@PathVariable String id,
+                                            @RequestHeader(UPLOAD_OFFSET) long offset,
+                                            @AuthenticationPrincipal UserPrincipal principal,
+                                            HttpServletRequest request) throws IOException {
+        long newOffset = resumableUploadService.append(id, principal.getId(), offset, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, Long.toString(newOffset))
+                .build();
+    }
+
+    @PostMapping("/{id}/finalize")
+    public Map<String, String> finalizeUpload(@PathVariable String id,
+                                              @AuthenticationPrincipal UserPrincipal principal) {
+        String storedFilename = resumableUploadService.finalizeUpload(id, principal.getId());
+        String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/files/")
+                .path(storedFilename)
+                .toUriString();
+
+        Map<String, String> response = new HashMap<>();
+        response.put("url", fileDownloadUri);
+        return response;
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelUpload(@PathVariable String id,
+                             @AuthenticationPrincipal UserPrincipal principal) {
+        resumableUploadService.cancel(id, principal.getId());
+    }
+
+    private static String httpDate(UploadSessionDTO upload) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.of(upload.getExpiresAt(), ZoneId.systemDefault()));
+    }
+}
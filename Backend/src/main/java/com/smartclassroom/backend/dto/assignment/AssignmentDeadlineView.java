@@ -0,0 +1,16 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The two assignment fields that decide whether it accepts submissions.
+ */
+@Data
+@AllArgsConstructor
+public class AssignmentDeadlineView {
+    private LocalDateTime dueDate;
+    private Boolean closed;
+}
@@ -20,4 +20,11 @@ public class AssignmentStatisticsDTO {
     private Integer notSubmittedCount;
 
     private Integer gradedCount;
+
+    // Over graded submissions only; null until something is graded
+    private Double meanMarks;
+
+    private Integer highestMarks;
+
+    private Integer lateCount;
 }
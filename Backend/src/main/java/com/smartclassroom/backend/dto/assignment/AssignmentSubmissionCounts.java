@@ -0,0 +1,15 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Per-assignment submission totals, produced by a grouped aggregate query.
+ */
+@Getter
+@AllArgsConstructor
+public class AssignmentSubmissionCounts {
+    private final Long assignmentId;
+    private final Long submittedCount;
+    private final Long gradedCount;
+}
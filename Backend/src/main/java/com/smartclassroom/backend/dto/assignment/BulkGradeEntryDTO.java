@@ -0,0 +1,16 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class BulkGradeEntryDTO {
+
+    @NotNull
+    private Long submissionId;
+
+    @NotNull
+    private Integer marks;
+
+    private String feedback;
+}
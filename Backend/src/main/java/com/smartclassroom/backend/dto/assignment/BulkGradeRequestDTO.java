@@ -0,0 +1,16 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkGradeRequestDTO {
+
+    @NotEmpty
+    @Size(max = 5000)
+    private List<@Valid BulkGradeEntryDTO> grades;
+}
@@ -0,0 +1,38 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk grading request. Rows are reported in request order; rejected rows
+ * leave their submission untouched while the valid rows are still applied.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkGradeResultDTO {
+
+    private Long assignmentId;
+
+    private int updatedCount;
+
+    private int rejectedCount;
+
+    private List<Row> results;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Row {
+        private Long submissionId;
+        // UPDATED or REJECTED
+        private String status;
+        // Reason for a rejection; null for updated rows
+        private String message;
+    }
+}
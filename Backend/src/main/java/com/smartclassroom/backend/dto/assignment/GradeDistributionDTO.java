@@ -0,0 +1,35 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class GradeDistributionDTO {
+    // ASSIGNMENT, CLASSROOM or TEACHER
+    private String scope;
+    private Long scopeId;
+    private int assignmentCount;
+    // Unit of every value below: the assignment's max marks, or 100 (percent of max) when merged
+    private double scale;
+    private long gradedCount;
+    private Double mean;
+    private Double median;
+    private Double p25;
+    private Double p75;
+    private Double p90;
+    private Double min;
+    private Double max;
+    private List<Bucket> histogram;
+
+    @Data
+    @AllArgsConstructor
+    public static class Bucket {
+        private double from;
+        private double to;
+        private long count;
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One (assignment, mark) bucket with the assignment's scale, as read for distributions.
+ */
+@Data
+@AllArgsConstructor
+public class MarkCountView {
+    private Long assignmentId;
+    private Integer maxMarks;
+    private Integer marks;
+    private int submissionCount;
+}
@@ -0,0 +1,22 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import com.smartclassroom.backend.model.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NonSubmittedStudentDTO {
+
+    private Long id;
+
+    private String name;
+
+    private String email;
+
+    private UserRole role;
+}
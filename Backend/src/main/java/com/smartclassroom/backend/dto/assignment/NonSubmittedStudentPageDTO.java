@@ -0,0 +1,23 @@
+package com.smartclassroom.backend.dto.assignment;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of students who have not submitted, ordered by name then id. Pass
+ * {@code nextAfterName} and {@code nextAfterId} back as the cursor for the next page.
+ */
+@Data
+@Builder
+public class NonSubmittedStudentPageDTO {
+
+    private List<NonSubmittedStudentDTO> students;
+
+    private boolean hasMore;
+
+    private String nextAfterName;
+
+    private Long nextAfterId;
+}
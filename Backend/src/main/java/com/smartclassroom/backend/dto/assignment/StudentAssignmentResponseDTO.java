@@ -40,4 +40,23 @@ public class StudentAssignmentResponseDTO {
     private String feedback;
 
     private Boolean isPastDeadline;
+
+    // Teacher view only: class-wide totals; null in a student's own list
+    private Integer submittedCount;
+
+    private Integer gradedCount;
+
+    private Integer totalStudents;
+
+    /**
+     * Constructor used by the student-assignments JPQL projection, which has no class-wide totals.
+     */
+    public StudentAssignmentResponseDTO(Long id, Long classroomId, String classroomName, String title,
+                                        String description, LocalDateTime dueDate, Integer maxMarks,
+                                        LocalDateTime createdAt, String attachmentUrl, Boolean isSubmitted,
+                                        LocalDateTime submittedAt, Integer marks, String feedback,
+                                        Boolean isPastDeadline) {
+        this(id, classroomId, classroomName, title, description, dueDate, maxMarks, createdAt, attachmentUrl,
+                isSubmitted, submittedAt, marks, feedback, isPastDeadline, null, null, null);
+    }
 }
@@ -0,0 +1,18 @@
+package com.smartclassroom.backend.dto.chat;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ChatCacheStatsDTO {
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private int cachedClassrooms;
+    private int cachedMessages;
+    // Estimated heap held by cached messages, in bytes
+    private long bytesUsed;
+    private long maxBytes;
+}
@@ -0,0 +1,40 @@
+package com.smartclassroom.backend.dto.chat;
+
+import com.smartclassroom.backend.model.ChatMessage;
+import com.smartclassroom.backend.model.User;
+import com.smartclassroom.backend.model.UserRole;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a chat message and its sender's public profile.
+ * <p>
+ * Built directly by a JPQL constructor expression so no {@code ChatMessage}, {@code User}
+ * or {@code Classroom} entity is hydrated, and shared between request threads through
+ * the recent-message cache, hence immutable.
+ */
+@Getter
+public class ChatMessageView {
+    private final Long id;
+    private final Long classroomId;
+    private final ChatSenderDTO sender;
+    private final String content;
+    private final LocalDateTime createdAt;
+
+    public ChatMessageView(Long id, Long classroomId, Long senderId, String senderName, UserRole senderRole,
+                           String senderProfileImageUrl, String content, LocalDateTime createdAt) {
+        this.id = id;
+        this.classroomId = classroomId;
+        this.sender = new ChatSenderDTO(senderId, senderName, senderRole, senderProfileImageUrl);
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    public static ChatMessageView of(ChatMessage message) {
+        User sender = message.getSender();
+        return new ChatMessageView(message.getId(), message.getClassroom().getId(), sender.getId(),
+                sender.getName(), sender.getRole(), sender.getProfileImageUrl(),
+                message.getContent(), message.getCreatedAt());
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartclassroom.backend.dto.chat;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of chat messages. Each sender's profile appears once in {@code senders}
+ * instead of being repeated on every message.
+ */
+@Data
+@Builder
+public class ChatPageResponseDTO {
+    private Long classroomId;
+    private List<CompactChatMessageDTO> messages;
+    private Map<Long, ChatSenderDTO> senders;
+}
@@ -0,0 +1,19 @@
+package com.smartclassroom.backend.dto.chat;
+
+import com.smartclassroom.backend.model.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The public part of a chat sender's profile, sent once per page in the senders dictionary.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class ChatSenderDTO {
+    private Long id;
+    private String name;
+    private UserRole role;
+    private String profileImageUrl;
+}
@@ -0,0 +1,16 @@
+package com.smartclassroom.backend.dto.chat;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class CompactChatMessageDTO {
+    private Long id;
+    // Key into ChatPageResponseDTO.senders
+    private Long senderId;
+    private String content;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.smartclassroom.backend.dto.classroom;
+
+import com.smartclassroom.backend.model.ClassroomDeletionJob;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ClassroomDeletionJobDTO {
+    private Long jobId;
+    private Long classroomId;
+    private ClassroomDeletionJob.Status status;
+    private int stepsCompleted;
+    private int totalSteps;
+    private long rowsDeleted;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
@@ -12,4 +12,6 @@ public class ClassroomResponseDTO {
     private String description;
     private String code;
     private UserResponseDTO teacher;
+    // Months of chat kept live; null means the server default
+    private Integer chatRetentionMonths;
 }
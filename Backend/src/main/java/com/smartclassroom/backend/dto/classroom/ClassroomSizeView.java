@@ -0,0 +1,14 @@
+package com.smartclassroom.backend.dto.classroom;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of enrolled students in a classroom, produced by a grouped aggregate query.
+ */
+@Getter
+@AllArgsConstructor
+public class ClassroomSizeView {
+    private final Long classroomId;
+    private final Long studentCount;
+}
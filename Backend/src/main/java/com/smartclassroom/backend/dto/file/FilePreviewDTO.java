@@ -0,0 +1,17 @@
+package com.smartclassroom.backend.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Whether a PDF's previews can be fetched yet. {@code status} is {@code READY},
+ * {@code PENDING} (queued or rendering; ask again shortly) or {@code UNAVAILABLE} (not a
+ * PDF, or one that could not be rendered). {@code pageCount} is the number of pages with
+ * a preview, which may be fewer than the document has.
+ */
+@Data
+@AllArgsConstructor
+public class FilePreviewDTO {
+    private String status;
+    private int pageCount;
+}
@@ -0,0 +1,15 @@
+package com.smartclassroom.backend.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * What a user's uploads add up to, counting each upload at its full size even when its
+ * content is shared with other uploads.
+ */
+@Data
+@AllArgsConstructor
+public class StorageUsageDTO {
+    private long fileCount;
+    private long totalBytes;
+}
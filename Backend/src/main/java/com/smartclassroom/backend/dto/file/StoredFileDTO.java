@@ -0,0 +1,17 @@
+package com.smartclassroom.backend.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class StoredFileDTO {
+    // The name in the file's /api/files/{name} URL
+    private String name;
+    private String originalName;
+    private String contentType;
+    private long sizeBytes;
+    private LocalDateTime createdAt;
+}
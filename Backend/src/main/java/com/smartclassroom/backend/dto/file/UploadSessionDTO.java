@@ -0,0 +1,19 @@
+package com.smartclassroom.backend.dto.file;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class UploadSessionDTO {
+    private String id;
+    private String originalName;
+    private String contentType;
+    private long uploadLength;
+    private long uploadOffset;
+    // Set once finalized: the name in the stored file's /api/files/{name} URL
+    private String fileName;
+    private LocalDateTime expiresAt;
+}
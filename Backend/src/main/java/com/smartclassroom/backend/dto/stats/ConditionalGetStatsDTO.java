@@ -0,0 +1,23 @@
+package com.smartclassroom.backend.dto.stats;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class ConditionalGetStatsDTO {
+    // 304 responses served across all versioned list endpoints
+    private long notModified;
+    private long queriesSaved;
+    private Map<String, ResourceStats> resources;
+
+    @Data
+    @Builder
+    public static class ResourceStats {
+        private long notModified;
+        private long fullResponses;
+        private long queriesSaved;
+    }
+}
@@ -0,0 +1,23 @@
+package com.smartclassroom.backend.dto.stats;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PdfPreviewStatsDTO {
+    private int workers;
+    private int activeWorkers;
+    private int queued;
+    private int queueCapacity;
+    private long submitted;
+    private long rendered;
+    private long failed;
+    // Turned away because the queue was full; rendered later when first requested
+    private long dropped;
+    private long pagesRendered;
+    private long renderMillis;
+    private double averageMillisPerDocument;
+    // Pages per second of rendering time, summed over workers
+    private double pagesPerWorkerSecond;
+}
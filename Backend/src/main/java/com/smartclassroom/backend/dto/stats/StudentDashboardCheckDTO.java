@@ -0,0 +1,16 @@
+package com.smartclassroom.backend.dto.stats;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StudentDashboardCheckDTO {
+    // Rows the source tables imply that are absent from, or differ in, the read model
+    private long missingRows;
+    // Rows in the read model that no longer match any source row
+    private long unexpectedRows;
+    private boolean consistent;
+    // Only set by a rebuild
+    private Integer studentsRebuilt;
+}
@@ -0,0 +1,11 @@
+package com.smartclassroom.backend.exception;
+
+/**
+ * The request is valid but does not match the resource's current state, for example a
+ * chunk sent for an offset the upload has already moved past.
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
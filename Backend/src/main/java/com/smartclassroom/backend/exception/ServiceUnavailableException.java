@@ -0,0 +1,11 @@
+package com.smartclassroom.backend.exception;
+
+/**
+ * The server is temporarily too busy to take the request, for example when the chat
+ * write queue is full. The client may retry shortly.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
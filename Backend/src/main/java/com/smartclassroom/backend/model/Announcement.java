@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Announcement {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "announcements_seq")
+    @SequenceGenerator(name = "announcements_seq", sequenceName = "announcements_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Assignment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignments_seq")
+    @SequenceGenerator(name = "assignments_seq", sequenceName = "assignments_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -0,0 +1,46 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * How many graded submissions of an assignment have a given mark.
+ * <p>
+ * One row per distinct mark, kept current by
+ * {@link com.smartclassroom.backend.service.GradeDistributionService} as grades change.
+ * Histograms and percentiles for any set of assignments are computed from these rows
+ * alone, without reading submissions.
+ */
+@Entity
+@Table(name = "assignment_mark_counts")
+@IdClass(AssignmentMarkCount.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssignmentMarkCount {
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Id
+    @Column(name = "marks")
+    private Integer marks;
+
+    @Column(nullable = false)
+    private int submissionCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long assignmentId;
+        private Integer marks;
+    }
+}
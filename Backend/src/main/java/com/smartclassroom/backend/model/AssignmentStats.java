@@ -0,0 +1,53 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Materialized statistics for one assignment.
+ * <p>
+ * Kept current by {@link com.smartclassroom.backend.service.AssignmentStatsService} in the
+ * same transaction as each submission, grade and membership change, so reading them is a
+ * single primary-key lookup. The marks sum is stored instead of the mean so grade changes
+ * can be applied as increments.
+ */
+@Entity
+@Table(name = "assignment_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssignmentStats {
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(nullable = false)
+    private int totalStudents;
+
+    @Column(nullable = false)
+    private int submittedCount;
+
+    @Column(nullable = false)
+    private int gradedCount;
+
+    @Column(nullable = false)
+    private long marksSum;
+
+    private Integer highestMarks;
+
+    @Column(nullable = false)
+    private int lateCount;
+
+    private LocalDateTime updatedAt;
+
+    public Double getMeanMarks() {
+        return gradedCount == 0 ? null : (double) marksSum / gradedCount;
+    }
+}
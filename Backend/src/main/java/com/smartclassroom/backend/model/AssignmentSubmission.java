@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class AssignmentSubmission {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignment_submissions_seq")
+    @SequenceGenerator(name = "assignment_submissions_seq", sequenceName = "assignment_submissions_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class Classroom {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "classrooms_seq")
+    @SequenceGenerator(name = "classrooms_seq", sequenceName = "classrooms_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,7 +36,22 @@ public class Classroom {
     @JoinColumn(name = "teacher_id")
     private User teacher;
 
+    /**
+     * How many months of chat history stay in the live {@code chat_messages} partitions.
+     * Older messages are only served from the chat archive. {@code null} means the
+     * application default ({@code app.chat.retention.default-months}).
+     */
+    @Column(name = "chat_retention_months")
+    private Integer chatRetentionMonths;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
+
+    /**
+     * Set when the teacher deletes the classroom. From then on it is hidden everywhere
+     * while a {@link ClassroomDeletionJob} purges its contents and finally the row itself.
+     */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
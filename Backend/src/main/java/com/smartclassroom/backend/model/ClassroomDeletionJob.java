@@ -0,0 +1,80 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background deletion of one classroom.
+ * <p>
+ * {@code step} and {@code rowsDeleted} are advanced in the same transaction as each chunk
+ * they describe, so a job interrupted by a restart resumes where it stopped. The worker
+ * that owns a job holds a lease ({@code leaseOwner} until {@code leaseUntil}); a job whose
+ * lease has run out is picked up again. Rows are claimed and advanced with plain SQL by
+ * {@link com.smartclassroom.backend.service.ClassroomDeletionService}. The classroom id is
+ * not a foreign key because the job outlives the classroom.
+ */
+@Entity
+@Table(name = "classroom_deletion_jobs",
+        uniqueConstraints = @UniqueConstraint(name = "uq_classroom_deletion_job", columnNames = "classroom_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClassroomDeletionJob {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        /** Gave up after repeated errors; the classroom stays hidden. */
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "classroom_deletion_jobs_seq")
+    @SequenceGenerator(name = "classroom_deletion_jobs_seq", sequenceName = "classroom_deletion_jobs_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "classroom_id", nullable = false)
+    private Long classroomId;
+
+    @Column(name = "requested_by", nullable = false)
+    private Long requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    // Index of the next purge step; see BulkDeleteService#deleteClassroomChunk
+    @Column(nullable = false)
+    private int step;
+
+    @Column(name = "rows_deleted", nullable = false)
+    private long rowsDeleted;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "lease_owner", length = 36)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
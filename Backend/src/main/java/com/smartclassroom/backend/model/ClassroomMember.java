@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class ClassroomMember {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "classroom_members_seq")
+    @SequenceGenerator(name = "classroom_members_seq", sequenceName = "classroom_members_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
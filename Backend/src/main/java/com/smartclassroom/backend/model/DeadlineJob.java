@@ -0,0 +1,49 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending timer for one assignment deadline event.
+ * <p>
+ * There is at most one row per (type, assignment); rescheduling moves {@code fireAt} and
+ * firing deletes the row. Rows are written and consumed with plain SQL by
+ * {@link com.smartclassroom.backend.service.DeadlineScheduler}, which keeps them in an
+ * in-memory timing wheel while they are pending.
+ */
+@Entity
+@Table(name = "deadline_jobs",
+        uniqueConstraints = @UniqueConstraint(name = "uq_deadline_job", columnNames = {"job_type", "assignment_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadlineJob {
+
+    public enum Type {
+        /** Marks the assignment closed at its due date. */
+        CLOSE,
+        /** Posts a "due soon" announcement ahead of the due date. */
+        REMINDER
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deadline_jobs_seq")
+    @SequenceGenerator(name = "deadline_jobs_seq", sequenceName = "deadline_jobs_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 16)
+    private Type jobType;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    @Column(nullable = false)
+    private LocalDateTime fireAt;
+}
@@ -0,0 +1,45 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored file content, kept once however many uploads produced it.
+ * <p>
+ * {@code refCount} is the number of {@link StoredFile} rows pointing at it; a blob at zero
+ * is deleted by a periodic sweep once {@code orphanedAt} is old enough. Rows are
+ * written with plain SQL by {@link com.smartclassroom.backend.service.FileStorageService}.
+ */
+@Entity
+@Table(name = "file_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileBlob {
+
+    // Lower-case hex SHA-256 of the content; also the blob's file name on disk
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    // When the last reference went away, or the blob was reserved for an upload; null while referenced
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt;
+}
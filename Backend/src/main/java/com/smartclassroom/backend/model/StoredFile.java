@@ -0,0 +1,50 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file as the application knows it: the name in its {@code /api/files/{name}} URL,
+ * pointing at the {@link FileBlob} that holds the content, plus what the uploader sent.
+ * Listings and storage usage are answered from this table alone.
+ */
+@Entity
+@Table(name = "stored_files", indexes = {
+        @Index(name = "idx_stored_files_blob", columnList = "blob_sha256"),
+        @Index(name = "idx_stored_files_owner", columnList = "owner_id, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredFile {
+
+    @Id
+    private String name;
+
+    @Column(name = "blob_sha256", nullable = false, length = 64)
+    private String blobSha256;
+
+    // Null for files that predate this table or whose uploader has been deleted
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "content_type", length = 255)
+    private String contentType;
+
+    @Column(name = "original_name", length = 255)
+    private String originalName;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
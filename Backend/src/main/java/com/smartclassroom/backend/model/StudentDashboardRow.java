@@ -0,0 +1,76 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One (member, assignment) row of the denormalized "My assignments" read model.
+ * <p>
+ * Written only by {@link com.smartclassroom.backend.service.StudentDashboardProjection},
+ * in the same transaction as the assignment, submission and membership changes it
+ * mirrors, so a dashboard load is a single index range scan on {@code student_id}.
+ */
+@Entity
+@Table(name = "student_dashboard", indexes = {
+        @Index(name = "idx_student_dashboard_due", columnList = "student_id, due_date"),
+        @Index(name = "idx_student_dashboard_assignment", columnList = "assignment_id"),
+        @Index(name = "idx_student_dashboard_classroom", columnList = "classroom_id")
+})
+@IdClass(StudentDashboardRow.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentDashboardRow {
+
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "classroom_id", nullable = false)
+    private Long classroomId;
+
+    @Column(nullable = false)
+    private String classroomName;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    private LocalDateTime dueDate;
+
+    private Integer maxMarks;
+
+    private LocalDateTime assignmentCreatedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String attachmentUrl;
+
+    // Null until the member submits.
+    private LocalDateTime submittedAt;
+
+    private Integer marks;
+
+    @Column(columnDefinition = "TEXT")
+    private String feedback;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long studentId;
+        private Long assignmentId;
+    }
+}
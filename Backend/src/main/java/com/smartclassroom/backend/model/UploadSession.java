@@ -0,0 +1,56 @@
+package com.smartclassroom.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. The bytes received so far are in a partial file named
+ * by the id; {@code uploadOffset} is how many of them are confirmed, and only moves
+ * forward, with a compare-and-set on its previous value. Each chunk pushes
+ * {@code expiresAt} back; sessions left past it are removed with their partial file by
+ * {@link com.smartclassroom.backend.service.ResumableUploadService}. Once finalized,
+ * {@code storedName} is the stored file the upload became.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = @Index(name = "idx_upload_sessions_expires", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "original_name", nullable = false, length = 255)
+    private String originalName;
+
+    @Column(name = "content_type", length = 255)
+    private String contentType;
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    @Column(name = "stored_name", length = 255)
+    private String storedName;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
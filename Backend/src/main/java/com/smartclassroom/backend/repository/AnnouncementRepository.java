@@ -2,9 +2,17 @@ package com.smartclassroom.backend.repository;
 
 import com.smartclassroom.backend.model.Announcement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface AnnouncementRepository extends JpaRepository<Announcement, Long> {
-    List<Announcement> findByClassroomIdOrderByCreatedAtDesc(Long classroomId);
+    List<Announcement> findByClassroomIdAndClassroomDeletedAtIsNullOrderByCreatedAtDesc(Long classroomId);
+
+    @Modifying
+    @Query(value = "DELETE FROM announcements WHERE id IN " +
+            "(SELECT id FROM announcements WHERE classroom_id = :classroomId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByClassroomId(@Param("classroomId") Long classroomId, @Param("limit") int limit);
 }
@@ -0,0 +1,60 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.dto.assignment.MarkCountView;
+import com.smartclassroom.backend.model.AssignmentMarkCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AssignmentMarkCountRepository extends JpaRepository<AssignmentMarkCount, AssignmentMarkCount.Key> {
+
+    // Atomic, so concurrent grading of the same assignment never loses a change.
+    @Modifying
+    @Query(value = "INSERT INTO assignment_mark_counts (assignment_id, marks, submission_count) " +
+            "VALUES (:assignmentId, :marks, :delta) ON CONFLICT (assignment_id, marks) " +
+            "DO UPDATE SET submission_count = assignment_mark_counts.submission_count + EXCLUDED.submission_count",
+            nativeQuery = true)
+    int applyDelta(@Param("assignmentId") Long assignmentId, @Param("marks") int marks, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_mark_counts WHERE assignment_id = :assignmentId AND submission_count <= 0",
+            nativeQuery = true)
+    int deleteEmpty(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_mark_counts WHERE assignment_id = :assignmentId", nativeQuery = true)
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_mark_counts WHERE assignment_id IN " +
+            "(SELECT id FROM assignments WHERE classroom_id = :classroomId)", nativeQuery = true)
+    int deleteByClassroomId(@Param("classroomId") Long classroomId);
+
+    @Modifying
+    @Query(value = "INSERT INTO assignment_mark_counts (assignment_id, marks, submission_count) " +
+            "SELECT assignment_id, marks, COUNT(*) FROM assignment_submissions " +
+            "WHERE assignment_id = :assignmentId AND marks IS NOT NULL GROUP BY assignment_id, marks",
+            nativeQuery = true)
+    int insertFromSubmissions(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.MarkCountView(" +
+            "a.id, a.maxMarks, m.marks, m.submissionCount) " +
+            "FROM AssignmentMarkCount m, Assignment a " +
+            "WHERE a.id = m.assignmentId AND a.id = :assignmentId AND m.submissionCount > 0")
+    List<MarkCountView> findByAssignment(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.MarkCountView(" +
+            "a.id, a.maxMarks, m.marks, m.submissionCount) " +
+            "FROM AssignmentMarkCount m, Assignment a " +
+            "WHERE a.id = m.assignmentId AND a.classroom.id = :classroomId AND m.submissionCount > 0")
+    List<MarkCountView> findByClassroom(@Param("classroomId") Long classroomId);
+
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.MarkCountView(" +
+            "a.id, a.maxMarks, m.marks, m.submissionCount) " +
+            "FROM AssignmentMarkCount m, Assignment a " +
+            "WHERE a.id = m.assignmentId AND a.classroom.teacher.id = :teacherId AND m.submissionCount > 0")
+    List<MarkCountView> findByTeacher(@Param("teacherId") Long teacherId);
+}
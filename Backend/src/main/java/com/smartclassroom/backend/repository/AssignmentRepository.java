@@ -1,15 +1,44 @@
 package com.smartclassroom.backend.repository;
 
+import com.smartclassroom.backend.dto.assignment.AssignmentDeadlineView;
 import com.smartclassroom.backend.model.Assignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
-    List<Assignment> findByClassroomId(Long classroomId);
+    List<Assignment> findByClassroomIdAndClassroomDeletedAtIsNull(Long classroomId);
 
-    @Query("SELECT a FROM Assignment a WHERE a.classroom.id IN :classroomIds ORDER BY a.dueDate ASC")
-    List<Assignment> findByClassroomIdIn(@Param("classroomIds") List<Long> classroomIds);
+    @Query("SELECT a.classroom.id FROM Assignment a WHERE a.id = :assignmentId")
+    Optional<Long> findClassroomIdById(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.AssignmentDeadlineView(a.dueDate, a.closed) " +
+            "FROM Assignment a WHERE a.id = :assignmentId")
+    Optional<AssignmentDeadlineView> findDeadlineById(@Param("assignmentId") Long assignmentId);
+
+    // Empty if the assignment does not exist or its classroom is waiting for deletion.
+    @Query("SELECT c.teacher.id FROM Assignment a JOIN a.classroom c WHERE a.id = :assignmentId AND c.deletedAt IS NULL")
+    Optional<Long> findActiveTeacherIdById(@Param("assignmentId") Long assignmentId);
+
+    // Empty if the assignment does not exist; a single null element if it has no max marks.
+    @Query("SELECT a.maxMarks FROM Assignment a WHERE a.id = :assignmentId")
+    List<Integer> findMaxMarksById(@Param("assignmentId") Long assignmentId);
+
+    // Fetch-joins the eager associations so a teacher's whole list is one statement.
+    // Classrooms waiting for background deletion are already hidden.
+    @Query("SELECT a FROM Assignment a JOIN FETCH a.classroom c JOIN FETCH c.teacher JOIN FETCH a.createdBy " +
+            "WHERE c.teacher.id = :teacherId AND c.deletedAt IS NULL ORDER BY a.dueDate ASC")
+    List<Assignment> findByTeacherIdWithClassroom(@Param("teacherId") Long teacherId);
+
+    @Query(value = "SELECT id FROM assignments WHERE id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignments WHERE id IN " +
+            "(SELECT id FROM assignments WHERE classroom_id = :classroomId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByClassroomId(@Param("classroomId") Long classroomId, @Param("limit") int limit);
 }
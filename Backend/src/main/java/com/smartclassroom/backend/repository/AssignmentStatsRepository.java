@@ -0,0 +1,78 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.model.AssignmentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Counter updates are single-row {@code UPDATE ... SET x = x + n} statements so concurrent
+ * writers never lose increments; each returns the number of rows touched, which is 0 when
+ * the assignment has no statistics row yet.
+ */
+public interface AssignmentStatsRepository extends JpaRepository<AssignmentStats, Long> {
+
+    @Modifying
+    @Query(value = "UPDATE assignment_stats SET submitted_count = submitted_count + 1, " +
+            "late_count = late_count + :late, updated_at = now() WHERE assignment_id = :assignmentId",
+            nativeQuery = true)
+    int incrementSubmitted(@Param("assignmentId") Long assignmentId, @Param("late") int late);
+
+    @Modifying
+    @Query(value = "UPDATE assignment_stats SET graded_count = graded_count + :gradedDelta, " +
+            "marks_sum = marks_sum + :marksDelta, " +
+            "highest_marks = GREATEST(highest_marks, CAST(:marks AS INTEGER)), updated_at = now() " +
+            "WHERE assignment_id = :assignmentId", nativeQuery = true)
+    int applyGrade(@Param("assignmentId") Long assignmentId,
+                   @Param("gradedDelta") int gradedDelta,
+                   @Param("marksDelta") long marksDelta,
+                   @Param("marks") Integer marks);
+
+    // Only needed when the current highest mark is lowered or removed.
+    @Modifying
+    @Query(value = "UPDATE assignment_stats SET highest_marks = " +
+            "(SELECT MAX(marks) FROM assignment_submissions WHERE assignment_id = :assignmentId) " +
+            "WHERE assignment_id = :assignmentId", nativeQuery = true)
+    int refreshHighestMarks(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "UPDATE assignment_stats SET total_students = total_students + :delta, updated_at = now() " +
+            "WHERE assignment_id IN (SELECT id FROM assignments WHERE classroom_id = :classroomId)",
+            nativeQuery = true)
+    int adjustTotalStudents(@Param("classroomId") Long classroomId, @Param("delta") int delta);
+
+    @Query(value = "SELECT assignment_id FROM assignment_stats WHERE assignment_id = :assignmentId FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockById(@Param("assignmentId") Long assignmentId);
+
+    /**
+     * Recomputes one assignment's row from the source tables, inserting it if missing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO assignment_stats (assignment_id, total_students, submitted_count, graded_count, " +
+            "marks_sum, highest_marks, late_count, updated_at) " +
+            "SELECT a.id, " +
+            "(SELECT COUNT(*) FROM classroom_members cm " +
+            "WHERE cm.classroom_id = a.classroom_id AND cm.role_in_class = 'STUDENT'), " +
+            "COUNT(s.id), COUNT(s.marks), COALESCE(SUM(s.marks), 0), MAX(s.marks), " +
+            "COUNT(s.id) FILTER (WHERE a.due_date IS NOT NULL AND s.submitted_at > a.due_date), now() " +
+            "FROM assignments a LEFT JOIN assignment_submissions s ON s.assignment_id = a.id " +
+            "WHERE a.id = :assignmentId GROUP BY a.id, a.classroom_id, a.due_date " +
+            "ON CONFLICT (assignment_id) DO UPDATE SET total_students = EXCLUDED.total_students, " +
+            "submitted_count = EXCLUDED.submitted_count, graded_count = EXCLUDED.graded_count, " +
+            "marks_sum = EXCLUDED.marks_sum, highest_marks = EXCLUDED.highest_marks, " +
+            "late_count = EXCLUDED.late_count, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int recompute(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_stats WHERE assignment_id = :assignmentId", nativeQuery = true)
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_stats WHERE assignment_id IN " +
+            "(SELECT id FROM assignments WHERE classroom_id = :classroomId)", nativeQuery = true)
+    int deleteByClassroomId(@Param("classroomId") Long classroomId);
+}
@@ -1,7 +1,9 @@
 package com.smartclassroom.backend.repository;
 
+import com.smartclassroom.backend.dto.assignment.AssignmentSubmissionCounts;
 import com.smartclassroom.backend.model.AssignmentSubmission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -18,4 +20,25 @@ public interface AssignmentSubmissionRepository extends JpaRepository<Assignment
 
     @Query("SELECT COUNT(s) FROM AssignmentSubmission s WHERE s.assignment.id = :assignmentId AND s.marks IS NOT NULL")
     Long countGradedByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    /**
+     * Submitted and graded counts for every assignment in the teacher's classrooms,
+     * in one grouped query. Assignments without submissions are absent.
+     */
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.AssignmentSubmissionCounts(" +
+            "a.id, COUNT(s), SUM(CASE WHEN s.marks IS NOT NULL THEN 1 ELSE 0 END)) " +
+            "FROM AssignmentSubmission s JOIN s.assignment a " +
+            "WHERE a.classroom.teacher.id = :teacherId GROUP BY a.id")
+    List<AssignmentSubmissionCounts> countByTeacherIdGroupByAssignment(@Param("teacherId") Long teacherId);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_submissions WHERE id IN " +
+            "(SELECT id FROM assignment_submissions WHERE assignment_id = :assignmentId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByAssignmentId(@Param("assignmentId") Long assignmentId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM assignment_submissions WHERE id IN " +
+            "(SELECT s.id FROM assignment_submissions s JOIN assignments a ON a.id = s.assignment_id " +
+            "WHERE a.classroom_id = :classroomId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByClassroomId(@Param("classroomId") Long classroomId, @Param("limit") int limit);
 }
@@ -1,16 +1,35 @@
 package com.smartclassroom.backend.repository;
 
+import com.smartclassroom.backend.dto.chat.ChatMessageView;
 import com.smartclassroom.backend.model.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
-    // Fetch up to 50 messages for a classroom in ascending time order.
-    // We query via the classroom relation's id field.
-    List<ChatMessage> findTop50ByClassroom_IdOrderByCreatedAtAsc(Long classroomId);
+    // Fetch the newest messages for a classroom, newest first, projected straight into
+    // views (no entity hydration). Callers reverse the page to display it in ascending
+    // time order. The lower bound lets PostgreSQL prune chat_messages partitions outside
+    // the classroom's retention window.
+    @Query("SELECT new com.smartclassroom.backend.dto.chat.ChatMessageView(" +
+            "m.id, m.classroom.id, s.id, s.name, s.role, s.profileImageUrl, m.content, m.createdAt) " +
+            "FROM ChatMessage m JOIN m.sender s " +
+            "WHERE m.classroom.id = :classroomId AND m.createdAt >= :since " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageView> findRecentViews(@Param("classroomId") Long classroomId,
+                                          @Param("since") LocalDateTime since,
+                                          Pageable pageable);
 
-    // Fetch all messages for a classroom so they can be deleted safely.
-    List<ChatMessage> findByClassroom_Id(Long classroomId);
+    // Delete up to :limit messages of a classroom in one statement; callers loop until
+    // fewer than :limit rows come back so no single statement touches the whole table.
+    @Modifying
+    @Query(value = "DELETE FROM chat_messages WHERE id IN " +
+            "(SELECT id FROM chat_messages WHERE classroom_id = :classroomId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByClassroomId(@Param("classroomId") Long classroomId, @Param("limit") int limit);
 }
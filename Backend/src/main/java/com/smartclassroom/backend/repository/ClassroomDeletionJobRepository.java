@@ -0,0 +1,10 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.model.ClassroomDeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ClassroomDeletionJobRepository extends JpaRepository<ClassroomDeletionJob, Long> {
+    Optional<ClassroomDeletionJob> findByClassroomId(Long classroomId);
+}
@@ -1,9 +1,13 @@
 package com.smartclassroom.backend.repository;
 
+import com.smartclassroom.backend.dto.assignment.NonSubmittedStudentDTO;
+import com.smartclassroom.backend.dto.classroom.ClassroomSizeView;
 import com.smartclassroom.backend.model.ClassroomMember;
 import com.smartclassroom.backend.model.ClassroomRole;
 import com.smartclassroom.backend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -23,4 +27,36 @@ public interface ClassroomMemberRepository extends JpaRepository<ClassroomMember
 
     @Query("SELECT cm.user FROM ClassroomMember cm WHERE cm.classroom.id = :classroomId AND cm.roleInClass = :role")
     List<User> findUsersByClassroomIdAndRole(@Param("classroomId") Long classroomId, @Param("role") ClassroomRole role);
+
+    @Query("SELECT new com.smartclassroom.backend.dto.classroom.ClassroomSizeView(cm.classroom.id, COUNT(cm)) " +
+            "FROM ClassroomMember cm WHERE cm.classroom.teacher.id = :teacherId AND cm.roleInClass = :role " +
+            "GROUP BY cm.classroom.id")
+    List<ClassroomSizeView> countByTeacherIdAndRoleGroupByClassroom(@Param("teacherId") Long teacherId,
+                                                                    @Param("role") ClassroomRole role);
+
+    /**
+     * Students of the classroom with no submission for the assignment, as an anti-join
+     * against the (assignment_id, student_id) unique index. Keyset-paginated on (name, id):
+     * pass an empty name and id 0 for the first page, and "%" to skip name filtering.
+     */
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.NonSubmittedStudentDTO(u.id, u.name, u.email, u.role) " +
+            "FROM ClassroomMember cm JOIN cm.user u " +
+            "WHERE cm.classroom.id = :classroomId " +
+            "AND cm.roleInClass = com.smartclassroom.backend.model.ClassroomRole.STUDENT " +
+            "AND NOT EXISTS (SELECT 1 FROM AssignmentSubmission s " +
+            "WHERE s.assignment.id = :assignmentId AND s.student.id = u.id) " +
+            "AND LOWER(u.name) LIKE :namePattern ESCAPE '\\' " +
+            "AND (u.name > :afterName OR (u.name = :afterName AND u.id > :afterId)) " +
+            "ORDER BY u.name ASC, u.id ASC")
+    List<NonSubmittedStudentDTO> findNonSubmitters(@Param("classroomId") Long classroomId,
+                                                   @Param("assignmentId") Long assignmentId,
+                                                   @Param("namePattern") String namePattern,
+                                                   @Param("afterName") String afterName,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM classroom_members WHERE id IN " +
+            "(SELECT id FROM classroom_members WHERE classroom_id = :classroomId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByClassroomId(@Param("classroomId") Long classroomId, @Param("limit") int limit);
 }
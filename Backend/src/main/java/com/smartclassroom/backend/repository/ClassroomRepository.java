@@ -2,12 +2,26 @@ package com.smartclassroom.backend.repository;
 
 import com.smartclassroom.backend.model.Classroom;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Classrooms being deleted (see {@link Classroom#getDeletedAt()}) are still rows until
+ * their deletion job finishes; application lookups go through the "active" variants.
+ */
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
-    Optional<Classroom> findByCode(String code);
+    @Query("SELECT c FROM Classroom c WHERE c.id = :id AND c.deletedAt IS NULL")
+    Optional<Classroom> findActiveById(@Param("id") Long id);
 
-    List<Classroom> findByTeacherId(Long teacherId);
+    Optional<Classroom> findByCodeAndDeletedAtIsNull(String code);
+
+    List<Classroom> findByTeacherIdAndDeletedAtIsNull(Long teacherId);
+
+    List<Classroom> findByDeletedAtIsNull();
+
+    @Query("SELECT MAX(COALESCE(c.chatRetentionMonths, :defaultMonths)) FROM Classroom c")
+    Integer findMaxChatRetentionMonths(@Param("defaultMonths") Integer defaultMonths);
 }
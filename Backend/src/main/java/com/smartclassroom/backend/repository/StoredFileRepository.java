@@ -0,0 +1,27 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.dto.file.StorageUsageDTO;
+import com.smartclassroom.backend.dto.file.StoredFileDTO;
+import com.smartclassroom.backend.model.StoredFile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    // Newest first, continuing below the createdAt of the previous page's last file.
+    @Query("SELECT new com.smartclassroom.backend.dto.file.StoredFileDTO(" +
+            "f.name, f.originalName, f.contentType, f.sizeBytes, f.createdAt) " +
+            "FROM StoredFile f WHERE f.ownerId = :ownerId AND f.createdAt < :before ORDER BY f.createdAt DESC")
+    List<StoredFileDTO> findPageByOwner(@Param("ownerId") Long ownerId,
+                                        @Param("before") LocalDateTime before,
+                                        Pageable pageable);
+
+    @Query("SELECT new com.smartclassroom.backend.dto.file.StorageUsageDTO(COUNT(f), COALESCE(SUM(f.sizeBytes), 0)) " +
+            "FROM StoredFile f WHERE f.ownerId = :ownerId")
+    StorageUsageDTO usageByOwner(@Param("ownerId") Long ownerId);
+}
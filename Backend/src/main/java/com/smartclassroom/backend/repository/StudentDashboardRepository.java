@@ -0,0 +1,107 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.dto.assignment.StudentAssignmentResponseDTO;
+import com.smartclassroom.backend.model.StudentDashboardRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and incremental writes for the student dashboard read model. Every write derives
+ * the affected rows from the source tables with one set-based statement, so the row
+ * contents are always defined by {@link #SOURCE_ROWS} alone.
+ */
+public interface StudentDashboardRepository extends JpaRepository<StudentDashboardRow, StudentDashboardRow.Key> {
+
+    String COLUMNS = "student_id, assignment_id, classroom_id, classroom_name, title, description, due_date, " +
+            "max_marks, assignment_created_at, attachment_url, submitted_at, marks, feedback";
+
+    /**
+     * What the read model should contain: every member of a classroom paired with each of
+     * its assignments and that member's own submission, if any. Callers append a WHERE.
+     */
+    String SOURCE_ROWS = "SELECT cm.user_id, a.id, c.id, c.name, a.title, a.description, a.due_date, " +
+            "a.max_marks, a.created_at, a.attachment_url, s.submitted_at, s.marks, s.feedback " +
+            "FROM classroom_members cm " +
+            "JOIN assignments a ON a.classroom_id = cm.classroom_id " +
+            "JOIN classrooms c ON c.id = a.classroom_id " +
+            "LEFT JOIN assignment_submissions s ON s.assignment_id = a.id AND s.student_id = cm.user_id ";
+
+    @Query("SELECT new com.smartclassroom.backend.dto.assignment.StudentAssignmentResponseDTO(" +
+            "d.assignmentId, d.classroomId, d.classroomName, d.title, d.description, d.dueDate, d.maxMarks, " +
+            "d.assignmentCreatedAt, d.attachmentUrl, " +
+            "CASE WHEN d.submittedAt IS NULL THEN false ELSE true END, d.submittedAt, d.marks, d.feedback, " +
+            "CASE WHEN d.dueDate IS NOT NULL AND d.dueDate < :now THEN true ELSE false END) " +
+            "FROM StudentDashboardRow d WHERE d.studentId = :studentId ORDER BY d.dueDate ASC")
+    List<StudentAssignmentResponseDTO> findDashboard(@Param("studentId") Long studentId,
+                                                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO student_dashboard (" + COLUMNS + ") " + SOURCE_ROWS +
+            "WHERE a.id = :assignmentId ON CONFLICT (student_id, assignment_id) DO NOTHING", nativeQuery = true)
+    int insertForAssignment(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "UPDATE student_dashboard d SET title = a.title, description = a.description, " +
+            "due_date = a.due_date, max_marks = a.max_marks, attachment_url = a.attachment_url " +
+            "FROM assignments a WHERE a.id = :assignmentId AND d.assignment_id = a.id", nativeQuery = true)
+    int refreshAssignment(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_dashboard WHERE assignment_id = :assignmentId", nativeQuery = true)
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query(value = "UPDATE student_dashboard d SET submitted_at = s.submitted_at, marks = s.marks, " +
+            "feedback = s.feedback FROM assignment_submissions s " +
+            "WHERE s.assignment_id = :assignmentId AND s.student_id = :studentId " +
+            "AND d.assignment_id = s.assignment_id AND d.student_id = s.student_id", nativeQuery = true)
+    int refreshSubmission(@Param("assignmentId") Long assignmentId, @Param("studentId") Long studentId);
+
+    @Modifying
+    @Query(value = "UPDATE student_dashboard d SET submitted_at = s.submitted_at, marks = s.marks, " +
+            "feedback = s.feedback FROM assignment_submissions s WHERE s.id IN (:submissionIds) " +
+            "AND d.assignment_id = s.assignment_id AND d.student_id = s.student_id", nativeQuery = true)
+    int refreshSubmissions(@Param("submissionIds") Collection<Long> submissionIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO student_dashboard (" + COLUMNS + ") " + SOURCE_ROWS +
+            "WHERE cm.classroom_id = :classroomId AND cm.user_id = :userId " +
+            "ON CONFLICT (student_id, assignment_id) DO NOTHING", nativeQuery = true)
+    int insertForMember(@Param("classroomId") Long classroomId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_dashboard WHERE student_id = :userId AND classroom_id = :classroomId",
+            nativeQuery = true)
+    int deleteForMember(@Param("classroomId") Long classroomId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_dashboard WHERE (student_id, assignment_id) IN " +
+            "(SELECT student_id, assignment_id FROM student_dashboard WHERE classroom_id = :classroomId " +
+            "LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByClassroomId(@Param("classroomId") Long classroomId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_dashboard WHERE student_id = :studentId", nativeQuery = true)
+    int deleteByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query(value = "INSERT INTO student_dashboard (" + COLUMNS + ") " + SOURCE_ROWS +
+            "WHERE cm.user_id = :studentId", nativeQuery = true)
+    int insertForStudent(@Param("studentId") Long studentId);
+
+    // Rows the source tables imply that are absent or differ in the read model.
+    @Query(value = "SELECT COUNT(*) FROM (" + SOURCE_ROWS +
+            "EXCEPT SELECT " + COLUMNS + " FROM student_dashboard) missing", nativeQuery = true)
+    long countMissing();
+
+    // Rows in the read model that the source tables do not imply (stale or orphaned).
+    @Query(value = "SELECT COUNT(*) FROM (SELECT " + COLUMNS + " FROM student_dashboard EXCEPT " +
+            SOURCE_ROWS + ") unexpected", nativeQuery = true)
+    long countUnexpected();
+}
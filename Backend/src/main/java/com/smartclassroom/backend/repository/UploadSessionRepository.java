@@ -0,0 +1,31 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Compare-and-set: 0 rows if another request moved the offset first.
+    @Modifying
+    @Query(value = "UPDATE upload_sessions SET upload_offset = :newOffset, expires_at = :expiresAt " +
+            "WHERE id = :id AND upload_offset = :expectedOffset AND stored_name IS NULL", nativeQuery = true)
+    int advanceOffset(@Param("id") String id,
+                      @Param("expectedOffset") long expectedOffset,
+                      @Param("newOffset") long newOffset,
+                      @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query(value = "UPDATE upload_sessions SET stored_name = :storedName WHERE id = :id AND stored_name IS NULL",
+            nativeQuery = true)
+    int markFinalized(@Param("id") String id, @Param("storedName") String storedName);
+
+    @Query(value = "SELECT id FROM upload_sessions WHERE expires_at < :now ORDER BY expires_at LIMIT :limit",
+            nativeQuery = true)
+    List<String> findExpiredIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -9,6 +9,7 @@ import com.smartclassroom.backend.repository.ClassroomRepository;
 import com.smartclassroom.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -19,9 +20,11 @@ public class AnnouncementService {
     private final AnnouncementRepository announcementRepository;
     private final ClassroomRepository classroomRepository;
     private final UserRepository userRepository;
+    private final ClassroomVersionService classroomVersionService;
 
+    @Transactional
     public Announcement createAnnouncement(Long classroomId, Long authorId, String title, String content, String attachmentUrl) {
-        Classroom classroom = classroomRepository.findById(classroomId)
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
         User author = userRepository.findById(authorId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + authorId));
@@ -33,18 +36,23 @@ public class AnnouncementService {
                 .content(content)
                 .attachmentUrl(attachmentUrl)
                 .build();
-        return announcementRepository.save(announcement);
+        Announcement saved = announcementRepository.save(announcement);
+        classroomVersionService.bump(ClassroomVersionService.Resource.ANNOUNCEMENTS, classroomId);
+        return saved;
     }
 
     public List<Announcement> getAnnouncements(Long classroomId) {
-        return announcementRepository.findByClassroomIdOrderByCreatedAtDesc(classroomId);
+        return announcementRepository.findByClassroomIdAndClassroomDeletedAtIsNullOrderByCreatedAtDesc(classroomId);
     }
 
+    @Transactional
     public Announcement clearAttachment(Long announcementId) {
         Announcement announcement = announcementRepository.findById(announcementId)
                 .orElseThrow(() -> new ResourceNotFoundException("Announcement not found with id " + announcementId));
         announcement.setAttachmentUrl(null);
-        return announcementRepository.save(announcement);
+        Announcement saved = announcementRepository.save(announcement);
+        classroomVersionService.bump(ClassroomVersionService.Resource.ANNOUNCEMENTS, announcement.getClassroom().getId());
+        return saved;
     }
 
     public Announcement getAnnouncement(Long announcementId) {
@@ -52,8 +60,10 @@ public class AnnouncementService {
                 .orElseThrow(() -> new ResourceNotFoundException("Announcement not found with id " + announcementId));
     }
 
+    @Transactional
     public void deleteAnnouncement(Long announcementId) {
         Announcement announcement = getAnnouncement(announcementId);
         announcementRepository.delete(announcement);
+        classroomVersionService.bump(ClassroomVersionService.Resource.ANNOUNCEMENTS, announcement.getClassroom().getId());
     }
 }
@@ -0,0 +1,109 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.AssignmentDeadlineView;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches each assignment's due date and closed flag so submissions after the deadline
+ * are turned away without a query.
+ * <p>
+ * This is only a fast path: the submission insert checks the same conditions against the
+ * assignment row, so a stale entry can at worst refuse a submission that an extended due
+ * date or a reopening would allow. {@link AssignmentService} evicts an entry when its
+ * transaction commits; entries also expire after a short TTL so changes made on another
+ * instance are picked up.
+ */
+@Component
+public class AssignmentDeadlineCache {
+
+    private final AssignmentRepository assignmentRepository;
+    private final int maxAssignments;
+    private final long ttlNanos;
+
+    // Guarded by "this"; access-ordered for LRU eviction.
+    private final LinkedHashMap<Long, Entry> assignments;
+
+    public AssignmentDeadlineCache(AssignmentRepository assignmentRepository,
+                                   @Value("${app.submissions.deadline-cache.max-assignments:10000}") int maxAssignments,
+                                   @Value("${app.submissions.deadline-cache.ttl:PT1M}") Duration ttl) {
+        this.assignmentRepository = assignmentRepository;
+        this.maxAssignments = maxAssignments;
+        this.ttlNanos = ttl.toNanos();
+        this.assignments = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > AssignmentDeadlineCache.this.maxAssignments;
+            }
+        };
+    }
+
+    /**
+     * Throws if the assignment no longer accepts submissions at {@code at}. Unknown
+     * assignments pass; the caller reports them.
+     */
+    public void checkOpen(Long assignmentId, LocalDateTime at) {
+        Entry entry = entryFor(assignmentId);
+        if (entry == null) {
+            return;
+        }
+        if (entry.closed) {
+            throw new BadRequestException("Assignment is closed for submissions");
+        }
+        if (entry.dueDate != null && at.isAfter(entry.dueDate)) {
+            throw new BadRequestException("Cannot submit assignment after the deadline");
+        }
+    }
+
+    /**
+     * Evicts the entry once the current transaction commits, so a concurrent reader
+     * cannot cache the old values again; immediately if there is no transaction.
+     */
+    public void invalidateAfterCommit(Long assignmentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(assignmentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(assignmentId);
+            }
+        });
+    }
+
+    public synchronized void invalidate(Long assignmentId) {
+        assignments.remove(assignmentId);
+    }
+
+    private Entry entryFor(Long assignmentId) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry entry = assignments.get(assignmentId);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                return entry;
+            }
+        }
+        AssignmentDeadlineView view = assignmentRepository.findDeadlineById(assignmentId).orElse(null);
+        if (view == null) {
+            return null;
+        }
+        Entry entry = new Entry(view.getDueDate(), Boolean.TRUE.equals(view.getClosed()), now);
+        synchronized (this) {
+            assignments.put(assignmentId, entry);
+        }
+        return entry;
+    }
+
+    private record Entry(LocalDateTime dueDate, boolean closed, long loadedAt) {
+    }
+}
@@ -2,8 +2,12 @@ package com.smartclassroom.backend.service;
 
 import com.smartclassroom.backend.dto.assignment.AssignmentCreateRequestDTO;
 import com.smartclassroom.backend.dto.assignment.AssignmentStatisticsDTO;
+import com.smartclassroom.backend.dto.assignment.AssignmentSubmissionCounts;
 import com.smartclassroom.backend.dto.assignment.AssignmentUpdateRequestDTO;
+import com.smartclassroom.backend.dto.assignment.NonSubmittedStudentDTO;
+import com.smartclassroom.backend.dto.assignment.NonSubmittedStudentPageDTO;
 import com.smartclassroom.backend.dto.assignment.StudentAssignmentResponseDTO;
+import com.smartclassroom.backend.dto.classroom.ClassroomSizeView;
 import com.smartclassroom.backend.exception.BadRequestException;
 import com.smartclassroom.backend.exception.ResourceNotFoundException;
 import com.smartclassroom.backend.model.*;
@@ -13,10 +17,14 @@ import com.smartclassroom.backend.repository.ClassroomMemberRepository;
 import com.smartclassroom.backend.repository.ClassroomRepository;
 import com.smartclassroom.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,9 +36,19 @@ public class AssignmentService {
     private final UserRepository userRepository;
     private final AssignmentSubmissionRepository submissionRepository;
     private final ClassroomMemberRepository classroomMemberRepository;
+    private final ClassroomVersionService classroomVersionService;
+    private final BulkDeleteService bulkDeleteService;
+    private final AssignmentStatsService assignmentStatsService;
+    private final DeadlineScheduler deadlineScheduler;
+    private final StudentDashboardProjection studentDashboardProjection;
+    private final GradeDistributionService gradeDistributionService;
+    private final AssignmentDeadlineCache deadlineCache;
 
+    private static final int MAX_NON_SUBMITTER_PAGE = 200;
+
+    @Transactional
     public Assignment createAssignment(Long classroomId, Long teacherId, AssignmentCreateRequestDTO request) {
-        Classroom classroom = classroomRepository.findById(classroomId)
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
         User teacher = userRepository.findById(teacherId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + teacherId));
@@ -53,11 +71,17 @@ public class AssignmentService {
                 .attachmentUrl(request.getAttachmentUrl())
                 .createdBy(teacher)
                 .build();
-        return assignmentRepository.save(assignment);
+        // Flushed so the deadline jobs written below can reference the row.
+        Assignment saved = assignmentRepository.saveAndFlush(assignment);
+        assignmentStatsService.refresh(saved.getId());
+        deadlineScheduler.schedule(saved);
+        studentDashboardProjection.assignmentCreated(saved.getId());
+        classroomVersionService.bump(ClassroomVersionService.Resource.ASSIGNMENTS, classroomId);
+        return saved;
     }
 
     public List<Assignment> getAssignmentsForClassroom(Long classroomId) {
-        return assignmentRepository.findByClassroomId(classroomId);
+        return assignmentRepository.findByClassroomIdAndClassroomDeletedAtIsNull(classroomId);
     }
 
     public Assignment getAssignmentById(Long assignmentId) {
@@ -65,9 +89,11 @@ public class AssignmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id " + assignmentId));
     }
 
+    @Transactional
     public Assignment updateAssignment(Long assignmentId, AssignmentUpdateRequestDTO request) {
         Assignment assignment = getAssignmentById(assignmentId);
 
+        boolean dueDateChanged = false;
         if (request.getTitle() != null) {
             assignment.setTitle(request.getTitle());
         }
@@ -82,6 +108,11 @@ public class AssignmentService {
                 throw new BadRequestException("Due date must be in the future");
             }
             assignment.setDueDate(request.getDueDate());
+            dueDateChanged = true;
+            // Moving the due date reopens an assignment the scheduler closed at the old one.
+            if (request.getClosed() == null) {
+                assignment.setClosed(false);
+            }
         }
         if (request.getMaxMarks() != null) {
             assignment.setMaxMarks(request.getMaxMarks());
@@ -95,85 +126,78 @@ public class AssignmentService {
             }
         }
 
-        return assignmentRepository.save(assignment);
+        Assignment saved = assignmentRepository.saveAndFlush(assignment);
+        if (dueDateChanged) {
+            assignmentStatsService.refresh(assignmentId);
+            deadlineScheduler.schedule(saved);
+        }
+        studentDashboardProjection.assignmentUpdated(assignmentId);
+        deadlineCache.invalidateAfterCommit(assignmentId);
+        classroomVersionService.bump(ClassroomVersionService.Resource.ASSIGNMENTS, assignment.getClassroom().getId());
+        return saved;
     }
 
     public AssignmentStatisticsDTO getAssignmentStatistics(Long assignmentId) {
-        Assignment assignment = getAssignmentById(assignmentId);
-
-        Long totalStudents = classroomMemberRepository.countByClassroomIdAndRole(
-                assignment.getClassroom().getId(), ClassroomRole.STUDENT);
-        Long submittedCount = submissionRepository.countByAssignmentId(assignmentId);
-        Long gradedCount = submissionRepository.countGradedByAssignmentId(assignmentId);
-
-        int totalStudentsInt = totalStudents.intValue();
-        int submittedCountInt = submittedCount.intValue();
+        // Materialized counters: a single primary-key lookup instead of three count queries.
+        AssignmentStats stats = assignmentStatsService.get(assignmentId);
 
         return AssignmentStatisticsDTO.builder()
                 .assignmentId(assignmentId)
-                .totalStudents(totalStudentsInt)
-                .submittedCount(submittedCountInt)
-                .notSubmittedCount(totalStudentsInt - submittedCountInt)
-                .gradedCount(gradedCount.intValue())
+                .totalStudents(stats.getTotalStudents())
+                .submittedCount(stats.getSubmittedCount())
+                .notSubmittedCount(Math.max(0, stats.getTotalStudents() - stats.getSubmittedCount()))
+                .gradedCount(stats.getGradedCount())
+                .meanMarks(stats.getMeanMarks())
+                .highestMarks(stats.getHighestMarks())
+                .lateCount(stats.getLateCount())
                 .build();
     }
 
-    public List<User> getNonSubmittedStudents(Long assignmentId) {
-        Assignment assignment = getAssignmentById(assignmentId);
-        List<User> allStudents = classroomMemberRepository.findUsersByClassroomIdAndRole(
-                assignment.getClassroom().getId(), ClassroomRole.STUDENT);
-        List<AssignmentSubmission> submissions = submissionRepository.findByAssignmentId(assignmentId);
-        List<Long> submittedStudentIds = submissions.stream()
-                .map(s -> s.getStudent().getId())
-                .collect(Collectors.toList());
+    /**
+     * Returns one page of students who have not submitted, optionally filtered by a
+     * case-insensitive name fragment. The cursor is the last (name, id) of the previous page.
+     */
+    public NonSubmittedStudentPageDTO getNonSubmittedStudents(Long assignmentId, String nameFilter,
+                                                              String afterName, Long afterId, int limit) {
+        Long classroomId = assignmentRepository.findClassroomIdById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id " + assignmentId));
+        int pageSize = Math.max(1, Math.min(limit, MAX_NON_SUBMITTER_PAGE));
+
+        // One extra row tells us whether another page exists.
+        List<NonSubmittedStudentDTO> rows = classroomMemberRepository.findNonSubmitters(
+                classroomId, assignmentId, likePattern(nameFilter),
+                afterName != null ? afterName : "", afterId != null ? afterId : 0L,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<NonSubmittedStudentDTO> students = hasMore ? rows.subList(0, pageSize) : rows;
+        NonSubmittedStudentDTO last = students.isEmpty() ? null : students.get(students.size() - 1);
+
+        return NonSubmittedStudentPageDTO.builder()
+                .students(students)
+                .hasMore(hasMore)
+                .nextAfterName(hasMore ? last.getName() : null)
+                .nextAfterId(hasMore ? last.getId() : null)
+                .build();
+    }
 
-        return allStudents.stream()
-                .filter(student -> !submittedStudentIds.contains(student.getId()))
-                .collect(Collectors.toList());
+    private static String likePattern(String nameFilter) {
+        if (nameFilter == null || nameFilter.isBlank()) {
+            return "%";
+        }
+        String escaped = nameFilter.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 
     public List<StudentAssignmentResponseDTO> getStudentAssignments(Long studentId) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + studentId));
-
-        List<ClassroomMember> memberships = classroomMemberRepository.findByUserId(studentId);
-        List<Long> classroomIds = memberships.stream()
-                .map(m -> m.getClassroom().getId())
-                .collect(Collectors.toList());
-
-        if (classroomIds.isEmpty()) {
-            return List.of();
+        if (!userRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("User not found with id " + studentId);
         }
 
-        List<Assignment> assignments = assignmentRepository.findByClassroomIdIn(classroomIds);
-        LocalDateTime now = LocalDateTime.now();
-
-        return assignments.stream()
-                .map(assignment -> {
-                    AssignmentSubmission submission = submissionRepository
-                            .findByAssignmentIdAndStudentId(assignment.getId(), studentId)
-                            .orElse(null);
-
-                    boolean isPastDeadline = assignment.getDueDate() != null && now.isAfter(assignment.getDueDate());
-
-                    return StudentAssignmentResponseDTO.builder()
-                            .id(assignment.getId())
-                            .classroomId(assignment.getClassroom().getId())
-                            .classroomName(assignment.getClassroom().getName())
-                            .title(assignment.getTitle())
-                            .description(assignment.getDescription())
-                            .dueDate(assignment.getDueDate())
-                            .maxMarks(assignment.getMaxMarks())
-                            .createdAt(assignment.getCreatedAt())
-                            .attachmentUrl(assignment.getAttachmentUrl())
-                            .isSubmitted(submission != null)
-                            .submittedAt(submission != null ? submission.getSubmittedAt() : null)
-                            .marks(submission != null ? submission.getMarks() : null)
-                            .feedback(submission != null ? submission.getFeedback() : null)
-                            .isPastDeadline(isPastDeadline)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        // One range scan over the denormalized read model, kept current on every write.
+        return studentDashboardProjection.getDashboard(studentId);
     }
 
     public List<StudentAssignmentResponseDTO> getTeacherAssignments(Long teacherId) {
@@ -184,22 +208,30 @@ public class AssignmentService {
             throw new BadRequestException("User is not a teacher");
         }
 
-        List<Classroom> classrooms = classroomRepository.findByTeacherId(teacherId);
-        List<Long> classroomIds = classrooms.stream()
-                .map(Classroom::getId)
-                .collect(Collectors.toList());
-
-        if (classroomIds.isEmpty()) {
+        List<Assignment> assignments = assignmentRepository.findByTeacherIdWithClassroom(teacherId);
+        if (assignments.isEmpty()) {
             return List.of();
         }
 
-        List<Assignment> assignments = assignmentRepository.findByClassroomIdIn(classroomIds);
+        // Two grouped aggregates instead of a count query per assignment.
+        Map<Long, AssignmentSubmissionCounts> countsByAssignment = new HashMap<>();
+        for (AssignmentSubmissionCounts counts : submissionRepository.countByTeacherIdGroupByAssignment(teacherId)) {
+            countsByAssignment.put(counts.getAssignmentId(), counts);
+        }
+        Map<Long, Long> studentsByClassroom = new HashMap<>();
+        for (ClassroomSizeView size : classroomMemberRepository
+                .countByTeacherIdAndRoleGroupByClassroom(teacherId, ClassroomRole.STUDENT)) {
+            studentsByClassroom.put(size.getClassroomId(), size.getStudentCount());
+        }
         LocalDateTime now = LocalDateTime.now();
 
         return assignments.stream()
                 .map(assignment -> {
                     boolean isPastDeadline = assignment.getDueDate() != null && now.isAfter(assignment.getDueDate());
-                    Long submissionCount = submissionRepository.countByAssignmentId(assignment.getId());
+                    AssignmentSubmissionCounts counts = countsByAssignment.get(assignment.getId());
+                    int submittedCount = counts != null ? counts.getSubmittedCount().intValue() : 0;
+                    int gradedCount = counts != null ? counts.getGradedCount().intValue() : 0;
+                    long totalStudents = studentsByClassroom.getOrDefault(assignment.getClassroom().getId(), 0L);
 
                     return StudentAssignmentResponseDTO.builder()
                             .id(assignment.getId())
@@ -211,22 +243,31 @@ public class AssignmentService {
                             .maxMarks(assignment.getMaxMarks())
                             .createdAt(assignment.getCreatedAt())
                             .attachmentUrl(assignment.getAttachmentUrl())
-                            .isSubmitted(submissionCount > 0)
+                            .isSubmitted(submittedCount > 0)
                             .submittedAt(null)
                             .marks(null)
                             .feedback(null)
                             .isPastDeadline(isPastDeadline)
+                            .submittedCount(submittedCount)
+                            .gradedCount(gradedCount)
+                            .totalStudents((int) totalStudents)
                             .build();
                 })
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public void deleteAssignment(Long assignmentId) {
         Assignment assignment = getAssignmentById(assignmentId);
 
         // First delete submissions referencing this assignment to avoid
         // foreign key constraint violations, then delete the assignment.
-        submissionRepository.deleteAll(submissionRepository.findByAssignmentId(assignmentId));
+        bulkDeleteService.deleteSubmissionsForAssignment(assignmentId);
+        assignmentStatsService.assignmentDeleted(assignmentId);
+        studentDashboardProjection.assignmentDeleted(assignmentId);
+        gradeDistributionService.assignmentDeleted(assignmentId);
         assignmentRepository.delete(assignment);
+        deadlineCache.invalidateAfterCommit(assignmentId);
+        classroomVersionService.bump(ClassroomVersionService.Resource.ASSIGNMENTS, assignment.getClassroom().getId());
     }
 }
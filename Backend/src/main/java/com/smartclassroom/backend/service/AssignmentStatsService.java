@@ -0,0 +1,162 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Assignment;
+import com.smartclassroom.backend.model.AssignmentStats;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import com.smartclassroom.backend.repository.AssignmentStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintains the materialized {@link AssignmentStats} rows.
+ * <p>
+ * The change hooks join the caller's transaction, so a submission, grade or membership
+ * change and its counter update commit or roll back together. An assignment without a
+ * row (created before this table existed, or after a failed update) is rebuilt from the
+ * source tables on first use, and a nightly job recomputes every row to correct drift.
+ */
+@Service
+public class AssignmentStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentStatsService.class);
+
+    private final AssignmentStatsRepository statsRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int repairBatchSize;
+
+    public AssignmentStatsService(AssignmentStatsRepository statsRepository,
+                                  AssignmentRepository assignmentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.assignment-stats.repair-batch-size:500}") int repairBatchSize) {
+        this.statsRepository = statsRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.repairBatchSize = repairBatchSize;
+    }
+
+    /**
+     * Returns the statistics for an assignment: one primary-key lookup in the normal case.
+     */
+    @Transactional
+    public AssignmentStats get(Long assignmentId) {
+        return statsRepository.findById(assignmentId).orElseGet(() -> {
+            if (!assignmentRepository.existsById(assignmentId)) {
+                throw new ResourceNotFoundException("Assignment not found with id " + assignmentId);
+            }
+            return rebuild(assignmentId);
+        });
+    }
+
+    /**
+     * Recomputes the row from the source tables: used when an assignment is created and
+     * when its due date moves, since the late count depends on it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Long assignmentId) {
+        statsRepository.recompute(assignmentId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assignmentDeleted(Long assignmentId) {
+        statsRepository.deleteByAssignmentId(assignmentId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void submissionCreated(Assignment assignment, LocalDateTime submittedAt) {
+        boolean late = assignment.getDueDate() != null && submittedAt != null
+                && submittedAt.isAfter(assignment.getDueDate());
+        if (statsRepository.incrementSubmitted(assignment.getId(), late ? 1 : 0) == 0) {
+            statsRepository.recompute(assignment.getId());
+        }
+    }
+
+    /**
+     * Applies a grade change. Call after the new marks have been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void submissionGraded(Long assignmentId, Integer oldMarks, Integer newMarks) {
+        int gradedDelta = (newMarks != null ? 1 : 0) - (oldMarks != null ? 1 : 0);
+        long marksDelta = (newMarks != null ? newMarks : 0L) - (oldMarks != null ? oldMarks : 0L);
+        if (statsRepository.applyGrade(assignmentId, gradedDelta, marksDelta, newMarks) == 0) {
+            statsRepository.recompute(assignmentId);
+            return;
+        }
+        // GREATEST only ever raises the maximum; a lowered or removed mark may have been it.
+        if (oldMarks != null && (newMarks == null || newMarks < oldMarks)) {
+            statsRepository.refreshHighestMarks(assignmentId);
+        }
+    }
+
+    /**
+     * Applies the combined effect of a batch of grade changes with one counter update.
+     *
+     * @param highestNewMarks the highest of the new marks in the batch
+     * @param highestMayDrop  whether any existing mark was lowered, so the maximum must be re-read
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void gradesApplied(Long assignmentId, int gradedDelta, long marksDelta,
+                              Integer highestNewMarks, boolean highestMayDrop) {
+        if (statsRepository.applyGrade(assignmentId, gradedDelta, marksDelta, highestNewMarks) == 0) {
+            statsRepository.recompute(assignmentId);
+            return;
+        }
+        if (highestMayDrop) {
+            statsRepository.refreshHighestMarks(assignmentId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void studentJoined(Long classroomId) {
+        statsRepository.adjustTotalStudents(classroomId, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void studentLeft(Long classroomId) {
+        statsRepository.adjustTotalStudents(classroomId, -1);
+    }
+
+    /**
+     * Recomputes every assignment's row from the source tables, one short transaction per
+     * assignment so counter updates from live traffic are only blocked briefly.
+     */
+    @Scheduled(cron = "${app.assignment-stats.repair-cron:0 45 3 * * *}")
+    public void repairAll() {
+        long afterId = 0;
+        int repaired = 0;
+        List<Long> ids;
+        do {
+            ids = assignmentRepository.findIdsAfter(afterId, repairBatchSize);
+            for (Long id : ids) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> rebuild(id));
+                    repaired++;
+                } catch (RuntimeException ex) {
+                    log.warn("Could not repair statistics for assignment {}: {}", id, ex.getMessage());
+                }
+                afterId = id;
+            }
+        } while (ids.size() == repairBatchSize);
+        log.info("Recomputed statistics for {} assignments", repaired);
+    }
+
+    private AssignmentStats rebuild(Long assignmentId) {
+        // Taking the row lock first means the recompute below runs as a fresh statement that
+        // sees every increment committed before it, and later increments wait for us.
+        statsRepository.lockById(assignmentId);
+        statsRepository.recompute(assignmentId);
+        return statsRepository.findById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id " + assignmentId));
+    }
+}
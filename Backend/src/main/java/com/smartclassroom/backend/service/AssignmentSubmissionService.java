@@ -8,41 +8,103 @@ import com.smartclassroom.backend.exception.ResourceNotFoundException;
 import com.smartclassroom.backend.model.*;
 import com.smartclassroom.backend.repository.AssignmentRepository;
 import com.smartclassroom.backend.repository.AssignmentSubmissionRepository;
-import com.smartclassroom.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Submissions and grading.
+ * <p>
+ * A submission is one statement on the success path: the insert selects the assignment
+ * row with the open and deadline conditions, skips an existing (assignment, student) row
+ * with {@code ON CONFLICT DO NOTHING}, and returns what the response needs. Concurrent
+ * duplicate submits therefore get a clean 409 rather than a constraint violation, and
+ * the reason for a rejected insert is only looked up when one happens.
+ */
 @Service
 @RequiredArgsConstructor
 public class AssignmentSubmissionService {
 
+    // Ids come from the pooled sequence directly; see migrations/003_pooled_id_sequences.sql.
+    private static final String INSERT_SQL =
+            "WITH ins AS (" +
+                    "INSERT INTO assignment_submissions (id, assignment_id, student_id, content_url, submitted_at) " +
+                    "SELECT nextval('assignment_submissions_id_seq'), a.id, ?, ?, ? FROM assignments a " +
+                    "WHERE a.id = ? AND a.closed = FALSE AND (a.due_date IS NULL OR a.due_date >= ?) " +
+                    "ON CONFLICT (assignment_id, student_id) DO NOTHING " +
+                    "RETURNING id, assignment_id, student_id, submitted_at) " +
+                    "SELECT ins.id, ins.submitted_at, a.due_date, u.name, u.email, u.role FROM ins " +
+                    "JOIN assignments a ON a.id = ins.assignment_id JOIN users u ON u.id = ins.student_id";
+
     private final AssignmentSubmissionRepository submissionRepository;
     private final AssignmentRepository assignmentRepository;
-    private final UserRepository userRepository;
+    private final AssignmentDeadlineCache deadlineCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final AssignmentStatsService assignmentStatsService;
+    private final StudentDashboardProjection studentDashboardProjection;
+    private final GradeDistributionService gradeDistributionService;
 
+    @Transactional
     public AssignmentSubmission submitAssignment(Long assignmentId, Long studentId, AssignmentSubmissionRequestDTO request) {
-        Assignment assignment = assignmentRepository.findById(assignmentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id " + assignmentId));
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + studentId));
+        LocalDateTime now = LocalDateTime.now();
+        // Turns late submissions away before touching the database; the insert re-checks.
+        deadlineCache.checkOpen(assignmentId, now);
 
-        // Check if deadline has passed
-        if (assignment.getDueDate() != null && LocalDateTime.now().isAfter(assignment.getDueDate())) {
-            throw new BadRequestException("Cannot submit assignment after the deadline");
+        Timestamp at = Timestamp.valueOf(now);
+        List<AssignmentSubmission> inserted;
+        try {
+            inserted = jdbcTemplate.query(INSERT_SQL, (rs, rowNum) -> AssignmentSubmission.builder()
+                    .id(rs.getLong("id"))
+                    .assignment(Assignment.builder()
+                            .id(assignmentId)
+                            .dueDate(toLocalDateTime(rs.getTimestamp("due_date")))
+                            .build())
+                    .student(User.builder()
+                            .id(studentId)
+                            .name(rs.getString("name"))
+                            .email(rs.getString("email"))
+                            .role(UserRole.valueOf(rs.getString("role")))
+                            .build())
+                    .contentUrl(request.getContentUrl())
+                    .submittedAt(toLocalDateTime(rs.getTimestamp("submitted_at")))
+                    .build(), studentId, request.getContentUrl(), at, assignmentId, at);
+        } catch (DataIntegrityViolationException ex) {
+            // The assignment is matched by the SELECT, so the failing foreign key is the student's.
+            throw new ResourceNotFoundException("User not found with id " + studentId);
+        }
+        if (inserted.isEmpty()) {
+            throw rejection(assignmentId, now);
         }
 
-        submissionRepository.findByAssignmentIdAndStudentId(assignmentId, studentId)
-                .ifPresent(s -> { throw new DuplicateResourceException("Submission already exists for this student and assignment"); });
+        AssignmentSubmission saved = inserted.get(0);
+        assignmentStatsService.submissionCreated(saved.getAssignment(), saved.getSubmittedAt());
+        studentDashboardProjection.submissionChanged(assignmentId, studentId);
+        return saved;
+    }
+
+    // Only reached when the insert matched nothing, so the extra query is off the hot path.
+    private RuntimeException rejection(Long assignmentId, LocalDateTime at) {
+        Assignment assignment = assignmentRepository.findById(assignmentId).orElse(null);
+        if (assignment == null) {
+            return new ResourceNotFoundException("Assignment not found with id " + assignmentId);
+        }
+        if (Boolean.TRUE.equals(assignment.getClosed())) {
+            return new BadRequestException("Assignment is closed for submissions");
+        }
+        if (assignment.getDueDate() != null && at.isAfter(assignment.getDueDate())) {
+            return new BadRequestException("Cannot submit assignment after the deadline");
+        }
+        return new DuplicateResourceException("Submission already exists for this student and assignment");
+    }
 
-        AssignmentSubmission submission = AssignmentSubmission.builder()
-                .assignment(assignment)
-                .student(student)
-                .contentUrl(request.getContentUrl())
-                .build();
-        return submissionRepository.save(submission);
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
     }
 
     public List<AssignmentSubmission> getSubmissionsForAssignment(Long assignmentId) {
@@ -54,12 +116,19 @@ public class AssignmentSubmissionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Submission not found"));
     }
 
+    @Transactional
     public AssignmentSubmission gradeSubmission(Long submissionId, GradeSubmissionRequestDTO request) {
         AssignmentSubmission submission = submissionRepository.findById(submissionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Submission not found with id " + submissionId));
 
+        Integer oldMarks = submission.getMarks();
         submission.setMarks(request.getMarks());
         submission.setFeedback(request.getFeedback());
-        return submissionRepository.save(submission);
+        // Flushed first so a highest-marks refresh sees the new value.
+        AssignmentSubmission saved = submissionRepository.saveAndFlush(submission);
+        assignmentStatsService.submissionGraded(submission.getAssignment().getId(), oldMarks, saved.getMarks());
+        gradeDistributionService.gradeChanged(submission.getAssignment().getId(), oldMarks, saved.getMarks());
+        studentDashboardProjection.submissionChanged(submission.getAssignment().getId(), submission.getStudent().getId());
+        return saved;
     }
 }
@@ -0,0 +1,123 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.repository.AnnouncementRepository;
+import com.smartclassroom.backend.repository.AssignmentMarkCountRepository;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import com.smartclassroom.backend.repository.AssignmentStatsRepository;
+import com.smartclassroom.backend.repository.AssignmentSubmissionRepository;
+import com.smartclassroom.backend.repository.ChatMessageRepository;
+import com.smartclassroom.backend.repository.ClassroomMemberRepository;
+import com.smartclassroom.backend.repository.StudentDashboardRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Set-based deletion of classroom children.
+ * <p>
+ * Rows are removed with {@code DELETE ... WHERE id IN (SELECT ... LIMIT n)} statements
+ * instead of loading entities and deleting them one by one, so memory stays flat and
+ * each statement touches at most one chunk. All methods join the caller's transaction.
+ * Whole classrooms are deleted a chunk per transaction by {@link ClassroomDeletionService}.
+ */
+@Service
+public class BulkDeleteService {
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final AnnouncementRepository announcementRepository;
+    private final AssignmentSubmissionRepository submissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final AssignmentMarkCountRepository assignmentMarkCountRepository;
+    private final ClassroomMemberRepository classroomMemberRepository;
+    private final StudentDashboardRepository studentDashboardRepository;
+    private final ChatRetentionService chatRetentionService;
+    private final int chunkSize;
+
+    public BulkDeleteService(ChatMessageRepository chatMessageRepository,
+                             AnnouncementRepository announcementRepository,
+                             AssignmentSubmissionRepository submissionRepository,
+                             AssignmentRepository assignmentRepository,
+                             AssignmentStatsRepository assignmentStatsRepository,
+                             AssignmentMarkCountRepository assignmentMarkCountRepository,
+                             ClassroomMemberRepository classroomMemberRepository,
+                             StudentDashboardRepository studentDashboardRepository,
+                             ChatRetentionService chatRetentionService,
+                             @Value("${app.bulk-delete.chunk-size:5000}") int chunkSize) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.announcementRepository = announcementRepository;
+        this.submissionRepository = submissionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.assignmentStatsRepository = assignmentStatsRepository;
+        this.assignmentMarkCountRepository = assignmentMarkCountRepository;
+        this.classroomMemberRepository = classroomMemberRepository;
+        this.studentDashboardRepository = studentDashboardRepository;
+        this.chatRetentionService = chatRetentionService;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long deleteChatMessages(Long classroomId) {
+        return drain(limit -> chatMessageRepository.deleteChunkByClassroomId(classroomId, limit));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long deleteSubmissionsForAssignment(Long assignmentId) {
+        return drain(limit -> submissionRepository.deleteChunkByAssignmentId(assignmentId, limit));
+    }
+
+    /**
+     * Number of steps {@link #deleteClassroomChunk} runs through for one classroom.
+     */
+    public static final int CLASSROOM_STEPS = 9;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Deletes at most one chunk of the rows that hang off a classroom for the given step
+     * and returns how many were deleted; a step is finished once that is fewer than
+     * {@link #getChunkSize()}. Steps run children before parents so no foreign key is
+     * violated, and dashboard rows and memberships go first so the classroom disappears
+     * for its students early. Each call is idempotent, so an interrupted step can simply
+     * be repeated. The classroom row itself is left to the caller.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int deleteClassroomChunk(Long classroomId, int step) {
+        return switch (step) {
+            // 1. Student dashboard rows (references assignments and classroom)
+            case 0 -> studentDashboardRepository.deleteChunkByClassroomId(classroomId, chunkSize);
+            // 2. Classroom members (references classroom)
+            case 1 -> classroomMemberRepository.deleteChunkByClassroomId(classroomId, chunkSize);
+            // 3. Assignment submissions (references assignments)
+            case 2 -> submissionRepository.deleteChunkByClassroomId(classroomId, chunkSize);
+            // 4. Assignment statistics (one row per assignment, found through assignments)
+            case 3 -> assignmentStatsRepository.deleteByClassroomId(classroomId);
+            // 5. Per-mark grade counts (a few rows per assignment, found through assignments)
+            case 4 -> assignmentMarkCountRepository.deleteByClassroomId(classroomId);
+            // 6. Assignments (references classroom)
+            case 5 -> assignmentRepository.deleteChunkByClassroomId(classroomId, chunkSize);
+            // 7. Announcements (references classroom)
+            case 6 -> announcementRepository.deleteChunkByClassroomId(classroomId, chunkSize);
+            // 8. Chat messages (references classroom)
+            case 7 -> chatMessageRepository.deleteChunkByClassroomId(classroomId, chunkSize);
+            // 9. Archived chat files and their chat_archives rows, once no live message is left to archive
+            case 8 -> chatRetentionService.deleteArchiveChunk(classroomId, chunkSize);
+            default -> throw new IllegalArgumentException("No classroom deletion step " + step);
+        };
+    }
+
+    private long drain(IntUnaryOperator deleteChunk) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = deleteChunk.applyAsInt(chunkSize);
+            total += deleted;
+        } while (deleted == chunkSize);
+        return total;
+    }
+}
@@ -0,0 +1,179 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.BulkGradeEntryDTO;
+import com.smartclassroom.backend.dto.assignment.BulkGradeResultDTO;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies many grades to one assignment in a single transaction.
+ * <p>
+ * The current marks of every referenced submission are read (and row-locked) with one
+ * query per chunk, all rows are validated against the assignment's maximum in one pass,
+ * and the valid ones are written as JDBC batch updates. Statistics are adjusted once for
+ * the whole batch from the accumulated deltas.
+ */
+@Service
+public class BulkGradingService {
+
+    private static final String ASSIGNMENT_SQL =
+            "SELECT a.max_marks, c.teacher_id FROM assignments a JOIN classrooms c ON c.id = a.classroom_id " +
+                    "WHERE a.id = ? AND c.deleted_at IS NULL";
+    private static final String UPDATE_SQL =
+            "UPDATE assignment_submissions SET marks = ?, feedback = ? WHERE id = ?";
+    // Locked in id order so two overlapping batches cannot deadlock each other.
+    private static final String LOCK_MARKS_SQL =
+            "SELECT id, marks FROM assignment_submissions " +
+                    "WHERE assignment_id = :assignmentId AND id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final AssignmentStatsService assignmentStatsService;
+    private final StudentDashboardProjection studentDashboardProjection;
+    private final GradeDistributionService gradeDistributionService;
+    private final int batchSize;
+
+    public BulkGradingService(JdbcTemplate jdbcTemplate,
+                              AssignmentStatsService assignmentStatsService,
+                              StudentDashboardProjection studentDashboardProjection,
+                              GradeDistributionService gradeDistributionService,
+                              @Value("${app.grading.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.assignmentStatsService = assignmentStatsService;
+        this.studentDashboardProjection = studentDashboardProjection;
+        this.gradeDistributionService = gradeDistributionService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Applies the grades on behalf of {@code teacherId}, who must be the teacher of the
+     * assignment's classroom; that is checked before any submission row is locked.
+     */
+    @Transactional
+    public BulkGradeResultDTO gradeAll(Long assignmentId, Long teacherId, List<BulkGradeEntryDTO> entries) {
+        List<AssignmentRow> assignmentRows = jdbcTemplate.query(ASSIGNMENT_SQL, (rs, rowNum) -> {
+            int value = rs.getInt("max_marks");
+            return new AssignmentRow(rs.wasNull() ? null : value, rs.getLong("teacher_id"));
+        }, assignmentId);
+        if (assignmentRows.isEmpty()) {
+            throw new ResourceNotFoundException("Assignment not found with id " + assignmentId);
+        }
+        if (!teacherId.equals(assignmentRows.get(0).teacherId())) {
+            throw new BadRequestException("Only the classroom teacher can grade submissions");
+        }
+        Integer maxMarks = assignmentRows.get(0).maxMarks();
+        Map<Long, Integer> currentMarks = lockCurrentMarks(assignmentId, entries);
+
+        List<BulkGradeResultDTO.Row> results = new ArrayList<>(entries.size());
+        List<BulkGradeEntryDTO> accepted = new ArrayList<>(entries.size());
+        Set<Long> seen = new HashSet<>();
+        int gradedDelta = 0;
+        long marksDelta = 0;
+        Integer highestNew = null;
+        boolean highestMayDrop = false;
+        Map<Integer, Integer> markDeltas = new HashMap<>();
+
+        for (BulkGradeEntryDTO entry : entries) {
+            Long submissionId = entry.getSubmissionId();
+            String problem = validate(entry, seen, currentMarks, maxMarks);
+            if (problem != null) {
+                results.add(new BulkGradeResultDTO.Row(submissionId, "REJECTED", problem));
+                continue;
+            }
+            Integer oldMarks = currentMarks.get(submissionId);
+            int newMarks = entry.getMarks();
+            if (oldMarks == null) {
+                gradedDelta++;
+                marksDelta += newMarks;
+            } else {
+                marksDelta += newMarks - oldMarks;
+                highestMayDrop |= newMarks < oldMarks;
+            }
+            highestNew = highestNew == null ? newMarks : Math.max(highestNew, newMarks);
+            GradeDistributionService.addChange(markDeltas, oldMarks, newMarks);
+            accepted.add(entry);
+            results.add(new BulkGradeResultDTO.Row(submissionId, "UPDATED", null));
+        }
+
+        if (!accepted.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, accepted, batchSize, (ps, entry) -> {
+                ps.setInt(1, entry.getMarks());
+                if (entry.getFeedback() != null) {
+                    ps.setString(2, entry.getFeedback());
+                } else {
+                    ps.setNull(2, Types.VARCHAR);
+                }
+                ps.setLong(3, entry.getSubmissionId());
+            });
+            assignmentStatsService.gradesApplied(assignmentId, gradedDelta, marksDelta, highestNew, highestMayDrop);
+            gradeDistributionService.marksChanged(assignmentId, markDeltas);
+            List<Long> acceptedIds = accepted.stream().map(BulkGradeEntryDTO::getSubmissionId).toList();
+            for (int from = 0; from < acceptedIds.size(); from += batchSize) {
+                studentDashboardProjection.submissionsChanged(
+                        acceptedIds.subList(from, Math.min(from + batchSize, acceptedIds.size())));
+            }
+        }
+
+        return BulkGradeResultDTO.builder()
+                .assignmentId(assignmentId)
+                .updatedCount(accepted.size())
+                .rejectedCount(entries.size() - accepted.size())
+                .results(results)
+                .build();
+    }
+
+    private String validate(BulkGradeEntryDTO entry, Set<Long> seen, Map<Long, Integer> currentMarks,
+                            Integer maxMarks) {
+        if (!seen.add(entry.getSubmissionId())) {
+            return "Duplicate submission in this request";
+        }
+        if (!currentMarks.containsKey(entry.getSubmissionId())) {
+            return "Submission not found for this assignment";
+        }
+        if (entry.getMarks() < 0) {
+            return "Marks cannot be negative";
+        }
+        if (maxMarks != null && entry.getMarks() > maxMarks) {
+            return "Marks cannot exceed " + maxMarks;
+        }
+        return null;
+    }
+
+    /**
+     * Current marks of the referenced submissions that belong to the assignment, locked
+     * so the statistics deltas computed from them stay exact. Missing marks map to null.
+     */
+    private Map<Long, Integer> lockCurrentMarks(Long assignmentId, List<BulkGradeEntryDTO> entries) {
+        List<Long> ids = entries.stream().map(BulkGradeEntryDTO::getSubmissionId).distinct().sorted().toList();
+        Map<Long, Integer> marks = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("assignmentId", assignmentId)
+                    .addValue("ids", ids.subList(from, Math.min(from + batchSize, ids.size())));
+            namedJdbcTemplate.query(LOCK_MARKS_SQL, params, (RowCallbackHandler) rs -> {
+                int value = rs.getInt("marks");
+                marks.put(rs.getLong("id"), rs.wasNull() ? null : value);
+            });
+        }
+        return marks;
+    }
+
+    private record AssignmentRow(Integer maxMarks, long teacherId) {
+    }
+}
@@ -0,0 +1,285 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.chat.ChatMessageView;
+import com.smartclassroom.backend.exception.ServiceUnavailableException;
+import com.smartclassroom.backend.model.ChatMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group-commits chat messages from concurrent posters.
+ * <p>
+ * A single writer thread collects messages queued within a short window and writes them
+ * with one id-allocation query and one JDBC batch insert in a single transaction.
+ * Ids are drawn in blocks from the same pooled sequence Hibernate uses, so each
+ * {@code nextval} covers a whole increment's worth of rows.
+ * Callers block until their message is committed, so the returned entity always
+ * carries the server-assigned id and timestamp. The queue is bounded: when it is full,
+ * or a message is not written in time, the caller gets a 503 instead of piling up.
+ */
+@Component
+public class ChatMessageBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageBatchWriter.class);
+
+    private static final String SEQUENCE_INCREMENT_SQL =
+            "SELECT seqincrement FROM pg_sequence WHERE seqrelid = 'chat_messages_id_seq'::regclass";
+    private static final String ALLOCATE_BLOCKS_SQL =
+            "SELECT nextval('chat_messages_id_seq') FROM generate_series(1, ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages (id, classroom_id, sender_id, content, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatMessageCache chatMessageCache;
+    private final ClassroomVersionService classroomVersionService;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    // Only touched by the writer thread.
+    private long sequenceIncrement;
+
+    public ChatMessageBatchWriter(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ChatMessageCache chatMessageCache,
+                                  ClassroomVersionService classroomVersionService,
+                                  @Value("${app.chat.batch.window:PT0.002S}") Duration window,
+                                  @Value("${app.chat.batch.max-size:100}") int maxBatchSize,
+                                  @Value("${app.chat.batch.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chatMessageCache = chatMessageCache;
+        this.classroomVersionService = classroomVersionService;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::run, "chat-batch-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a message for the next batch and waits for it to be committed. The message
+     * must reference its classroom and sender; id and createdAt are filled in here.
+     *
+     * @throws ServiceUnavailableException if the queue is full or the writer is stopping
+     */
+    public ChatMessage write(ChatMessage message) {
+        if (!running) {
+            throw new ServiceUnavailableException("Chat is shutting down, try again shortly");
+        }
+        message.setCreatedAt(LocalDateTime.now());
+        Pending pending = new Pending(message);
+        if (!queue.offer(pending)) {
+            throw new ServiceUnavailableException("Chat is busy, try again shortly");
+        }
+        try {
+            return pending.result.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            abandon(pending);
+            throw new IllegalStateException("Interrupted while saving chat message", ex);
+        } catch (TimeoutException ex) {
+            abandon(pending);
+            throw new ServiceUnavailableException("Chat is busy, try again shortly");
+        } catch (CancellationException ex) {
+            throw new ServiceUnavailableException("Chat is shutting down, try again shortly");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new IllegalStateException("Could not save chat message", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        // Anything the writer did not get to (or posted after it stopped) fails now
+        // rather than leaving its caller waiting out the timeout.
+        List<Pending> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        for (Pending pending : stranded) {
+            pending.result.completeExceptionally(
+                    new ServiceUnavailableException("Chat is shutting down, try again shortly"));
+        }
+    }
+
+    /** Number of messages waiting for the writer. */
+    int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Takes a message the caller stopped waiting for out of the queue. If the writer has
+     * already picked it up, cancelling makes it skip the row unless the insert is under way.
+     */
+    private void abandon(Pending pending) {
+        queue.remove(pending);
+        pending.result.cancel(false);
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = running ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException ex) {
+                // Shutdown requested; drain whatever is still queued.
+                queue.drainTo(batch, maxBatchSize);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        // Callers that timed out have cancelled their entry; do not write it behind their back.
+        batch.removeIf(pending -> pending.result.isDone());
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            complete(batch, insert(batch));
+        } catch (RuntimeException ex) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(ex);
+                return;
+            }
+            // One bad row (e.g. a sender deleted mid-flight) must not fail everyone else's message.
+            log.warn("Chat batch of {} failed, retrying rows individually: {}", batch.size(), ex.getMessage());
+            for (Pending pending : batch) {
+                try {
+                    complete(List.of(pending), insert(List.of(pending)));
+                } catch (RuntimeException rowEx) {
+                    pending.result.completeExceptionally(rowEx);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the batch in one transaction and returns the chat version each of its
+     * classrooms was bumped to.
+     */
+    private Map<Long, Long> insert(List<Pending> batch) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = allocateIds(batch.size());
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                ChatMessage message = batch.get(i).message;
+                rows.add(new Object[]{
+                        ids.get(i),
+                        message.getClassroom().getId(),
+                        message.getSender().getId(),
+                        message.getContent(),
+                        Timestamp.valueOf(message.getCreatedAt())
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            // Once per classroom in the batch, committed with the messages.
+            Map<Long, Long> versions = new HashMap<>();
+            for (Pending pending : batch) {
+                versions.computeIfAbsent(pending.message.getClassroom().getId(),
+                        classroomId -> classroomVersionService.bump(ClassroomVersionService.Resource.CHAT, classroomId));
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).message.setId(ids.get(i));
+            }
+            return versions;
+        });
+    }
+
+    /**
+     * Allocates {@code count} ids. Each sequence value is the top of a block of
+     * {@code increment} ids, matching Hibernate's pooled optimizer, so a batch needs
+     * only ceil(count / increment) sequence calls.
+     */
+    private List<Long> allocateIds(int count) {
+        if (sequenceIncrement == 0) {
+            sequenceIncrement = jdbcTemplate.queryForObject(SEQUENCE_INCREMENT_SQL, Long.class);
+        }
+        long increment = sequenceIncrement;
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (int) ((count - ids.size() + increment - 1) / increment);
+            for (Long high : jdbcTemplate.queryForList(ALLOCATE_BLOCKS_SQL, Long.class, blocks)) {
+                // A fresh sequence's first value has no full block below it; Hibernate
+                // skips it the same way, so it is never handed out twice.
+                if (high < increment) {
+                    continue;
+                }
+                for (long id = high - increment + 1; id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void complete(List<Pending> batch, Map<Long, Long> versions) {
+        // Appended here, in commit order, so the ring never sees messages out of sequence.
+        for (Pending pending : batch) {
+            chatMessageCache.append(ChatMessageView.of(pending.message),
+                    versions.get(pending.message.getClassroom().getId()));
+            pending.result.complete(pending.message);
+        }
+    }
+
+    private static final class Pending {
+        private final ChatMessage message;
+        private final CompletableFuture<ChatMessage> result = new CompletableFuture<>();
+
+        private Pending(ChatMessage message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.chat.ChatCacheStatsDTO;
+import com.smartclassroom.backend.dto.chat.ChatMessageView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * In-memory ring buffer of the most recent chat messages per classroom.
+ * <p>
+ * Rings are filled lazily on the first read of a classroom and kept current by
+ * write-through from {@link ChatMessageBatchWriter}. Classrooms are evicted in
+ * least-recently-used order once the global memory budget is exceeded, and rings
+ * that have not been touched for the idle expiry are dropped on the next access.
+ * <p>
+ * Each ring remembers the chat version ({@link ClassroomVersionService}) it is current
+ * with. Messages posted through another instance never reach this ring, but they bump
+ * the shared version, so a read that sees a newer version than the ring reloads it.
+ */
+@Component
+public class ChatMessageCache {
+
+    // Rough per-message footprint of the view, its sender, its timestamp and the ring slot.
+    private static final long MESSAGE_OVERHEAD_BYTES = 256;
+    private static final int STAMP_STRIPES = 64;
+
+    private final int messagesPerClassroom;
+    private final long maxBytes;
+    private final long idleExpiryNanos;
+
+    // Access-ordered so iteration starts at the least recently used classroom. Guarded by "this".
+    private final LinkedHashMap<Long, Ring> rings = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesUsed;
+
+    // Bumped on every write or invalidation; a lazy load only installs its ring if
+    // its stripe did not move while the database query was running.
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ChatMessageCache(@Value("${app.chat.cache.messages-per-classroom:50}") int messagesPerClassroom,
+                            @Value("${app.chat.cache.max-bytes:33554432}") long maxBytes,
+                            @Value("${app.chat.cache.idle-expiry:PT30M}") Duration idleExpiry) {
+        this.messagesPerClassroom = messagesPerClassroom;
+        this.maxBytes = maxBytes;
+        this.idleExpiryNanos = idleExpiry.toNanos();
+    }
+
+    public int getMessagesPerClassroom() {
+        return messagesPerClassroom;
+    }
+
+    /**
+     * Returns the cached messages for a classroom in ascending time order, calling the
+     * loader (which must return at most {@link #getMessagesPerClassroom()} messages in
+     * ascending order) only when the classroom is not cached or its ring is older than
+     * {@code version}. Read the version before calling, so the loaded ring is never
+     * tagged newer than its contents.
+     */
+    public List<ChatMessageView> getOrLoad(Long classroomId, long version, Supplier<List<ChatMessageView>> loader) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            expireIdle(now);
+            Ring ring = rings.get(classroomId);
+            if (ring != null && ring.version >= version) {
+                ring.lastAccess = now;
+                hits.incrementAndGet();
+                return ring.snapshot();
+            }
+            if (ring != null) {
+                // Written through another instance since this ring was filled.
+                rings.remove(classroomId);
+                bytesUsed -= ring.bytes;
+            }
+        }
+
+        misses.incrementAndGet();
+        long stamp = writeStamps.get(stripe(classroomId));
+        List<ChatMessageView> loaded = loader.get();
+
+        synchronized (this) {
+            if (writeStamps.get(stripe(classroomId)) == stamp && !rings.containsKey(classroomId)) {
+                Ring ring = new Ring(messagesPerClassroom);
+                ring.version = version;
+                for (ChatMessageView message : loaded) {
+                    bytesUsed += ring.add(message);
+                }
+                ring.lastAccess = now;
+                rings.put(classroomId, ring);
+                evictOverBudget();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Write-through for a freshly persisted message, committed with chat version
+     * {@code version}. Classrooms that are not cached are left alone; they will be loaded
+     * from the database on their next read. A ring that is more than one version behind
+     * has missed a write made elsewhere and is dropped instead.
+     */
+    public void append(ChatMessageView message, long version) {
+        Long classroomId = message.getClassroomId();
+        writeStamps.incrementAndGet(stripe(classroomId));
+        synchronized (this) {
+            Ring ring = rings.get(classroomId);
+            if (ring == null) {
+                return;
+            }
+            if (version < 0 || version > ring.version + 1) {
+                rings.remove(classroomId);
+                bytesUsed -= ring.bytes;
+                return;
+            }
+            // A ring loaded after the commit may already hold the message.
+            if (!ring.contains(message.getId())) {
+                bytesUsed += ring.add(message);
+            }
+            ring.version = Math.max(ring.version, version);
+            evictOverBudget();
+        }
+    }
+
+    /**
+     * Drops the ring for a classroom. When called inside a transaction the ring is
+     * dropped again after commit so a concurrent read cannot re-cache rows that were
+     * about to be deleted.
+     */
+    public void invalidate(Long classroomId) {
+        evict(classroomId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(classroomId);
+                }
+            });
+        }
+    }
+
+    public ChatCacheStatsDTO getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        synchronized (this) {
+            int messageCount = 0;
+            for (Ring ring : rings.values()) {
+                messageCount += ring.size;
+            }
+            return ChatCacheStatsDTO.builder()
+                    .hits(hitCount)
+                    .misses(missCount)
+                    .hitRatio(lookups == 0 ? 0.0 : (double) hitCount / lookups)
+                    .evictions(evictions.get())
+                    .cachedClassrooms(rings.size())
+                    .cachedMessages(messageCount)
+                    .bytesUsed(bytesUsed)
+                    .maxBytes(maxBytes)
+                    .build();
+        }
+    }
+
+    private void evict(Long classroomId) {
+        writeStamps.incrementAndGet(stripe(classroomId));
+        synchronized (this) {
+            Ring ring = rings.remove(classroomId);
+            if (ring != null) {
+                bytesUsed -= ring.bytes;
+            }
+        }
+    }
+
+    private void expireIdle(long now) {
+        Iterator<Map.Entry<Long, Ring>> it = rings.entrySet().iterator();
+        while (it.hasNext()) {
+            Ring ring = it.next().getValue();
+            if (now - ring.lastAccess < idleExpiryNanos) {
+                break;
+            }
+            bytesUsed -= ring.bytes;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<Long, Ring>> it = rings.entrySet().iterator();
+        while (bytesUsed > maxBytes && it.hasNext()) {
+            bytesUsed -= it.next().getValue().bytes;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static int stripe(Long classroomId) {
+        return (int) (classroomId & (STAMP_STRIPES - 1));
+    }
+
+    private static long estimateBytes(ChatMessageView message) {
+        String content = message.getContent();
+        return MESSAGE_OVERHEAD_BYTES + (content != null ? 2L * content.length() : 0);
+    }
+
+    /**
+     * Fixed-capacity circular buffer; once full, each add overwrites the oldest slot.
+     */
+    private static final class Ring {
+        private final ChatMessageView[] slots;
+        private final long[] slotBytes;
+        private int head;
+        private int size;
+        private long bytes;
+        private long lastAccess;
+        private long version;
+
+        private Ring(int capacity) {
+            this.slots = new ChatMessageView[capacity];
+            this.slotBytes = new long[capacity];
+        }
+
+        /**
+         * Adds a message and returns the change in the ring's estimated size.
+         */
+        private long add(ChatMessageView message) {
+            int index = (head + size) % slots.length;
+            long delta = estimateBytes(message);
+            if (size == slots.length) {
+                delta -= slotBytes[head];
+                head = (head + 1) % slots.length;
+            } else {
+                size++;
+            }
+            slots[index] = message;
+            slotBytes[index] = estimateBytes(message);
+            bytes += delta;
+            return delta;
+        }
+
+        private boolean contains(Long id) {
+            for (int i = 0; i < size; i++) {
+                if (id.equals(slots[(head + i) % slots.length].getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<ChatMessageView> snapshot() {
+            List<ChatMessageView> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                messages.add(slots[(head + i) % slots.length]);
+            }
+            return messages;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.smartclassroom.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import com.smartclassroom.backend.service.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps {@code chat_messages} partitioned by month and moves expired months to the archive.
+ * <p>
+ * Each classroom keeps {@link Classroom#getChatRetentionMonths()} months (the current month
+ * included) in the live table; hot-path reads are bounded to that window so PostgreSQL only
+ * scans recent partitions. A monthly partition older than the longest retention of any
+ * classroom is exported to one gzip-compressed JSON-lines file per classroom, stored through
+ * the shared {@link StorageBackend} and listed in {@code chat_archives}, and then dropped,
+ * which is O(1) instead of a mass DELETE. Archive files are written once and never modified;
+ * {@code app.chat.archive-dir} only holds them while they are being written.
+ * <p>
+ * A classroom with a shorter retention than the longest one only has its reads cut off:
+ * its older rows stay in the live partitions, and in its history export, until the
+ * partition itself is archived.
+ * <p>
+ * All of this is skipped, with a warning, if {@code chat_messages} has not been migrated to
+ * a partitioned table (see {@code migrations/001_partition_chat_messages.sql}).
+ */
+@Service
+public class ChatRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatRetentionService.class);
+
+    private static final String PARTITION_PREFIX = "chat_messages_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter ARCHIVE_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String ARCHIVE_EXTENSION = ".jsonl.gz";
+    private static final String ARCHIVE_KEY_PREFIX = "chat-archive/";
+    // Skips classrooms deleted since their rows were read, rather than failing the whole partition.
+    private static final String RECORD_ARCHIVE_SQL =
+            "INSERT INTO chat_archives (classroom_id, month, storage_key) " +
+                    "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM classrooms WHERE id = ?) " +
+                    "ON CONFLICT (classroom_id, month) DO UPDATE SET storage_key = EXCLUDED.storage_key";
+    private static final int FETCH_SIZE = 1000;
+    // Arbitrary key for pg_try_advisory_xact_lock so only one node archives at a time.
+    private static final long ARCHIVE_LOCK_KEY = 0x63686174L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClassroomRepository classroomRepository;
+    private final StorageBackend storageBackend;
+    private final Path archiveRoot;
+    private final int defaultRetentionMonths;
+    private final int monthsAhead;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ChatRetentionService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ClassroomRepository classroomRepository,
+                                StorageBackend storageBackend,
+                                @Value("${app.chat.archive-dir:chat-archive}") String archiveDir,
+                                @Value("${app.chat.retention.default-months:12}") int defaultRetentionMonths,
+                                @Value("${app.chat.retention.months-ahead:2}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.classroomRepository = classroomRepository;
+        this.storageBackend = storageBackend;
+        this.archiveRoot = Paths.get(archiveDir).toAbsolutePath().normalize();
+        this.defaultRetentionMonths = defaultRetentionMonths;
+        this.monthsAhead = monthsAhead;
+    }
+
+    public int retentionMonths(Classroom classroom) {
+        Integer months = classroom.getChatRetentionMonths();
+        return months != null ? months : defaultRetentionMonths;
+    }
+
+    /**
+     * Start of the live window for a classroom: the first day of the oldest retained month.
+     */
+    public LocalDateTime hotWindowStart(Classroom classroom) {
+        return YearMonth.now().minusMonths(retentionMonths(classroom) - 1L).atDay(1).atStartOfDay();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.chat.retention.cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                log.warn("chat_messages is not a partitioned table; skipping chat partition maintenance");
+                return;
+            }
+            ensurePartitions();
+            importLocalArchives();
+            archiveExpiredPartitions();
+        } catch (RuntimeException ex) {
+            log.error("Chat partition maintenance failed", ex);
+        }
+    }
+
+    /**
+     * Writes a classroom's history that is no longer in its live window as JSON lines:
+     * archived months first, then rows still in live partitions but older than the window.
+     */
+    public void streamHistory(Classroom classroom, OutputStream out) throws IOException {
+        List<String> keys = jdbcTemplate.queryForList(
+                "SELECT storage_key FROM chat_archives WHERE classroom_id = ? ORDER BY month",
+                String.class, classroom.getId());
+        for (String key : keys) {
+            try (InputStream in = new GZIPInputStream(storageBackend.get(key))) {
+                in.transferTo(out);
+            }
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Timestamp before = Timestamp.valueOf(hotWindowStart(classroom));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, sender_id, content, created_at FROM chat_messages " +
+                            "WHERE classroom_id = ? AND created_at < ? ORDER BY created_at, id");
+            ps.setLong(1, classroom.getId());
+            ps.setTimestamp(2, before);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> writeLine(writer, rs)));
+        writer.flush();
+    }
+
+    /**
+     * Deletes a classroom's archived history along with its live messages: the
+     * {@code chat_archives} rows go in the caller's transaction and the stored files once
+     * it commits, so a rollback never leaves rows pointing at deleted files.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteArchives(Long classroomId) {
+        List<String> keys = jdbcTemplate.queryForList(
+                "DELETE FROM chat_archives WHERE classroom_id = ? RETURNING storage_key", String.class, classroomId);
+        if (keys.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String key : keys) {
+                    try {
+                        storageBackend.delete(key);
+                    } catch (IOException | RuntimeException ex) {
+                        log.warn("Could not delete chat archive {}; it is no longer listed", key, ex);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes at most {@code limit} of a classroom's archive files and the rows listing them,
+     * returning how many went. Files are deleted first, so a failure leaves their rows in
+     * place and the step simply deletes them again when it is repeated.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int deleteArchiveChunk(Long classroomId, int limit) {
+        List<String> keys = jdbcTemplate.queryForList(
+                "SELECT storage_key FROM chat_archives WHERE classroom_id = ? ORDER BY month LIMIT ?",
+                String.class, classroomId, limit);
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            try {
+                storageBackend.delete(key);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            rows.add(new Object[]{key});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM chat_archives WHERE storage_key = ?", rows);
+        }
+        return keys.size();
+    }
+
+    private boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('chat_messages')", String.class);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    private void ensurePartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) +
+                    " PARTITION OF chat_messages FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" +
+                    month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    private void archiveExpiredPartitions() {
+        Integer maxMonths = classroomRepository.findMaxChatRetentionMonths(defaultRetentionMonths);
+        YearMonth horizon = YearMonth.now().minusMonths((maxMonths != null ? maxMonths : defaultRetentionMonths) - 1L);
+        for (YearMonth month : livePartitions()) {
+            if (month.isBefore(horizon)) {
+                archivePartition(month);
+            }
+        }
+    }
+
+    private List<YearMonth> livePartitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname::text FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass('chat_messages') ORDER BY c.relname", String.class);
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names) {
+            if (name.startsWith(PARTITION_PREFIX)) {
+                months.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+            }
+        }
+        return months;
+    }
+
+    private void archivePartition(YearMonth month) {
+        String table = partitionName(month);
+        long started = System.currentTimeMillis();
+        Boolean archived = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ARCHIVE_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return false;
+            }
+            ArchiveWriter archiveWriter = new ArchiveWriter(month);
+            // The rows listing each stored file commit together with the DROP below.
+            try {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, classroom_id, sender_id, content, created_at FROM " + table +
+                                    " ORDER BY classroom_id, created_at, id");
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                }, archiveWriter);
+                archiveWriter.finishFile();
+            } catch (IOException | RuntimeException ex) {
+                archiveWriter.abort();
+                throw new IllegalStateException("Could not archive " + table, ex);
+            }
+            // Every file is in storage above, so the partition can go.
+            jdbcTemplate.execute("DROP TABLE " + table);
+            return true;
+        });
+        if (Boolean.TRUE.equals(archived)) {
+            log.info("Archived and dropped chat partition {} in {} ms", table, System.currentTimeMillis() - started);
+        }
+    }
+
+    /**
+     * Moves archive files that earlier builds left in {@code app.chat.archive-dir} (one
+     * directory per classroom) into storage, so every instance can serve them.
+     */
+    private void importLocalArchives() {
+        if (!Files.isDirectory(archiveRoot)) {
+            return;
+        }
+        int imported = 0;
+        try (DirectoryStream<Path> classroomDirs = Files.newDirectoryStream(archiveRoot, Files::isDirectory)) {
+            for (Path classroomDir : classroomDirs) {
+                long classroomId;
+                try {
+                    classroomId = Long.parseLong(classroomDir.getFileName().toString());
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(classroomDir, "*" + ARCHIVE_EXTENSION)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        YearMonth month = YearMonth.parse(
+                                name.substring(0, name.length() - ARCHIVE_EXTENSION.length()), ARCHIVE_MONTH);
+                        String key = store(classroomId, month, file);
+                        jdbcTemplate.update(RECORD_ARCHIVE_SQL, classroomId, month.atDay(1), key, classroomId);
+                        Files.deleteIfExists(file);
+                        imported++;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (imported > 0) {
+            log.info("Moved {} local chat archive files into storage", imported);
+        }
+    }
+
+    private String store(long classroomId, YearMonth month, Path file) throws IOException {
+        String key = ARCHIVE_KEY_PREFIX + classroomId + "-" + month.format(ARCHIVE_MONTH) + ARCHIVE_EXTENSION;
+        storageBackend.putFile(key, file);
+        return key;
+    }
+
+    private void writeLine(Writer writer, ResultSet rs) throws SQLException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", rs.getLong("id"));
+        node.put("senderId", rs.getLong("sender_id"));
+        node.put("content", rs.getString("content"));
+        node.put("createdAt", rs.getTimestamp("created_at").toLocalDateTime().toString());
+        try {
+            writer.write(objectMapper.writeValueAsString(node));
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * Receives a partition ordered by classroom and writes one archive file per classroom,
+     * each first as a local temp file that is then put into storage and recorded.
+     */
+    private final class ArchiveWriter implements RowCallbackHandler {
+        private final YearMonth month;
+        private final String fileName;
+        private Long classroomId;
+        private FileOutputStream fileOut;
+        private GZIPOutputStream gzipOut;
+        private Writer writer;
+        private Path tempFile;
+
+        private ArchiveWriter(YearMonth month) {
+            this.month = month;
+            this.fileName = month.format(ARCHIVE_MONTH) + ARCHIVE_EXTENSION;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowClassroomId = rs.getLong("classroom_id");
+            try {
+                if (classroomId == null || classroomId != rowClassroomId) {
+                    finishFile();
+                    openFile(rowClassroomId);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            writeLine(writer, rs);
+        }
+
+        private void openFile(long newClassroomId) throws IOException {
+            Files.createDirectories(archiveRoot);
+            classroomId = newClassroomId;
+            tempFile = archiveRoot.resolve(newClassroomId + "-" + fileName + ".tmp");
+            fileOut = new FileOutputStream(tempFile.toFile());
+            gzipOut = new GZIPOutputStream(fileOut);
+            writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8));
+        }
+
+        private void finishFile() throws IOException {
+            if (writer == null) {
+                return;
+            }
+            writer.flush();
+            gzipOut.finish();
+            fileOut.getFD().sync();
+            writer.close();
+            writer = null;
+            try {
+                String key = store(classroomId, month, tempFile);
+                jdbcTemplate.update(RECORD_ARCHIVE_SQL, classroomId, month.atDay(1), key, classroomId);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        /**
+         * Discards the file in progress; files already stored are complete and are simply
+         * stored again with the same content when the partition is archived again.
+         */
+        private void abort() {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.close();
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ex) {
+                log.warn("Could not remove partial archive file {}", tempFile, ex);
+            }
+            writer = null;
+        }
+    }
+}
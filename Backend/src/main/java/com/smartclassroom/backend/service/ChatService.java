@@ -1,6 +1,7 @@
 package com.smartclassroom.backend.service;
 
 import com.smartclassroom.backend.dto.chat.ChatMessageRequestDTO;
+import com.smartclassroom.backend.dto.chat.ChatMessageView;
 import com.smartclassroom.backend.exception.BadRequestException;
 import com.smartclassroom.backend.exception.ResourceNotFoundException;
 import com.smartclassroom.backend.model.*;
@@ -8,9 +9,18 @@ import com.smartclassroom.backend.repository.ChatMessageRepository;
 import com.smartclassroom.backend.repository.ClassroomMemberRepository;
 import com.smartclassroom.backend.repository.ClassroomRepository;
 import com.smartclassroom.backend.repository.UserRepository;
+import com.smartclassroom.backend.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -21,54 +31,98 @@ public class ChatService {
     private final ClassroomRepository classroomRepository;
     private final UserRepository userRepository;
     private final ClassroomMemberRepository classroomMemberRepository;
+    private final ClassroomMembershipCache membershipCache;
+    private final ChatMessageCache chatMessageCache;
+    private final ClassroomVersionService classroomVersionService;
+    private final ChatMessageBatchWriter chatMessageBatchWriter;
+    private final BulkDeleteService bulkDeleteService;
+    private final ChatRetentionService chatRetentionService;
 
     /**
      * Checks if a user is a member of a classroom.
      * Returns true if the user is the classroom teacher OR is a member in ClassroomMember table.
      */
     private boolean isUserMemberOfClassroom(Long classroomId, Long userId) {
-        Classroom classroom = classroomRepository.findById(classroomId)
-                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
-        
-        // Teacher (owner) is always considered a member
-        if (classroom.getTeacher().getId().equals(userId)) {
-            return true;
-        }
-        
-        // Check if user is in ClassroomMember table
-        return classroomMemberRepository.findByClassroomIdAndUserId(classroomId, userId).isPresent();
+        return membershipCache.isMember(classroomId, userId);
     }
 
-    public ChatMessage postMessage(Long classroomId, Long senderId, ChatMessageRequestDTO request) {
-        Classroom classroom = classroomRepository.findById(classroomId)
-                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
-        User sender = userRepository.findById(senderId)
+    /**
+     * Resolves the sender, reusing the user the JWT filter already loaded for this request
+     * when the sender is the caller, which is the normal case.
+     */
+    private User resolveSender(Long senderId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                && principal.getId().equals(senderId)) {
+            return principal.getUser();
+        }
+        return userRepository.findById(senderId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + senderId));
+    }
 
-        // Verify that the sender is a member of the classroom (teacher or enrolled member)
+    public ChatMessage postMessage(Long classroomId, Long senderId, ChatMessageRequestDTO request) {
+        // Verify that the sender is a member of the classroom (teacher or enrolled member).
+        // This also fails with 404 if the classroom does not exist.
         if (!isUserMemberOfClassroom(classroomId, senderId)) {
             throw new BadRequestException("User is not a member of this classroom");
         }
 
+        // Only the classroom id is needed for the insert and the response, so a proxy is enough.
         ChatMessage message = ChatMessage.builder()
-                .classroom(classroom)
-                .sender(sender)
+                .classroom(classroomRepository.getReferenceById(classroomId))
+                .sender(resolveSender(senderId))
                 .content(request.getContent())
                 .build();
-        return chatMessageRepository.save(message);
+        // The writer bumps the chat version in the transaction that inserts the message.
+        return chatMessageBatchWriter.write(message);
     }
 
-    public List<ChatMessage> getRecentMessages(Long classroomId, Long userId) {
-        // Verify that the user is a member of the classroom (teacher or enrolled member)
+    /**
+     * Verifies that the user is a member of the classroom (teacher or enrolled member).
+     * Answered from the membership cache, so conditional GETs can call it before a 304.
+     */
+    public void verifyMember(Long classroomId, Long userId) {
         if (!isUserMemberOfClassroom(classroomId, userId)) {
             throw new BadRequestException("User is not a member of this classroom");
         }
+    }
+
+    /**
+     * Returns the classroom's recent messages as of at least chat version {@code version},
+     * which the caller has just read from {@link ClassroomVersionService}.
+     */
+    public List<ChatMessageView> getRecentMessages(Long classroomId, Long userId, long version) {
+        verifyMember(classroomId, userId);
+
+        // Served from the per-classroom ring; the database is only hit on a cold or outdated classroom.
+        return chatMessageCache.getOrLoad(classroomId, version, () -> loadRecentMessages(classroomId));
+    }
 
-        return chatMessageRepository.findTop50ByClassroom_IdOrderByCreatedAtAsc(classroomId);
+    private List<ChatMessageView> loadRecentMessages(Long classroomId) {
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
+        List<ChatMessageView> newestFirst = chatMessageRepository.findRecentViews(
+                classroomId, chatRetentionService.hotWindowStart(classroom),
+                PageRequest.of(0, chatMessageCache.getMessagesPerClassroom()));
+        List<ChatMessageView> messages = new ArrayList<>(newestFirst);
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Streams the classroom's chat history that has aged out of its live window,
+     * as JSON lines, oldest first.
+     */
+    public void streamArchivedMessages(Long classroomId, Long userId, OutputStream out) throws IOException {
+        verifyMember(classroomId, userId);
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
+        chatRetentionService.streamHistory(classroom, out);
     }
 
+    @Transactional
     public void clearMessages(Long classroomId, Long requesterId) {
-        Classroom classroom = classroomRepository.findById(classroomId)
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
         
         // Check if requester is the teacher (owner) or a teacher member
@@ -82,10 +136,11 @@ public class ChatService {
         }
 
         try {
-            // Load all messages explicitly and delete them. This avoids issues with
-            // derived delete methods if the JPA provider cannot resolve the path.
-            var messages = chatMessageRepository.findByClassroom_Id(classroomId);
-            chatMessageRepository.deleteAll(messages);
+            // Set-based chunked delete; messages are never loaded into memory.
+            bulkDeleteService.deleteChatMessages(classroomId);
+            chatRetentionService.deleteArchives(classroomId);
+            chatMessageCache.invalidate(classroomId);
+            classroomVersionService.bump(ClassroomVersionService.Resource.CHAT, classroomId);
         } catch (Exception ex) {
             throw new BadRequestException("Could not clear chat history. Please try again.");
         }
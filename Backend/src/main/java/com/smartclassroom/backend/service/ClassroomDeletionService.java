@@ -0,0 +1,303 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.classroom.ClassroomDeletionJobDTO;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.model.ClassroomDeletionJob;
+import com.smartclassroom.backend.repository.ClassroomDeletionJobRepository;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes classrooms in the background.
+ * <p>
+ * A delete request only hides the classroom ({@code deleted_at}) and records a job, so it
+ * returns at once. A worker thread then purges the classroom's rows through
+ * {@link BulkDeleteService#deleteClassroomChunk}, one chunk per short transaction with a
+ * pause in between, so no statement holds locks on the busy tables for long. The job's
+ * progress commits with each chunk; after a restart, or when the worker holding a job
+ * stops renewing its lease, the job is claimed again and resumes at the step it reached.
+ * The classroom row itself goes last, and its {@code ON DELETE CASCADE} foreign keys pick
+ * up anything written to it while the purge was running.
+ */
+@Service
+public class ClassroomDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassroomDeletionService.class);
+
+    // A new job, or a FAILED one handed back to the worker at the step it reached.
+    // Jobs that are still queued or running are left alone.
+    private static final String REQUEST_SQL =
+            "INSERT INTO classroom_deletion_jobs (classroom_id, requested_by, status, updated_at) " +
+                    "VALUES (?, ?, 'PENDING', now()) " +
+                    "ON CONFLICT (classroom_id) DO UPDATE SET status = 'PENDING', " +
+                    "requested_by = EXCLUDED.requested_by, attempts = 0, last_error = NULL, lease_owner = NULL, " +
+                    "lease_until = NULL, updated_at = now() WHERE classroom_deletion_jobs.status = 'FAILED'";
+    private static final String CLAIM_SQL =
+            "UPDATE classroom_deletion_jobs SET status = 'RUNNING', lease_owner = ?, " +
+                    "lease_until = now() + make_interval(secs => ?), updated_at = now() " +
+                    "WHERE id = (SELECT id FROM classroom_deletion_jobs WHERE status IN ('PENDING', 'RUNNING') " +
+                    "AND (lease_until IS NULL OR lease_until < now()) ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING id, classroom_id, step";
+    private static final String ADVANCE_SQL =
+            "UPDATE classroom_deletion_jobs SET step = ?, rows_deleted = rows_deleted + ?, " +
+                    "lease_until = now() + make_interval(secs => ?), updated_at = now() " +
+                    "WHERE id = ? AND lease_owner = ?";
+    private static final String COMPLETE_SQL =
+            "UPDATE classroom_deletion_jobs SET status = 'COMPLETED', last_error = NULL, lease_owner = NULL, " +
+                    "lease_until = NULL, updated_at = now(), completed_at = now() WHERE id = ? AND lease_owner = ?";
+    // Leaves the lease running out after the retry delay so the job is not retried at once.
+    private static final String FAIL_SQL =
+            "UPDATE classroom_deletion_jobs SET attempts = attempts + 1, last_error = ?, " +
+                    "status = CASE WHEN attempts + 1 >= ? THEN 'FAILED' ELSE status END, lease_owner = NULL, " +
+                    "lease_until = now() + make_interval(secs => ?), updated_at = now() WHERE id = ? AND lease_owner = ?";
+    private static final String RELEASE_SQL =
+            "UPDATE classroom_deletion_jobs SET lease_owner = NULL, lease_until = NULL, updated_at = now() " +
+                    "WHERE id = ? AND lease_owner = ?";
+
+    private final ClassroomRepository classroomRepository;
+    private final ClassroomDeletionJobRepository jobRepository;
+    private final BulkDeleteService bulkDeleteService;
+    private final ClassroomMembershipCache membershipCache;
+    private final ChatMessageCache chatMessageCache;
+    private final ClassroomVersionService classroomVersionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long pauseMs;
+    private final long pollMs;
+    private final long leaseSeconds;
+    private final long retrySeconds;
+    private final int maxAttempts;
+    private final Semaphore wakeups = new Semaphore(0);
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public ClassroomDeletionService(ClassroomRepository classroomRepository,
+                                    ClassroomDeletionJobRepository jobRepository,
+                                    BulkDeleteService bulkDeleteService,
+                                    ClassroomMembershipCache membershipCache,
+                                    ChatMessageCache chatMessageCache,
+                                    ClassroomVersionService classroomVersionService,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.classroom-deletion.pause:PT0.2S}") Duration pause,
+                                    @Value("${app.classroom-deletion.poll-interval:PT30S}") Duration pollInterval,
+                                    @Value("${app.classroom-deletion.lease:PT2M}") Duration lease,
+                                    @Value("${app.classroom-deletion.retry-delay:PT1M}") Duration retryDelay,
+                                    @Value("${app.classroom-deletion.max-attempts:5}") int maxAttempts) {
+        this.classroomRepository = classroomRepository;
+        this.jobRepository = jobRepository;
+        this.bulkDeleteService = bulkDeleteService;
+        this.membershipCache = membershipCache;
+        this.chatMessageCache = chatMessageCache;
+        this.classroomVersionService = classroomVersionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pauseMs = pause.toMillis();
+        this.pollMs = pollInterval.toMillis();
+        this.leaseSeconds = lease.toSeconds();
+        this.retrySeconds = retryDelay.toSeconds();
+        this.maxAttempts = maxAttempts;
+        this.worker = new Thread(this::run, "classroom-deleter");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the worker. Jobs left unfinished by a previous run are picked up on the
+     * first poll, as soon as their lease has run out.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Hides the classroom and queues its deletion. Asking again for a classroom whose job
+     * has FAILED puts that job back in the queue, resuming at the step it reached; asking
+     * again while it is queued or running just returns it. The worker is woken once the
+     * caller's transaction commits.
+     */
+    @Transactional
+    public ClassroomDeletionJobDTO requestDeletion(Long classroomId, Long teacherId) {
+        // Not findActiveById: a classroom with a failed job is already hidden.
+        Classroom classroom = classroomRepository.findById(classroomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
+        if (!classroom.getTeacher().getId().equals(teacherId)) {
+            throw new BadRequestException("Only the classroom teacher can delete this class");
+        }
+
+        if (classroom.getDeletedAt() == null) {
+            classroom.setDeletedAt(LocalDateTime.now());
+            classroomRepository.save(classroom);
+        }
+        jdbcTemplate.update(REQUEST_SQL, classroomId, teacherId);
+        ClassroomDeletionJob job = jobRepository.findByClassroomId(classroomId)
+                .orElseThrow(() -> new IllegalStateException("No deletion job for classroom " + classroomId));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(classroomId);
+                wakeups.release();
+            }
+        });
+        return toDTO(job);
+    }
+
+    public ClassroomDeletionJobDTO getJob(Long jobId, Long teacherId) {
+        ClassroomDeletionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Deletion job not found with id " + jobId));
+        if (!job.getRequestedBy().equals(teacherId)) {
+            throw new BadRequestException("Only the teacher who deleted the classroom can view this job");
+        }
+        return toDTO(job);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                wakeups.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+                while (running && processNext()) {
+                    // keep going until the queue is empty
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Classroom deletion worker could not claim a job: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Claims one job whose lease is free or has run out and works it to completion,
+     * starting at the step recorded for it. Returns false when there was nothing to claim.
+     */
+    boolean processNext() throws InterruptedException {
+        Claim claim = claim();
+        if (claim == null) {
+            return false;
+        }
+        process(claim);
+        return true;
+    }
+
+    private Claim claim() {
+        String owner = UUID.randomUUID().toString();
+        List<Claim> claimed = transactionTemplate.execute(status -> jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new Claim(rs.getLong("id"), rs.getLong("classroom_id"), rs.getInt("step"), owner),
+                owner, leaseSeconds));
+        return claimed == null || claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    private void process(Claim claim) throws InterruptedException {
+        int step = claim.step;
+        try {
+            while (step < BulkDeleteService.CLASSROOM_STEPS) {
+                int current = step;
+                Integer next = transactionTemplate.execute(status -> {
+                    int deleted = bulkDeleteService.deleteClassroomChunk(claim.classroomId, current);
+                    int following = deleted < bulkDeleteService.getChunkSize() ? current + 1 : current;
+                    checkLease(jdbcTemplate.update(ADVANCE_SQL, following, deleted, leaseSeconds,
+                            claim.jobId, claim.owner), claim);
+                    return following;
+                });
+                step = next;
+                if (!running) {
+                    release(claim);
+                    return;
+                }
+                Thread.sleep(pauseMs);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM classrooms WHERE id = ?", claim.classroomId);
+                checkLease(jdbcTemplate.update(COMPLETE_SQL, claim.jobId, claim.owner), claim);
+            });
+            evict(claim.classroomId);
+            log.info("Deleted classroom {} (job {})", claim.classroomId, claim.jobId);
+        } catch (InterruptedException ex) {
+            release(claim);
+            throw ex;
+        } catch (LeaseLostException ex) {
+            log.warn("Classroom deletion job {} was taken over by another worker", claim.jobId);
+        } catch (RuntimeException ex) {
+            log.warn("Classroom deletion job {} failed at step {}, retrying in {}s: {}",
+                    claim.jobId, step, retrySeconds, ex.getMessage());
+            String message = ex.getMessage() == null ? ex.getClass().getName() : ex.getMessage();
+            jdbcTemplate.update(FAIL_SQL, message, maxAttempts, retrySeconds, claim.jobId, claim.owner);
+        }
+    }
+
+    // Hands the job back for the next claim; called when stopping mid-job.
+    private void release(Claim claim) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, claim.jobId, claim.owner);
+        } catch (RuntimeException ex) {
+            log.warn("Could not release classroom deletion job {}; it resumes once its lease runs out",
+                    claim.jobId);
+        }
+    }
+
+    private static void checkLease(int updated, Claim claim) {
+        if (updated == 0) {
+            throw new LeaseLostException(claim.jobId);
+        }
+    }
+
+    private void evict(Long classroomId) {
+        chatMessageCache.invalidate(classroomId);
+        membershipCache.invalidate(classroomId);
+        classroomVersionService.bumpAll(classroomId);
+    }
+
+    private static ClassroomDeletionJobDTO toDTO(ClassroomDeletionJob job) {
+        return ClassroomDeletionJobDTO.builder()
+                .jobId(job.getId())
+                .classroomId(job.getClassroomId())
+                .status(job.getStatus())
+                .stepsCompleted(job.getStep())
+                .totalSteps(BulkDeleteService.CLASSROOM_STEPS)
+                .rowsDeleted(job.getRowsDeleted())
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    private record Claim(long jobId, long classroomId, int step, String owner) {
+    }
+
+    private static final class LeaseLostException extends RuntimeException {
+        private LeaseLostException(long jobId) {
+            super("Lost the lease on classroom deletion job " + jobId);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.repository.ClassroomMemberRepository;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches "is this user allowed into this classroom" answers so hot chat reads and
+ * writes do not re-query the classroom and its member table on every call.
+ * <p>
+ * Entries are grouped per classroom and evicted in least-recently-used order. Only
+ * positive answers are kept: a user who was turned away is looked up again next time, so
+ * joining takes effect at once even on a node that never saw the join.
+ * {@link ClassroomService} keeps the cache in sync on join, leave and delete, after the
+ * change has committed, but only on the node that made the change. Every classroom entry
+ * is therefore dropped once it is older than the time-to-live, which bounds how long
+ * another node keeps admitting a user who left or a classroom that was deleted.
+ */
+@Component
+public class ClassroomMembershipCache {
+
+    private final ClassroomRepository classroomRepository;
+    private final ClassroomMemberRepository classroomMemberRepository;
+    private final int maxClassrooms;
+    private final long ttlNanos;
+
+    // Guarded by "this"; access-ordered for LRU eviction.
+    private final LinkedHashMap<Long, Entry> classrooms;
+
+    public ClassroomMembershipCache(ClassroomRepository classroomRepository,
+                                    ClassroomMemberRepository classroomMemberRepository,
+                                    @Value("${app.membership.cache.max-classrooms:10000}") int maxClassrooms,
+                                    @Value("${app.membership.cache.ttl:PT30S}") Duration ttl) {
+        this.classroomRepository = classroomRepository;
+        this.classroomMemberRepository = classroomMemberRepository;
+        this.maxClassrooms = maxClassrooms;
+        this.ttlNanos = ttl.toNanos();
+        this.classrooms = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > ClassroomMembershipCache.this.maxClassrooms;
+            }
+        };
+    }
+
+    /**
+     * Returns true if the user is the classroom teacher or an enrolled member.
+     *
+     * @throws ResourceNotFoundException if the classroom does not exist
+     */
+    public boolean isMember(Long classroomId, Long userId) {
+        Entry entry = entryFor(classroomId);
+        if (entry.teacherId.equals(userId)) {
+            return true;
+        }
+        if (entry.members.contains(userId)) {
+            return true;
+        }
+        // A leave that commits while the lookup runs must not be overwritten by its answer.
+        long removals = entry.removals.get();
+        boolean member = classroomMemberRepository.findByClassroomIdAndUserId(classroomId, userId).isPresent();
+        if (member) {
+            entry.members.add(userId);
+            if (entry.removals.get() != removals) {
+                entry.members.remove(userId);
+            }
+        }
+        return member;
+    }
+
+    public void memberJoined(Long classroomId, Long userId) {
+        Entry entry = peek(classroomId);
+        if (entry != null) {
+            entry.members.add(userId);
+        }
+    }
+
+    public void memberLeft(Long classroomId, Long userId) {
+        Entry entry = peek(classroomId);
+        if (entry != null) {
+            entry.removals.incrementAndGet();
+            entry.members.remove(userId);
+        }
+    }
+
+    public synchronized void invalidate(Long classroomId) {
+        classrooms.remove(classroomId);
+    }
+
+    private Entry entryFor(Long classroomId) {
+        Entry entry = peek(classroomId);
+        if (entry != null) {
+            return entry;
+        }
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
+        synchronized (this) {
+            return classrooms.computeIfAbsent(classroomId,
+                    id -> new Entry(classroom.getTeacher().getId(), System.nanoTime()));
+        }
+    }
+
+    private synchronized Entry peek(Long classroomId) {
+        Entry entry = classrooms.get(classroomId);
+        if (entry != null && System.nanoTime() - entry.loadedAt >= ttlNanos) {
+            classrooms.remove(classroomId);
+            return null;
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        private final Long teacherId;
+        private final long loadedAt;
+        private final Set<Long> members = ConcurrentHashMap.newKeySet();
+        private final AtomicLong removals = new AtomicLong();
+
+        private Entry(Long teacherId, long loadedAt) {
+            this.teacherId = teacherId;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import com.smartclassroom.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.security.SecureRandom;
 import java.util.Base64;
@@ -22,10 +24,11 @@ public class ClassroomService {
     private final ClassroomRepository classroomRepository;
     private final ClassroomMemberRepository classroomMemberRepository;
     private final UserRepository userRepository;
-    private final AssignmentSubmissionRepository assignmentSubmissionRepository;
-    private final AssignmentRepository assignmentRepository;
-    private final AnnouncementRepository announcementRepository;
-    private final ChatMessageRepository chatMessageRepository;
+    private final ClassroomMembershipCache membershipCache;
+    private final ChatMessageCache chatMessageCache;
+    private final ClassroomVersionService classroomVersionService;
+    private final AssignmentStatsService assignmentStatsService;
+    private final StudentDashboardProjection studentDashboardProjection;
 
     private static final SecureRandom RANDOM = new SecureRandom();
 
@@ -56,24 +59,26 @@ public class ClassroomService {
 
     public List<Classroom> getClassrooms(Long teacherId, Long studentId) {
         if (teacherId != null) {
-            return classroomRepository.findByTeacherId(teacherId);
+            return classroomRepository.findByTeacherIdAndDeletedAtIsNull(teacherId);
         }
         if (studentId != null) {
             return classroomMemberRepository.findByUserId(studentId).stream()
                     .map(ClassroomMember::getClassroom)
+                    .filter(classroom -> classroom.getDeletedAt() == null)
                     .distinct()
                     .toList();
         }
-        return classroomRepository.findAll();
+        return classroomRepository.findByDeletedAtIsNull();
     }
 
     public Classroom getClassroomById(Long id) {
-        return classroomRepository.findById(id)
+        return classroomRepository.findActiveById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + id));
     }
 
+    @Transactional
     public ClassroomMember joinClassroom(Long userId, JoinClassroomRequestDTO request) {
-        Classroom classroom = classroomRepository.findByCode(request.getCode())
+        Classroom classroom = classroomRepository.findByCodeAndDeletedAtIsNull(request.getCode())
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found for code " + request.getCode()));
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + userId));
@@ -89,53 +94,41 @@ public class ClassroomService {
                 .roleInClass(roleInClass)
                 .build();
 
-        return classroomMemberRepository.save(member);
+        // Flushed so the dashboard rows below can be derived from the new membership.
+        ClassroomMember saved = classroomMemberRepository.saveAndFlush(member);
+        if (roleInClass == ClassroomRole.STUDENT) {
+            assignmentStatsService.studentJoined(classroom.getId());
+        }
+        studentDashboardProjection.memberJoined(classroom.getId(), user.getId());
+        Long classroomId = classroom.getId();
+        afterCommit(() -> membershipCache.memberJoined(classroomId, userId));
+        return saved;
     }
 
     public List<ClassroomMember> getMembers(Long classroomId) {
-        classroomRepository.findById(classroomId)
+        classroomRepository.findActiveById(classroomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
         return classroomMemberRepository.findByClassroomId(classroomId);
     }
 
-    @Transactional
-    public void deleteClassroom(Long classroomId, Long teacherId) {
+    public Classroom updateChatRetention(Long classroomId, Long teacherId, Integer months) {
         Classroom classroom = getClassroomById(classroomId);
         if (!classroom.getTeacher().getId().equals(teacherId)) {
-            throw new BadRequestException("Only the classroom teacher can delete this class");
+            throw new BadRequestException("Only the classroom teacher can change chat retention");
         }
-        
-        // Delete in correct order to avoid foreign key constraint violations:
-        // 1. Assignment submissions (references assignments)
-        List<Assignment> assignments = assignmentRepository.findByClassroomId(classroomId);
-        for (Assignment assignment : assignments) {
-            assignmentSubmissionRepository.deleteAll(
-                assignmentSubmissionRepository.findByAssignmentId(assignment.getId())
-            );
+        if (months != null && (months < 1 || months > 120)) {
+            throw new BadRequestException("Chat retention must be between 1 and 120 months");
         }
-        
-        // 2. Assignments (references classroom)
-        assignmentRepository.deleteAll(assignments);
-        
-        // 3. Announcements (references classroom)
-        announcementRepository.deleteAll(
-            announcementRepository.findByClassroomIdOrderByCreatedAtDesc(classroomId)
-        );
-        
-        // 4. Chat messages (references classroom)
-        chatMessageRepository.deleteAll(
-            chatMessageRepository.findByClassroom_Id(classroomId)
-        );
-        
-        // 5. Classroom members (references classroom)
-        classroomMemberRepository.deleteAll(
-            classroomMemberRepository.findByClassroomId(classroomId)
-        );
-        
-        // 6. Finally, delete the classroom itself
-        classroomRepository.delete(classroom);
+        classroom.setChatRetentionMonths(months);
+        Classroom saved = classroomRepository.save(classroom);
+
+        // The live window changed, so cached recent messages and chat ETags are stale.
+        chatMessageCache.invalidate(classroomId);
+        classroomVersionService.bump(ClassroomVersionService.Resource.CHAT, classroomId);
+        return saved;
     }
 
+    @Transactional
     public void leaveClassroom(Long classroomId, Long userId) {
         Classroom classroom = getClassroomById(classroomId);
         userRepository.findById(userId)
@@ -150,6 +143,21 @@ public class ClassroomService {
                 .orElseThrow(() -> new ResourceNotFoundException("User is not a member of this classroom"));
         
         classroomMemberRepository.delete(member);
+        if (member.getRoleInClass() == ClassroomRole.STUDENT) {
+            assignmentStatsService.studentLeft(classroomId);
+        }
+        studentDashboardProjection.memberLeft(classroomId, userId);
+        afterCommit(() -> membershipCache.memberLeft(classroomId, userId));
+    }
+
+    // The membership cache must not run ahead of what other transactions can see.
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private String generateClassCode() {
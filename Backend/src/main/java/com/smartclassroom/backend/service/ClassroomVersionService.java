@@ -0,0 +1,125 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.stats.ConditionalGetStatsDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-classroom version numbers used as deep ETags for list endpoints.
+ * <p>
+ * Services bump the version for a resource with every write that changes the list, so
+ * controllers can answer a matching {@code If-None-Match} with 304 after one primary-key
+ * lookup instead of loading the list. Versions are rows in
+ * {@code classroom_list_versions}, bumped in the writer's own transaction, so every
+ * instance sees a new version exactly when it sees the data behind it.
+ */
+@Service
+public class ClassroomVersionService {
+
+    public enum Resource {
+        CHAT("c"),
+        ANNOUNCEMENTS("n"),
+        ASSIGNMENTS("a");
+
+        private final String prefix;
+
+        Resource(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    // Repository queries a full list response issues, i.e. what each 304 saves.
+    private static final int QUERIES_PER_LIST = 1;
+
+    private static final String VERSION_SQL =
+            "SELECT version FROM classroom_list_versions WHERE classroom_id = ? AND resource = ?";
+    // Inserts nothing once the classroom row is gone, e.g. after a purge.
+    private static final String BUMP_SQL =
+            "INSERT INTO classroom_list_versions (classroom_id, resource, version) " +
+                    "SELECT id, ?, 1 FROM classrooms WHERE id = ? " +
+                    "ON CONFLICT (classroom_id, resource) DO UPDATE SET version = classroom_list_versions.version + 1 " +
+                    "RETURNING version";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Resource, AtomicLong> notModified = new EnumMap<>(Resource.class);
+    private final Map<Resource, AtomicLong> fullResponses = new EnumMap<>(Resource.class);
+
+    public ClassroomVersionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Resource resource : Resource.values()) {
+            notModified.put(resource, new AtomicLong());
+            fullResponses.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * Returns the current ETag for a classroom's list. Read it before loading the list so
+     * a write racing with the load can only make the tag older, never newer, than the body.
+     */
+    public String etag(Resource resource, Long classroomId) {
+        return etag(resource, classroomId, version(resource, classroomId));
+    }
+
+    /**
+     * Returns the current version number behind {@link #etag(Resource, Long)}, for callers
+     * that also need it to check a local cache.
+     */
+    public long version(Resource resource, Long classroomId) {
+        List<Long> rows = jdbcTemplate.queryForList(VERSION_SQL, Long.class, classroomId, resource.prefix);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    public String etag(Resource resource, Long classroomId, long version) {
+        return "\"" + resource.prefix + "-" + classroomId + "-" + version + "\"";
+    }
+
+    /**
+     * Marks a classroom's list as changed and returns the new version, or -1 if the
+     * classroom no longer exists. Call it in the transaction that makes the change, so
+     * the new version commits with the data; outside a transaction, call it after the
+     * change has committed.
+     */
+    public long bump(Resource resource, Long classroomId) {
+        List<Long> rows = jdbcTemplate.queryForList(BUMP_SQL, Long.class, resource.prefix, classroomId);
+        return rows.isEmpty() ? -1 : rows.get(0);
+    }
+
+    public void bumpAll(Long classroomId) {
+        for (Resource resource : Resource.values()) {
+            bump(resource, classroomId);
+        }
+    }
+
+    public void recordNotModified(Resource resource) {
+        notModified.get(resource).incrementAndGet();
+    }
+
+    public void recordFullResponse(Resource resource) {
+        fullResponses.get(resource).incrementAndGet();
+    }
+
+    public ConditionalGetStatsDTO getStats() {
+        Map<String, ConditionalGetStatsDTO.ResourceStats> byResource = new LinkedHashMap<>();
+        long totalNotModified = 0;
+        for (Resource resource : Resource.values()) {
+            long count = notModified.get(resource).get();
+            totalNotModified += count;
+            byResource.put(resource.name(), ConditionalGetStatsDTO.ResourceStats.builder()
+                    .notModified(count)
+                    .fullResponses(fullResponses.get(resource).get())
+                    .queriesSaved(count * QUERIES_PER_LIST)
+                    .build());
+        }
+        return ConditionalGetStatsDTO.builder()
+                .notModified(totalNotModified)
+                .queriesSaved(totalNotModified * QUERIES_PER_LIST)
+                .resources(byResource)
+                .build();
+    }
+}
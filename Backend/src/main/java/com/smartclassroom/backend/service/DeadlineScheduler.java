@@ -0,0 +1,374 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.model.Assignment;
+import com.smartclassroom.backend.model.DeadlineJob;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires assignment deadline events: closing an assignment at its due date and posting a
+ * "due soon" announcement ahead of it.
+ * <p>
+ * Pending events are rows in {@code deadline_jobs}, so they survive restarts; while the
+ * application runs they are also held in a {@link TimingWheel}, so waiting on tens of
+ * thousands of deadlines costs a small object each and no queries at all. On startup the
+ * table is streamed back into the wheel once. When timers expire, all jobs of one type
+ * that came due in the same tick are handled with a single statement that deletes the
+ * jobs and applies their effect, so each job takes effect at most once even with several
+ * instances running. A timer whose job was rescheduled in the meantime finds no due row
+ * and does nothing.
+ * <p>
+ * Every instance arms every timer: {@link #schedule} sends a {@code NOTIFY} with the job
+ * in the same transaction, and each instance keeps one pooled connection listening for
+ * it. After losing that connection an instance reloads the table, since it may have
+ * missed changes in between.
+ */
+@Service
+public class DeadlineScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadlineScheduler.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int FIRE_CHUNK = 1000;
+    private static final String CHANNEL = "deadline_jobs";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO deadline_jobs (id, job_type, assignment_id, fire_at) " +
+                    "VALUES (nextval('deadline_jobs_id_seq'), ?, ?, ?) " +
+                    "ON CONFLICT (job_type, assignment_id) DO UPDATE SET fire_at = EXCLUDED.fire_at RETURNING id";
+    private static final String LOAD_SQL = "SELECT id, job_type, fire_at FROM deadline_jobs";
+    // Delivered to listeners when the scheduling transaction commits, and not at all if it rolls back.
+    private static final String NOTIFY_SQL = "SELECT pg_notify('" + CHANNEL + "', ?)";
+    private static final String CLOSE_SQL =
+            "WITH due AS (DELETE FROM deadline_jobs WHERE id IN (:ids) AND fire_at <= :now RETURNING assignment_id) " +
+                    "UPDATE assignments a SET closed = TRUE FROM due " +
+                    "WHERE a.id = due.assignment_id AND a.closed = FALSE RETURNING a.classroom_id";
+    // Ids come from the pooled sequence directly; see migrations/003_pooled_id_sequences.sql.
+    private static final String REMIND_SQL =
+            "WITH due AS (DELETE FROM deadline_jobs WHERE id IN (:ids) AND fire_at <= :now RETURNING assignment_id) " +
+                    "INSERT INTO announcements (id, classroom_id, author_id, title, content, created_at) " +
+                    "SELECT nextval('announcements_id_seq'), a.classroom_id, a.created_by, " +
+                    "LEFT('Due soon: ' || a.title, 255), " +
+                    "'\"' || a.title || '\" is due in ' || :lead || '. Remember to submit before the deadline.', now() " +
+                    "FROM assignments a JOIN due ON a.id = due.assignment_id " +
+                    "WHERE a.closed = FALSE AND a.due_date > :now RETURNING classroom_id";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClassroomVersionService classroomVersionService;
+    private final long tickMs;
+    private final Duration reminderLead;
+    private final Duration retryDelay;
+    private final TimingWheel<Timer> wheel;
+    private final Thread ticker;
+    // Tags this instance's notifications so it does not arm its own timers twice.
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean running = true;
+    // Opened in onStartup, then only touched by the ticker thread.
+    private Connection listener;
+
+    public DeadlineScheduler(DataSource dataSource,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ClassroomVersionService classroomVersionService,
+                             @Value("${app.deadlines.tick:PT1S}") Duration tick,
+                             @Value("${app.deadlines.wheel-size:64}") int wheelSize,
+                             @Value("${app.deadlines.reminder-lead:PT24H}") Duration reminderLead,
+                             @Value("${app.deadlines.retry-delay:PT1M}") Duration retryDelay) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.classroomVersionService = classroomVersionService;
+        this.tickMs = tick.toMillis();
+        this.reminderLead = reminderLead;
+        this.retryDelay = retryDelay;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        this.ticker = new Thread(this::run, "deadline-scheduler");
+        this.ticker.setDaemon(true);
+    }
+
+    /**
+     * Loads every pending job into the wheel and starts the clock. Jobs that came due
+     * while the application was down fire on the first tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        // Listen first, so a job scheduled elsewhere while the table is loading is not missed.
+        listen();
+        loadPending();
+        ticker.start();
+    }
+
+    /**
+     * Arms a timer for every row in the table. A timer that is already in the wheel gets
+     * a second one; whichever fires first deletes the row and the other does nothing.
+     */
+    private void loadPending() {
+        int[] loaded = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(LOAD_SQL);
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                enqueue(new Timer(rs.getLong("id"), DeadlineJob.Type.valueOf(rs.getString("job_type")),
+                        rs.getTimestamp("fire_at").getTime()));
+                loaded[0]++;
+            }));
+            log.info("Loaded {} pending deadline jobs", loaded[0]);
+        } catch (RuntimeException ex) {
+            log.error("Could not load pending deadline jobs; only newly scheduled deadlines will fire", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        ticker.interrupt();
+        ticker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * (Re)schedules the deadline jobs for an assignment from its current due date. Joins
+     * the caller's transaction; the timers are armed only once it commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void schedule(Assignment assignment) {
+        Long assignmentId = assignment.getId();
+        LocalDateTime dueDate = assignment.getDueDate();
+        if (dueDate == null) {
+            jdbcTemplate.update("DELETE FROM deadline_jobs WHERE assignment_id = ?", assignmentId);
+            return;
+        }
+
+        List<Timer> timers = new ArrayList<>(2);
+        timers.add(upsert(DeadlineJob.Type.CLOSE, assignmentId, dueDate));
+        LocalDateTime remindAt = dueDate.minus(reminderLead);
+        if (remindAt.isAfter(LocalDateTime.now())) {
+            timers.add(upsert(DeadlineJob.Type.REMINDER, assignmentId, remindAt));
+        } else {
+            jdbcTemplate.update("DELETE FROM deadline_jobs WHERE job_type = ? AND assignment_id = ?",
+                    DeadlineJob.Type.REMINDER.name(), assignmentId);
+        }
+
+        for (Timer timer : timers) {
+            jdbcTemplate.query(NOTIFY_SQL, (RowCallbackHandler) rs -> {
+            }, instanceId + " " + timer.jobId + " " + timer.type.name() + " " + timer.fireAtMs);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                timers.forEach(DeadlineScheduler.this::enqueue);
+            }
+        });
+    }
+
+    public int pendingTimers() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private Timer upsert(DeadlineJob.Type type, Long assignmentId, LocalDateTime fireAt) {
+        Timestamp at = Timestamp.valueOf(fireAt);
+        Long jobId = jdbcTemplate.queryForObject(UPSERT_SQL, Long.class, type.name(), assignmentId, at);
+        return new Timer(jobId, type, at.getTime());
+    }
+
+    private void enqueue(Timer timer) {
+        synchronized (wheel) {
+            // An already-due timer goes into the current slot and fires on the next tick.
+            wheel.add(Math.max(timer.fireAtMs, System.currentTimeMillis()), timer);
+        }
+    }
+
+    /**
+     * Arms the timer for a job another instance scheduled. The payload is
+     * "instance jobId type fireAtMs", as sent by {@link #schedule}.
+     */
+    void onNotification(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts.length != 4 || parts[0].equals(instanceId)) {
+            return;
+        }
+        try {
+            enqueue(new Timer(Long.parseLong(parts[1]), DeadlineJob.Type.valueOf(parts[2]),
+                    Long.parseLong(parts[3])));
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring malformed deadline notification: {}", payload);
+        }
+    }
+
+    /** Advances the wheel to {@code nowMs} and fires whatever expired. */
+    void tick(long nowMs) {
+        List<Timer> expired = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(nowMs, expired::add);
+        }
+        // Bounded so a backlog after downtime does not become one huge IN list.
+        for (int from = 0; from < expired.size(); from += FIRE_CHUNK) {
+            fire(expired.subList(from, Math.min(from + FIRE_CHUNK, expired.size())));
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                awaitTick();
+                tick(System.currentTimeMillis());
+            }
+        } catch (InterruptedException ex) {
+            // Shutdown requested.
+        } finally {
+            closeListener();
+        }
+    }
+
+    /**
+     * Waits one tick, arming timers for any jobs other instances schedule meanwhile.
+     */
+    private void awaitTick() throws InterruptedException {
+        if (listener == null) {
+            if (!listen()) {
+                Thread.sleep(tickMs);
+                return;
+            }
+            loadPending();
+        }
+        try {
+            PGNotification[] notifications = listener.unwrap(PGConnection.class).getNotifications((int) tickMs);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    onNotification(notification.getParameter());
+                }
+            }
+        } catch (SQLException ex) {
+            log.warn("Lost the deadline listener connection, reconnecting: {}", ex.getMessage());
+            closeListener();
+            Thread.sleep(tickMs);
+        }
+    }
+
+    private boolean listen() {
+        Connection con = null;
+        try {
+            con = dataSource.getConnection();
+            try (Statement statement = con.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+            }
+            listener = con;
+            return true;
+        } catch (SQLException ex) {
+            log.warn("Could not listen for deadline jobs scheduled by other instances: {}", ex.getMessage());
+            if (con != null) {
+                try {
+                    con.close();
+                } catch (SQLException closeEx) {
+                    log.debug("Closing the deadline listener connection failed", closeEx);
+                }
+            }
+            return false;
+        }
+    }
+
+    private void closeListener() {
+        if (listener == null) {
+            return;
+        }
+        // Back in the pool the connection would keep receiving notifications.
+        try (Connection con = listener; Statement statement = con.createStatement()) {
+            statement.execute("UNLISTEN *");
+        } catch (SQLException ex) {
+            log.debug("Closing the deadline listener connection failed", ex);
+        } finally {
+            listener = null;
+        }
+    }
+
+    private void fire(List<Timer> expired) {
+        List<Long> closeIds = new ArrayList<>();
+        List<Long> reminderIds = new ArrayList<>();
+        for (Timer timer : expired) {
+            (timer.type == DeadlineJob.Type.CLOSE ? closeIds : reminderIds).add(timer.jobId);
+        }
+        try {
+            Set<Long> closedIn = new HashSet<>();
+            Set<Long> remindedIn = new HashSet<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                if (!closeIds.isEmpty()) {
+                    closedIn.addAll(namedJdbcTemplate.queryForList(CLOSE_SQL, new MapSqlParameterSource()
+                            .addValue("ids", closeIds)
+                            .addValue("now", now), Long.class));
+                }
+                if (!reminderIds.isEmpty()) {
+                    remindedIn.addAll(namedJdbcTemplate.queryForList(REMIND_SQL, new MapSqlParameterSource()
+                            .addValue("ids", reminderIds)
+                            .addValue("now", now)
+                            .addValue("lead", describe(reminderLead)), Long.class));
+                }
+                closedIn.forEach(id -> classroomVersionService.bump(ClassroomVersionService.Resource.ASSIGNMENTS, id));
+                remindedIn.forEach(id ->
+                        classroomVersionService.bump(ClassroomVersionService.Resource.ANNOUNCEMENTS, id));
+            });
+            if (!closedIn.isEmpty() || !remindedIn.isEmpty()) {
+                log.info("Deadline jobs fired: closed assignments in {} classrooms, reminders in {} classrooms",
+                        closedIn.size(), remindedIn.size());
+            }
+        } catch (RuntimeException ex) {
+            // Rows are still in the table; try again shortly rather than waiting for a restart.
+            log.warn("Firing {} deadline jobs failed, retrying in {}: {}", expired.size(), retryDelay, ex.getMessage());
+            long retryAt = System.currentTimeMillis() + retryDelay.toMillis();
+            synchronized (wheel) {
+                expired.forEach(timer -> wheel.add(retryAt, timer));
+            }
+        }
+    }
+
+    private static String describe(Duration lead) {
+        long hours = lead.toHours();
+        if (hours > 0 && lead.equals(Duration.ofHours(hours))) {
+            return hours == 1 ? "1 hour" : hours + " hours";
+        }
+        long minutes = Math.max(1, lead.toMinutes());
+        return minutes == 1 ? "1 minute" : minutes + " minutes";
+    }
+
+    private record Timer(long jobId, DeadlineJob.Type type, long fireAtMs) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.service.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Moves files stored in older layouts into the storage backend of
+ * {@link FileStorageService}, online and one file at a time.
+ * <p>
+ * Two passes run on a background thread after startup, with a short pause per file:
+ * flat blobs ({@code blobs/<sha>}) are put under their fan-out key, and files stored flat
+ * under their URL name (from before blobs existed) are hashed, given a
+ * {@code stored_files} row and put under their blob's key. With the local backend both
+ * are renames, through a hard link for legacy files, so no bytes are copied. Each file
+ * is switched over in one transaction that holds the blob's row lock, so uploads and
+ * deletes of the same content wait for it; the old path keeps serving until the switch
+ * commits and the new one serves from then on. A legacy file is only removed after its row has committed,
+ * so a crash at any point leaves it readable and the next run finishes the job. Both
+ * passes are cheap no-ops once nothing is left, and safe to run on several instances.
+ */
+@Service
+public class FileLayoutMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(FileLayoutMigrator.class);
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String LOCK_BLOB_SQL = "SELECT sha256 FROM file_blobs WHERE sha256 = ? FOR UPDATE";
+    // Takes the row lock even when the blob already exists; the count is raised only if the name is new.
+    private static final String ENSURE_BLOB_SQL =
+            "INSERT INTO file_blobs (sha256, size_bytes, ref_count, created_at) VALUES (?, ?, 0, now()) " +
+                    "ON CONFLICT (sha256) DO UPDATE SET ref_count = file_blobs.ref_count";
+    private static final String INSERT_LEGACY_FILE_SQL =
+            "INSERT INTO stored_files (name, blob_sha256, size_bytes, content_type, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?) ON CONFLICT (name) DO NOTHING";
+    private static final String ADD_REF_SQL = "UPDATE file_blobs SET ref_count = ref_count + 1 WHERE sha256 = ?";
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long pauseMs;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public FileLayoutMigrator(FileStorageService fileStorageService,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.files.migration.enabled:true}") boolean enabled,
+                              @Value("${app.files.migration.pause:PT0.01S}") Duration pause) {
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.pauseMs = pause.toMillis();
+        this.worker = new Thread(this::run, "file-layout-migrator");
+        this.worker.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        try {
+            int blobs = migrateFlatBlobs();
+            int legacy = migrateLegacyFiles();
+            if (blobs > 0 || legacy > 0) {
+                log.info("Moved {} flat blobs and {} legacy files into storage", blobs, legacy);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("File layout migration stopped: {}", ex.getMessage());
+        }
+    }
+
+    int migrateFlatBlobs() throws IOException, InterruptedException {
+        int moved = 0;
+        for (Path flat : regularFiles(fileStorageService.getBlobLocation())) {
+            String sha256 = flat.getFileName().toString();
+            if (!running) {
+                break;
+            }
+            if (!SHA256.matcher(sha256).matches()) {
+                continue;
+            }
+            try {
+                Boolean done = transactionTemplate.execute(status -> {
+                    if (jdbcTemplate.queryForList(LOCK_BLOB_SQL, String.class, sha256).isEmpty()) {
+                        // No row: an upload from an older build that never committed.
+                        return false;
+                    }
+                    moveIntoPlace(flat, FileStorageService.blobKey(sha256));
+                    return true;
+                });
+                if (Boolean.TRUE.equals(done)) {
+                    moved++;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Could not move blob {}: {}", sha256, ex.getMessage());
+            }
+            Thread.sleep(pauseMs);
+        }
+        return moved;
+    }
+
+    int migrateLegacyFiles() throws IOException, InterruptedException {
+        int migrated = 0;
+        for (Path legacy : regularFiles(fileStorageService.getStorageLocation())) {
+            if (!running) {
+                break;
+            }
+            try {
+                if (migrateLegacyFile(legacy)) {
+                    migrated++;
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not migrate {}: {}", legacy.getFileName(), ex.getMessage());
+            }
+            Thread.sleep(pauseMs);
+        }
+        return migrated;
+    }
+
+    private boolean migrateLegacyFile(Path legacy) throws IOException {
+        String name = legacy.getFileName().toString();
+        BasicFileAttributes attributes = Files.readAttributes(legacy, BasicFileAttributes.class);
+        String sha256;
+        try (InputStream in = Files.newInputStream(legacy)) {
+            sha256 = FileStorageService.sha256(in);
+        }
+        String contentType = MediaTypeFactory.getMediaType(name).map(MediaType::toString).orElse(null);
+
+        Boolean inserted = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(ENSURE_BLOB_SQL, sha256, attributes.size());
+            if (jdbcTemplate.update(INSERT_LEGACY_FILE_SQL, name, sha256, attributes.size(), contentType,
+                    Timestamp.from(attributes.lastModifiedTime().toInstant())) == 0) {
+                // Already migrated, by an earlier run or another instance.
+                status.setRollbackOnly();
+                return false;
+            }
+            jdbcTemplate.update(ADD_REF_SQL, sha256);
+            putLinked(legacy, FileStorageService.blobKey(sha256));
+            return true;
+        });
+
+        // Readers resolve through the committed row now; the old name is no longer needed.
+        if (jdbcTemplate.queryForList("SELECT name FROM stored_files WHERE name = ?", String.class, name).isEmpty()) {
+            return false;
+        }
+        Files.deleteIfExists(legacy);
+        return Boolean.TRUE.equals(inserted);
+    }
+
+    // The backend may move what it is given, so it gets a hard link (sharing the data
+    // blocks, no bytes copied) and the legacy name keeps serving until the commit. Copies
+    // where links are unsupported.
+    private void putLinked(Path legacy, String key) {
+        StorageBackend backend = fileStorageService.getStorageBackend();
+        Path temp = fileStorageService.getTempLocation().resolve(UUID.randomUUID().toString());
+        try {
+            if (backend.exists(key)) {
+                return;
+            }
+            try {
+                Files.createLink(temp, legacy);
+            } catch (UnsupportedOperationException | IOException ex) {
+                Files.copy(legacy, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            backend.putFile(key, temp);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Best effort; a leftover file in tmp/ is harmless.
+            }
+        }
+    }
+
+    private void moveIntoPlace(Path flat, String key) {
+        try {
+            StorageBackend backend = fileStorageService.getStorageBackend();
+            if (!backend.exists(key) || backend.localFile(key).filter(flat::equals).isPresent()) {
+                backend.putFile(key, flat);
+            }
+            Files.deleteIfExists(flat);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Snapshot of the plain files directly in a directory; subdirectories are skipped.
+    private static List<Path> regularFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+}
@@ -1,68 +1,416 @@
 package com.smartclassroom.backend.service;
 
+import com.smartclassroom.backend.dto.file.StorageUsageDTO;
+import com.smartclassroom.backend.dto.file.StoredFileDTO;
+import com.smartclassroom.backend.repository.StoredFileRepository;
+import com.smartclassroom.backend.service.storage.LocalStorageBackend;
+import com.smartclassroom.backend.service.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
+/**
+ * Content-addressed file storage.
+ * <p>
+ * Each distinct content is stored once, as a blob named by its SHA-256, with a row in
+ * {@code file_blobs} counting the {@code stored_files} rows (the names in download URLs)
+ * that point at it. Blobs are kept by the configured {@link StorageBackend} under a
+ * two-level fan-out key ({@code ab/cd/abcd...}) so no directory grows past a few thousand
+ * entries. An upload is hashed while it is read from the container's multipart spool; if
+ * the blob is already stored nothing is written, otherwise the spooled part is handed to
+ * the backend. Blobs are written before, not inside, the transaction that records the
+ * upload, so no database locks are held while bytes move. A blob whose last reference
+ * goes away, or whose upload never committed, is left with {@code ref_count = 0} and an
+ * {@code orphaned_at} time; {@link #sweepOrphanedBlobs()} deletes it once it has stayed
+ * unreferenced for the grace period. PDFs are then queued with
+ * {@link PdfPreviewService} for thumbnails and page previews. {@code stored_files} also
+ * records each upload's owner, size, content type and original name, so listings and
+ * usage never touch storage. Files stored flat under their URL name before blobs existed
+ * keep resolving from the upload directory until {@link FileLayoutMigrator} has moved
+ * them.
+ */
 @Service
 public class FileStorageService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
+    private static final String DOWNLOAD_PATH = "/api/files/";
+    private static final Pattern EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{1,16}");
+    private static final int MAX_PAGE = 200;
+
+    // Registers a blob about to be written, or restarts the grace period of an unreferenced
+    // one, so the sweeper leaves it alone until the upload has recorded its reference.
+    private static final String RESERVE_BLOB_SQL =
+            "INSERT INTO file_blobs (sha256, size_bytes, ref_count, created_at, orphaned_at) " +
+                    "VALUES (?, ?, 0, now(), now()) " +
+                    "ON CONFLICT (sha256) DO UPDATE SET orphaned_at = now() WHERE file_blobs.ref_count = 0";
+    static final String ADD_REF_SQL =
+            "INSERT INTO file_blobs (sha256, size_bytes, ref_count, created_at) VALUES (?, ?, 1, now()) " +
+                    "ON CONFLICT (sha256) DO UPDATE SET ref_count = file_blobs.ref_count + 1, orphaned_at = NULL";
+    private static final String FIND_ORPHANS_SQL =
+            "SELECT sha256 FROM file_blobs WHERE ref_count = 0 AND orphaned_at < ? LIMIT ?";
+    private static final String DELETE_ORPHAN_SQL =
+            "DELETE FROM file_blobs WHERE sha256 = ? AND ref_count = 0 AND orphaned_at < ?";
+    private static final int SWEEP_BATCH = 100;
+    static final String INSERT_FILE_SQL =
+            "INSERT INTO stored_files (name, blob_sha256, owner_id, size_bytes, content_type, original_name, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, now())";
+    private static final String RESOLVE_SQL =
+            "SELECT blob_sha256, size_bytes, content_type, original_name, created_at FROM stored_files WHERE name = ?";
+
     private final Path storageLocation;
+    private final Path blobLocation;
+    private final Path tempLocation;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StoredFileRepository storedFileRepository;
+    private final StorageBackend storageBackend;
+    private final PdfPreviewService pdfPreviewService;
+    private final Duration orphanGrace;
 
-    public FileStorageService(@Value("${file.upload-dir:uploads}") String uploadDir) {
+    public FileStorageService(@Value("${file.upload-dir:uploads}") String uploadDir,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              StoredFileRepository storedFileRepository,
+                              StorageBackend storageBackend,
+                              PdfPreviewService pdfPreviewService,
+                              @Value("${app.files.orphan-grace:PT1H}") Duration orphanGrace) {
         this.storageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.blobLocation = storageLocation.resolve("blobs");
+        this.tempLocation = storageLocation.resolve("tmp");
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.storedFileRepository = storedFileRepository;
+        this.storageBackend = storageBackend;
+        this.pdfPreviewService = pdfPreviewService;
+        this.orphanGrace = orphanGrace;
         try {
-            Files.createDirectories(this.storageLocation);
+            Files.createDirectories(this.blobLocation);
+            Files.createDirectories(this.tempLocation);
         } catch (IOException ex) {
             throw new RuntimeException("Could not create upload directory", ex);
         }
     }
 
-    public String storeFile(MultipartFile file) {
-        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
+    /**
+     * @param ownerId the uploading user, or null if unknown
+     */
+    public String storeFile(MultipartFile file, Long ownerId) {
+        return store(file.getOriginalFilename(), file.getContentType(), file.getSize(), ownerId, new BlobSource() {
+            @Override
+            public InputStream open() throws IOException {
+                return file.getInputStream();
+            }
+
+            // The spooled part goes to the backend from a temporary file, which a local
+            // backend simply renames into place.
+            @Override
+            public void putInto(String key) throws IOException {
+                Path temp = tempLocation.resolve(UUID.randomUUID().toString());
+                try {
+                    file.transferTo(temp);
+                    storageBackend.putFile(key, temp);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stores a file already on local disk, such as a completed resumable upload. The
+     * backend may move {@code source} into place; callers delete it if it is still there.
+     */
+    public String storeFile(Path source, String originalFilename, String clientContentType, Long ownerId) {
+        long size;
+        try {
+            size = Files.size(source);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file", ex);
+        }
+        return store(originalFilename, clientContentType, size, ownerId, new BlobSource() {
+            @Override
+            public InputStream open() throws IOException {
+                return Files.newInputStream(source);
+            }
+
+            @Override
+            public void putInto(String key) throws IOException {
+                storageBackend.putFile(key, source);
+            }
+        });
+    }
+
+    private interface BlobSource {
+        InputStream open() throws IOException;
+
+        void putInto(String key) throws IOException;
+    }
+
+    private String store(String filename, String clientContentType, long size, Long ownerId, BlobSource source) {
+        String originalFilename = filename == null ? null : StringUtils.cleanPath(filename);
         if (originalFilename == null || originalFilename.isBlank()) {
             throw new RuntimeException("File name is invalid");
         }
 
         String extension = "";
         int dotIndex = originalFilename.lastIndexOf('.');
-        if (dotIndex >= 0) {
+        if (dotIndex >= 0 && EXTENSION.matcher(originalFilename.substring(dotIndex)).matches()) {
             extension = originalFilename.substring(dotIndex);
         }
 
         String newFilename = UUID.randomUUID() + extension;
+        String contentType = MediaTypeFactory.getMediaType(originalFilename)
+                .map(MediaType::toString)
+                .orElse(clientContentType);
+        String originalName = originalFilename.length() > 255 ? originalFilename.substring(0, 255) : originalFilename;
 
         try {
-            Path targetLocation = this.storageLocation.resolve(newFilename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String sha256;
+            try (InputStream in = source.open()) {
+                sha256 = sha256(in);
+            }
+            // Waits for a sweep of this blob that is already under way, then keeps the next
+            // one off it, so the blob checked for below is still there at commit.
+            jdbcTemplate.update(RESERVE_BLOB_SQL, sha256, size);
+            String key = blobKey(sha256);
+            if (!storageBackend.exists(key)) {
+                source.putInto(key);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(ADD_REF_SQL, sha256, size);
+                jdbcTemplate.update(INSERT_FILE_SQL, newFilename, sha256, ownerId, size, contentType, originalName);
+            });
+            if (MediaType.APPLICATION_PDF_VALUE.equals(contentType)) {
+                pdfPreviewService.enqueue(sha256);
+            }
             return newFilename;
-        } catch (IOException ex) {
+        } catch (IOException | UncheckedIOException ex) {
             throw new RuntimeException("Could not store file", ex);
         }
     }
 
-    public Resource loadFileAsResource(String filename) {
-        try {
-            Path filePath = this.storageLocation.resolve(filename).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new RuntimeException("File not found");
+    /**
+     * Removes a stored file. A blob left without references is deleted by the next sweep
+     * after the grace period.
+     */
+    public void deleteFile(String name) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> blobs = jdbcTemplate.queryForList(
+                    "DELETE FROM stored_files WHERE name = ? RETURNING blob_sha256", String.class, name);
+            if (blobs.isEmpty()) {
+                return;
             }
-        } catch (MalformedURLException ex) {
-            throw new RuntimeException("File not found", ex);
+            jdbcTemplate.update("UPDATE file_blobs SET ref_count = ref_count - 1, " +
+                    "orphaned_at = CASE WHEN ref_count <= 1 THEN now() ELSE orphaned_at END WHERE sha256 = ?",
+                    blobs.get(0));
+        });
+    }
+
+    /**
+     * Deletes blobs that have had no references for the grace period: the content of
+     * deleted files, and blobs written by uploads that failed before recording themselves.
+     * Each blob is removed from storage while its row is locked, so an upload of the same
+     * content waits and then writes it again. Safe to run on several instances.
+     */
+    @Scheduled(fixedDelayString = "${app.files.sweep-interval:PT10M}")
+    public void sweepOrphanedBlobs() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(orphanGrace));
+        int removed = 0;
+        int batchRemoved;
+        List<String> orphans;
+        do {
+            orphans = jdbcTemplate.queryForList(FIND_ORPHANS_SQL, String.class, cutoff, SWEEP_BATCH);
+            batchRemoved = 0;
+            for (String sha256 : orphans) {
+                try {
+                    Boolean deleted = transactionTemplate.execute(status -> {
+                        if (jdbcTemplate.update(DELETE_ORPHAN_SQL, sha256, cutoff) == 0) {
+                            // Referenced again, or swept by another instance.
+                            return false;
+                        }
+                        try {
+                            storageBackend.delete(blobKey(sha256));
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        return true;
+                    });
+                    if (Boolean.TRUE.equals(deleted)) {
+                        pdfPreviewService.evict(sha256);
+                        batchRemoved++;
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("Could not delete orphaned blob {}: {}", sha256, ex.getMessage());
+                }
+            }
+            removed += batchRemoved;
+        } while (orphans.size() == SWEEP_BATCH && batchRemoved > 0);
+        if (removed > 0) {
+            log.info("Deleted {} orphaned blobs", removed);
+        }
+    }
+
+    public List<StoredFileDTO> listFiles(Long ownerId, LocalDateTime before, int limit) {
+        return storedFileRepository.findPageByOwner(ownerId, before != null ? before : LocalDateTime.now().plusDays(1),
+                PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE))));
+    }
+
+    public StorageUsageDTO usage(Long ownerId) {
+        return storedFileRepository.usageByOwner(ownerId);
+    }
+
+    /**
+     * Resolves a stored file from its name or from the download URL handed out by
+     * {@code /api/files/upload}. Empty if the reference is not a file in this storage
+     * (an external link, a missing file, or a path escaping the upload directory).
+     */
+    public Optional<ResolvedFile> resolveStoredFile(String reference) {
+        if (reference == null || reference.isBlank()) {
+            return Optional.empty();
+        }
+        String filename = reference;
+        int marker = reference.lastIndexOf(DOWNLOAD_PATH);
+        if (marker >= 0) {
+            filename = reference.substring(marker + DOWNLOAD_PATH.length());
+        } else if (reference.contains("://")) {
+            return Optional.empty();
+        }
+        int query = filename.indexOf('?');
+        if (query >= 0) {
+            filename = filename.substring(0, query);
+        }
+
+        List<ResolvedFile> rows = jdbcTemplate.query(RESOLVE_SQL, (rs, rowNum) -> {
+            String sha256 = rs.getString("blob_sha256");
+            // Content never changes under a name, so its hash is a strong validator.
+            return new ResolvedFile(blobKey(sha256), null, rs.getLong("size_bytes"),
+                    rs.getTimestamp("created_at").getTime(), "\"" + sha256 + "\"",
+                    rs.getString("original_name"), rs.getString("content_type"));
+        }, filename);
+        if (!rows.isEmpty()) {
+            return Optional.of(rows.get(0));
+        }
+
+        // Not yet moved by FileLayoutMigrator.
+        Path legacy = legacyPath(filename);
+        if (!legacy.startsWith(this.storageLocation) || !Files.isRegularFile(legacy) || !Files.isReadable(legacy)) {
+            return Optional.empty();
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(legacy, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            return Optional.of(new ResolvedFile(null, legacy, attributes.size(), lastModified,
+                    "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"",
+                    null, null));
+        } catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The file's content as a local file, for zero-copy sends, or empty if the storage
+     * backend keeps no local copy.
+     */
+    public Optional<Path> localFile(ResolvedFile file) throws IOException {
+        return file.legacyPath() != null ? Optional.of(file.legacyPath()) : storageBackend.localFile(file.blobKey());
+    }
+
+    /**
+     * Streams {@code length} bytes of the file starting at {@code start}.
+     */
+    public InputStream open(ResolvedFile file, long start, long length) throws IOException {
+        if (file.legacyPath() != null) {
+            InputStream in = Files.newInputStream(file.legacyPath());
+            in.skipNBytes(start);
+            return new LocalStorageBackend.LimitedInputStream(in, length);
+        }
+        return storageBackend.getRange(file.blobKey(), start, length);
+    }
+
+    /**
+     * The backend key of a blob: {@code ab/cd/abcd...}.
+     */
+    static String blobKey(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    // Where files lived before blobs existed: flat, under their URL name.
+    Path legacyPath(String filename) {
+        return storageLocation.resolve(filename).normalize();
+    }
+
+    Path getStorageLocation() {
+        return storageLocation;
+    }
+
+    // Where blobs lived, flat, before the fan-out layout and storage backends.
+    Path getBlobLocation() {
+        return blobLocation;
+    }
+
+    Path getTempLocation() {
+        return tempLocation;
+    }
+
+    StorageBackend getStorageBackend() {
+        return storageBackend;
+    }
+
+    /**
+     * A resolved file: a blob in the storage backend, or a legacy file at
+     * {@code legacyPath}. {@code originalName} and {@code contentType} are null for files
+     * stored before they were recorded.
+     */
+    public record ResolvedFile(String blobKey, Path legacyPath, long size, long lastModified, String etag,
+                               String originalName, String contentType) {
+
+        // The blob's hash, or null for a legacy file.
+        public String sha256() {
+            return blobKey == null ? null : blobKey.substring(blobKey.lastIndexOf('/') + 1);
+        }
+    }
+
+    static String sha256(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        try (DigestInputStream digesting = new DigestInputStream(in, digest)) {
+            digesting.transferTo(OutputStream.nullOutputStream());
         }
+        return HexFormat.of().formatHex(digest.digest());
     }
 }
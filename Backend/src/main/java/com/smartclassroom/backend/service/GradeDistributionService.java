@@ -0,0 +1,286 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.GradeDistributionDTO;
+import com.smartclassroom.backend.dto.assignment.MarkCountView;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.repository.AssignmentMarkCountRepository;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import com.smartclassroom.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Grade distributions (histogram, mean, median and percentiles) for an assignment, a
+ * classroom or all of a teacher's classrooms.
+ * <p>
+ * Each assignment keeps a count per distinct mark, updated atomically in the grading
+ * transaction. Because marks are integers, these counts are an exact histogram that also
+ * supports regrades (a count goes down as well as up) and merges by simple addition. A
+ * distribution is computed from at most one row per (assignment, mark), never from
+ * submission rows. Merged distributions put every assignment on a 0-100 scale (percent
+ * of its max marks); assignments without max marks are left out of them. Only the teacher
+ * who owns the assignment, classroom or teacher scope may read its distribution.
+ */
+@Service
+public class GradeDistributionService {
+
+    private static final Logger log = LoggerFactory.getLogger(GradeDistributionService.class);
+
+    private static final int MAX_BUCKETS = 100;
+    private static final double PERCENT_SCALE = 100.0;
+    // Arbitrary key for pg_try_advisory_xact_lock so only one node repairs at a time.
+    private static final long REPAIR_LOCK_KEY = 0x67726164L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AssignmentMarkCountRepository markCountRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ClassroomRepository classroomRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate repairTransaction;
+    private final int repairBatchSize;
+
+    public GradeDistributionService(JdbcTemplate jdbcTemplate,
+                                    AssignmentMarkCountRepository markCountRepository,
+                                    AssignmentRepository assignmentRepository,
+                                    ClassroomRepository classroomRepository,
+                                    UserRepository userRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.grade-distribution.repair-batch-size:500}") int repairBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.markCountRepository = markCountRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.classroomRepository = classroomRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.repairBatchSize = repairBatchSize;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void gradeChanged(Long assignmentId, Integer oldMarks, Integer newMarks) {
+        if (Objects.equals(oldMarks, newMarks)) {
+            return;
+        }
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        addChange(deltas, oldMarks, newMarks);
+        marksChanged(assignmentId, deltas);
+    }
+
+    /**
+     * Records one grade change in a per-mark delta map, for callers grading in bulk.
+     */
+    public static void addChange(Map<Integer, Integer> deltas, Integer oldMarks, Integer newMarks) {
+        if (oldMarks != null) {
+            deltas.merge(oldMarks, -1, Integer::sum);
+        }
+        if (newMarks != null) {
+            deltas.merge(newMarks, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Applies per-mark count changes, one statement per distinct mark. Marks are applied
+     * in ascending order so concurrent batches lock rows in the same order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void marksChanged(Long assignmentId, Map<Integer, Integer> deltas) {
+        boolean decreased = false;
+        for (Map.Entry<Integer, Integer> delta : new TreeMap<>(deltas).entrySet()) {
+            if (delta.getValue() != 0) {
+                markCountRepository.applyDelta(assignmentId, delta.getKey(), delta.getValue());
+                decreased |= delta.getValue() < 0;
+            }
+        }
+        if (decreased) {
+            markCountRepository.deleteEmpty(assignmentId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assignmentDeleted(Long assignmentId) {
+        markCountRepository.deleteByAssignmentId(assignmentId);
+    }
+
+    public GradeDistributionDTO forAssignment(Long assignmentId, Long requesterId, int buckets) {
+        Long teacherId = assignmentRepository.findActiveTeacherIdById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id " + assignmentId));
+        verifyTeacher(teacherId, requesterId);
+        List<Integer> maxMarks = assignmentRepository.findMaxMarksById(assignmentId);
+        if (maxMarks.isEmpty()) {
+            throw new ResourceNotFoundException("Assignment not found with id " + assignmentId);
+        }
+        List<MarkCountView> counts = markCountRepository.findByAssignment(assignmentId);
+        Integer max = maxMarks.get(0);
+        double scale;
+        if (max != null && max > 0) {
+            scale = max;
+        } else {
+            // No declared maximum: scale to the highest mark given so far.
+            scale = Math.max(1, counts.stream().mapToInt(MarkCountView::getMarks).max().orElse(1));
+        }
+        List<double[]> points = new ArrayList<>(counts.size());
+        for (MarkCountView count : counts) {
+            points.add(new double[]{count.getMarks(), count.getSubmissionCount()});
+        }
+        return build("ASSIGNMENT", assignmentId, 1, scale, points, buckets);
+    }
+
+    public GradeDistributionDTO forClassroom(Long classroomId, Long requesterId, int buckets) {
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
+        verifyTeacher(classroom.getTeacher().getId(), requesterId);
+        return merged("CLASSROOM", classroomId, markCountRepository.findByClassroom(classroomId), buckets);
+    }
+
+    public GradeDistributionDTO forTeacher(Long teacherId, Long requesterId, int buckets) {
+        verifyTeacher(teacherId, requesterId);
+        if (!userRepository.existsById(teacherId)) {
+            throw new ResourceNotFoundException("User not found with id " + teacherId);
+        }
+        return merged("TEACHER", teacherId, markCountRepository.findByTeacher(teacherId), buckets);
+    }
+
+    private static void verifyTeacher(Long teacherId, Long requesterId) {
+        if (!teacherId.equals(requesterId)) {
+            throw new BadRequestException("Only the teacher can view these grade statistics");
+        }
+    }
+
+    /**
+     * Recomputes every assignment's counts from its submissions to correct any drift, one
+     * short transaction per assignment. The run holds an advisory lock in an outer
+     * transaction, so when several instances fire the cron only one repairs; two repairs
+     * of the same assignment at once could each insert a full set of counts.
+     */
+    @Scheduled(cron = "${app.grade-distribution.repair-cron:0 50 3 * * *}")
+    public void repairAll() {
+        Integer repaired = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, REPAIR_LOCK_KEY);
+            return Boolean.TRUE.equals(locked) ? repairEach() : null;
+        });
+        if (repaired == null) {
+            log.info("Grade distribution repair is running on another instance; skipped");
+        } else {
+            log.info("Recomputed grade distributions for {} assignments", repaired);
+        }
+    }
+
+    private int repairEach() {
+        long afterId = 0;
+        int repaired = 0;
+        List<Long> ids;
+        do {
+            ids = assignmentRepository.findIdsAfter(afterId, repairBatchSize);
+            for (Long id : ids) {
+                try {
+                    repairTransaction.executeWithoutResult(status -> {
+                        // A grade committed before the insert below is counted by it; one still in
+                        // flight conflicts with the new rows and adds its delta on top.
+                        markCountRepository.deleteByAssignmentId(id);
+                        markCountRepository.insertFromSubmissions(id);
+                    });
+                    repaired++;
+                } catch (RuntimeException ex) {
+                    log.warn("Could not repair grade distribution for assignment {}: {}", id, ex.getMessage());
+                }
+                afterId = id;
+            }
+        } while (ids.size() == repairBatchSize);
+        return repaired;
+    }
+
+    private GradeDistributionDTO merged(String scope, Long scopeId, List<MarkCountView> counts, int buckets) {
+        List<double[]> points = new ArrayList<>(counts.size());
+        Set<Long> assignments = new HashSet<>();
+        for (MarkCountView count : counts) {
+            if (count.getMaxMarks() == null || count.getMaxMarks() <= 0) {
+                continue;
+            }
+            assignments.add(count.getAssignmentId());
+            points.add(new double[]{PERCENT_SCALE * count.getMarks() / count.getMaxMarks(), count.getSubmissionCount()});
+        }
+        return build(scope, scopeId, assignments.size(), PERCENT_SCALE, points, buckets);
+    }
+
+    /**
+     * @param points (value, weight) pairs; weights are submission counts
+     */
+    private GradeDistributionDTO build(String scope, Long scopeId, int assignmentCount, double scale,
+                                       List<double[]> points, int requestedBuckets) {
+        int buckets = Math.max(1, Math.min(requestedBuckets, MAX_BUCKETS));
+        points.sort(Comparator.comparingDouble(point -> point[0]));
+
+        long total = 0;
+        double sum = 0;
+        long[] histogram = new long[buckets];
+        double width = scale / buckets;
+        for (double[] point : points) {
+            long weight = (long) point[1];
+            total += weight;
+            sum += point[0] * weight;
+            int index = (int) Math.min(buckets - 1, Math.max(0, Math.floor(point[0] / width)));
+            histogram[index] += weight;
+        }
+
+        List<GradeDistributionDTO.Bucket> bucketList = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            bucketList.add(new GradeDistributionDTO.Bucket(i * width, (i + 1) * width, histogram[i]));
+        }
+        GradeDistributionDTO.GradeDistributionDTOBuilder result = GradeDistributionDTO.builder()
+                .scope(scope)
+                .scopeId(scopeId)
+                .assignmentCount(assignmentCount)
+                .scale(scale)
+                .gradedCount(total)
+                .histogram(bucketList);
+        if (total == 0) {
+            return result.build();
+        }
+        return result
+                .mean(sum / total)
+                .median(percentile(points, total, 0.5))
+                .p25(percentile(points, total, 0.25))
+                .p75(percentile(points, total, 0.75))
+                .p90(percentile(points, total, 0.9))
+                .min(points.get(0)[0])
+                .max(points.get(points.size() - 1)[0])
+                .build();
+    }
+
+    // Nearest-rank percentile over sorted, weighted points.
+    private static double percentile(List<double[]> sorted, long total, double p) {
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (double[] point : sorted) {
+            seen += (long) point[1];
+            if (seen >= rank) {
+                return point[0];
+            }
+        }
+        return sorted.get(sorted.size() - 1)[0];
+    }
+}
@@ -0,0 +1,433 @@
+package com.smartclassroom.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.model.ClassroomRole;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds a classroom's gradebook: one row per student, one column per assignment.
+ * <p>
+ * The assignment columns are read first (a small query), then every student with their
+ * submissions is read through a single forward-only cursor ordered by student. Each
+ * student's row is assembled in a reusable buffer and written to the output as soon as
+ * the cursor moves to the next student, so memory use depends on the number of
+ * assignments, not the number of students.
+ */
+@Service
+public class GradebookService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String COLUMNS_SQL =
+            "SELECT id, title, due_date, max_marks FROM assignments WHERE classroom_id = ? " +
+                    "ORDER BY due_date NULLS LAST, id";
+
+    // Students left-joined to their submissions for this classroom's assignments, grouped by student.
+    private static final String ROWS_SQL =
+            "SELECT u.id AS student_id, u.name, u.email, s.assignment_id, s.marks, s.submitted_at " +
+                    "FROM classroom_members cm " +
+                    "JOIN users u ON u.id = cm.user_id " +
+                    "LEFT JOIN assignment_submissions s ON s.student_id = u.id " +
+                    "AND s.assignment_id IN (SELECT a.id FROM assignments a WHERE a.classroom_id = ?) " +
+                    "WHERE cm.classroom_id = ? AND cm.role_in_class = ? " +
+                    "ORDER BY u.name, u.id";
+
+    public enum Format {
+        JSON("application/json", "json"),
+        CSV("text/csv", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Unsupported gradebook format: " + value);
+        }
+    }
+
+    /**
+     * Cell states, from the student's point of view at the time of export.
+     */
+    public enum CellStatus {
+        GRADED, SUBMITTED, LATE, MISSING, PENDING
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClassroomRepository classroomRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public GradebookService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ClassroomRepository classroomRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.classroomRepository = classroomRepository;
+    }
+
+    /**
+     * Only the classroom's teacher may read its gradebook. Called before the response
+     * starts streaming so errors can still be reported with a proper status.
+     */
+    public void verifyTeacher(Long classroomId, Long teacherId) {
+        Classroom classroom = classroomRepository.findActiveById(classroomId)
+                .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id " + classroomId));
+        if (!classroom.getTeacher().getId().equals(teacherId)) {
+            throw new BadRequestException("Only the classroom teacher can view the gradebook");
+        }
+    }
+
+    public void write(Long classroomId, Format format, OutputStream out) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Column> columns = loadColumns(classroomId);
+                try {
+                    Sink sink = switch (format) {
+                        case JSON -> new JsonSink(out);
+                        case CSV -> new CsvSink(out);
+                        case XLSX -> new XlsxSink(out);
+                    };
+                    sink.begin(classroomId, columns);
+                    streamRows(classroomId, columns, sink);
+                    sink.end();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private List<Column> loadColumns(Long classroomId) {
+        return jdbcTemplate.query(COLUMNS_SQL, (rs, rowNum) -> {
+            Timestamp due = rs.getTimestamp("due_date");
+            return new Column(rs.getLong("id"), rs.getString("title"),
+                    due != null ? due.toLocalDateTime() : null, rs.getObject("max_marks", Integer.class));
+        }, classroomId);
+    }
+
+    private void streamRows(Long classroomId, List<Column> columns, Sink sink) {
+        RowAssembler assembler = new RowAssembler(columns, sink, LocalDateTime.now());
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(ROWS_SQL);
+            ps.setLong(1, classroomId);
+            ps.setLong(2, classroomId);
+            ps.setString(3, ClassroomRole.STUDENT.name());
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, assembler);
+        assembler.flush();
+    }
+
+    private record Column(long id, String title, LocalDateTime dueDate, Integer maxMarks) {
+    }
+
+    /**
+     * Collects consecutive cursor rows of one student into a row buffer, emitting the
+     * row when the student changes. The buffers are reused for every student.
+     */
+    private static final class RowAssembler implements RowCallbackHandler {
+        private final List<Column> columns;
+        private final Map<Long, Integer> columnIndex = new HashMap<>();
+        private final Sink sink;
+        private final LocalDateTime now;
+        private final Integer[] marks;
+        private final CellStatus[] statuses;
+        private long studentId;
+        private String name;
+        private String email;
+        private boolean hasStudent;
+
+        private RowAssembler(List<Column> columns, Sink sink, LocalDateTime now) {
+            this.columns = columns;
+            this.sink = sink;
+            this.now = now;
+            this.marks = new Integer[columns.size()];
+            this.statuses = new CellStatus[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                columnIndex.put(columns.get(i).id(), i);
+            }
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("student_id");
+            if (!hasStudent || id != studentId) {
+                flush();
+                start(id, rs.getString("name"), rs.getString("email"));
+            }
+            long assignmentId = rs.getLong("assignment_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            Integer index = columnIndex.get(assignmentId);
+            if (index == null) {
+                // Assignment created after the columns were read.
+                return;
+            }
+            int mark = rs.getInt("marks");
+            marks[index] = rs.wasNull() ? null : mark;
+            Timestamp submittedAt = rs.getTimestamp("submitted_at");
+            LocalDateTime dueDate = columns.get(index).dueDate();
+            if (marks[index] != null) {
+                statuses[index] = CellStatus.GRADED;
+            } else if (dueDate != null && submittedAt != null && submittedAt.toLocalDateTime().isAfter(dueDate)) {
+                statuses[index] = CellStatus.LATE;
+            } else {
+                statuses[index] = CellStatus.SUBMITTED;
+            }
+        }
+
+        private void start(long id, String studentName, String studentEmail) {
+            studentId = id;
+            name = studentName;
+            email = studentEmail;
+            hasStudent = true;
+            Arrays.fill(marks, null);
+            for (int i = 0; i < statuses.length; i++) {
+                LocalDateTime dueDate = columns.get(i).dueDate();
+                statuses[i] = dueDate != null && now.isAfter(dueDate) ? CellStatus.MISSING : CellStatus.PENDING;
+            }
+        }
+
+        private void flush() {
+            if (!hasStudent) {
+                return;
+            }
+            try {
+                sink.row(studentId, name, email, marks, statuses);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private interface Sink {
+        void begin(Long classroomId, List<Column> columns) throws IOException;
+
+        void row(long studentId, String name, String email, Integer[] marks, CellStatus[] statuses) throws IOException;
+
+        void end() throws IOException;
+    }
+
+    /**
+     * {"classroomId", "assignments": [...], "students": [{"id", "name", "email", "marks": [...], "status": [...]}]}
+     * with marks and status arrays in assignment column order.
+     */
+    private final class JsonSink implements Sink {
+        private final JsonGenerator json;
+
+        private JsonSink(OutputStream out) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void begin(Long classroomId, List<Column> columns) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("classroomId", classroomId);
+            json.writeArrayFieldStart("assignments");
+            for (Column column : columns) {
+                json.writeStartObject();
+                json.writeNumberField("id", column.id());
+                json.writeStringField("title", column.title());
+                json.writeStringField("dueDate", column.dueDate() != null ? column.dueDate().toString() : null);
+                if (column.maxMarks() != null) {
+                    json.writeNumberField("maxMarks", column.maxMarks());
+                } else {
+                    json.writeNullField("maxMarks");
+                }
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("students");
+        }
+
+        @Override
+        public void row(long studentId, String name, String email, Integer[] marks, CellStatus[] statuses)
+                throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", studentId);
+            json.writeStringField("name", name);
+            json.writeStringField("email", email);
+            json.writeArrayFieldStart("marks");
+            for (Integer mark : marks) {
+                if (mark != null) {
+                    json.writeNumber(mark);
+                } else {
+                    json.writeNull();
+                }
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("status");
+            for (CellStatus status : statuses) {
+                json.writeString(status.name());
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+
+        @Override
+        public void end() throws IOException {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.flush();
+        }
+    }
+
+    /**
+     * One line per student; a cell holds the marks when graded and the status otherwise.
+     */
+    private static final class CsvSink implements Sink {
+        private final Writer writer;
+
+        private CsvSink(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void begin(Long classroomId, List<Column> columns) throws IOException {
+            List<String> header = new ArrayList<>(columns.size() + 3);
+            header.add("Student ID");
+            header.add("Name");
+            header.add("Email");
+            for (Column column : columns) {
+                header.add(columnTitle(column));
+            }
+            writeLine(header);
+        }
+
+        @Override
+        public void row(long studentId, String name, String email, Integer[] marks, CellStatus[] statuses)
+                throws IOException {
+            List<String> cells = new ArrayList<>(marks.length + 3);
+            cells.add(Long.toString(studentId));
+            cells.add(name);
+            cells.add(email);
+            for (int i = 0; i < marks.length; i++) {
+                cells.add(marks[i] != null ? marks[i].toString() : statuses[i].name().toLowerCase(Locale.ROOT));
+            }
+            writeLine(cells);
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.flush();
+        }
+
+        private void writeLine(List<String> cells) throws IOException {
+            for (int i = 0; i < cells.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvCell(cells.get(i)));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String csvCell(String value) {
+            if (value == null) {
+                return "";
+            }
+            // Keep spreadsheet apps from evaluating names like "=HYPERLINK(...)" as formulas.
+            if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+            return value;
+        }
+    }
+
+    private static final class XlsxSink implements Sink {
+        private final XlsxStreamWriter xlsx;
+
+        private XlsxSink(OutputStream out) throws IOException {
+            this.xlsx = new XlsxStreamWriter(out, "Gradebook");
+        }
+
+        @Override
+        public void begin(Long classroomId, List<Column> columns) throws IOException {
+            List<Object> header = new ArrayList<>(columns.size() + 3);
+            header.add("Student ID");
+            header.add("Name");
+            header.add("Email");
+            for (Column column : columns) {
+                header.add(columnTitle(column));
+            }
+            xlsx.row(header);
+        }
+
+        @Override
+        public void row(long studentId, String name, String email, Integer[] marks, CellStatus[] statuses)
+                throws IOException {
+            List<Object> cells = new ArrayList<>(marks.length + 3);
+            cells.add(studentId);
+            cells.add(name);
+            cells.add(email);
+            for (int i = 0; i < marks.length; i++) {
+                cells.add(marks[i] != null ? marks[i] : statuses[i].name().toLowerCase(Locale.ROOT));
+            }
+            xlsx.row(cells);
+        }
+
+        @Override
+        public void end() throws IOException {
+            xlsx.finish();
+        }
+    }
+
+    private static String columnTitle(Column column) {
+        return column.maxMarks() != null ? column.title() + " (/" + column.maxMarks() + ")" : column.title();
+    }
+}
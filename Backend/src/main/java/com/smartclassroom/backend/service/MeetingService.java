@@ -37,6 +37,7 @@ public class MeetingService {
     private final UserRepository userRepository;
     private final ClassroomMemberRepository classroomMemberRepository;
     private final AnnouncementRepository announcementRepository;
+    private final ClassroomVersionService classroomVersionService;
 
     /**
      * Generate a simple signaling token (JWT can be added later for production)
@@ -52,7 +53,7 @@ public class MeetingService {
         log.info("Creating classroom meeting for classroom {} by user {}", request.getClassroomId(), request.getHostUserId());
 
         // Validate classroom exists
-        Classroom classroom = classroomRepository.findById(request.getClassroomId())
+        Classroom classroom = classroomRepository.findActiveById(request.getClassroomId())
                 .orElseThrow(() -> new ResourceNotFoundException("Classroom not found with id: " + request.getClassroomId()));
 
         // Validate user exists and is teacher
@@ -88,7 +89,8 @@ public class MeetingService {
                 // Set the meeting code before saving
                 meeting.setMeetingCode(Meeting.generateMeetingCode());
                 
-                meeting = meetingRepository.save(meeting);
+                // Flushed so a code collision is reported here rather than at commit.
+                meeting = meetingRepository.saveAndFlush(meeting);
             } catch (DataIntegrityViolationException e) {
                 log.warn("Meeting code collision detected, retrying... Attempt {}/{}", attempts + 1, maxAttempts);
                 meeting = null;
@@ -109,6 +111,7 @@ public class MeetingService {
                 .build();
         
         announcementRepository.save(announcement);
+        classroomVersionService.bump(ClassroomVersionService.Resource.ANNOUNCEMENTS, classroom.getId());
         
         log.info("Classroom meeting created with id {} and meetingCode {} for classroom {}", 
                 meeting.getId(), meeting.getMeetingCode(), classroom.getId());
@@ -147,7 +150,7 @@ public class MeetingService {
                 // Set the meeting code before saving
                 meeting.setMeetingCode(Meeting.generateMeetingCode());
                 
-                meeting = meetingRepository.save(meeting);
+                meeting = meetingRepository.saveAndFlush(meeting);
             } catch (DataIntegrityViolationException e) {
                 log.warn("Meeting code collision detected, retrying... Attempt {}/{}", attempts + 1, maxAttempts);
                 meeting = null;
@@ -0,0 +1,325 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.stats.PdfPreviewStatsDTO;
+import com.smartclassroom.backend.service.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders first-page thumbnails and low-resolution page previews of stored PDFs.
+ * <p>
+ * {@link FileStorageService} queues each PDF when it is stored. A small pool of
+ * low-priority daemon threads renders from a bounded queue, so rendering never runs on a
+ * request thread and a burst of uploads cannot pile up work without limit: when the
+ * queue is full the PDF is skipped and rendered the first time its preview is asked for.
+ * Output is keyed by the blob's hash, so identical uploads share it, and is kept on local
+ * disk under {@code previews/} with the blob's fan-out key. A blob's previews are
+ * written to a scratch directory and renamed into place whole, so a reader sees all of
+ * them or none. A PDF that cannot be rendered gets a directory holding only a
+ * {@code failed} marker and is not tried again. Documents are parsed with scratch
+ * buffers on disk rather than the heap, and only the first {@code max-pages} pages get
+ * previews.
+ */
+@Service
+public class PdfPreviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfPreviewService.class);
+
+    private static final String THUMBNAIL = "thumbnail.jpg";
+    private static final String PAGE_COUNT = "pages";
+    private static final String FAILED = "failed";
+    // Keeps a very tall page from becoming a huge image.
+    private static final float MAX_ASPECT = 4f;
+
+    private final StorageBackend storageBackend;
+    private final Path previewLocation;
+    private final Path scratchLocation;
+    private final boolean enabled;
+    private final int workers;
+    private final int queueCapacity;
+    private final int thumbnailWidth;
+    private final int pageWidth;
+    private final int maxPages;
+    private final ThreadPoolExecutor executor;
+    // Blobs queued or being rendered, so a blob is never queued twice.
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong pagesRendered = new AtomicLong();
+    private final AtomicLong renderNanos = new AtomicLong();
+
+    public PdfPreviewService(StorageBackend storageBackend,
+                             @Value("${file.upload-dir:uploads}") String uploadDir,
+                             @Value("${app.previews.enabled:true}") boolean enabled,
+                             @Value("${app.previews.workers:2}") int workers,
+                             @Value("${app.previews.queue-capacity:200}") int queueCapacity,
+                             @Value("${app.previews.thumbnail-width:320}") int thumbnailWidth,
+                             @Value("${app.previews.page-width:960}") int pageWidth,
+                             @Value("${app.previews.max-pages:20}") int maxPages) {
+        this.storageBackend = storageBackend;
+        Path uploads = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.previewLocation = uploads.resolve("previews");
+        this.scratchLocation = previewLocation.resolve("tmp");
+        this.enabled = enabled;
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.thumbnailWidth = thumbnailWidth;
+        this.pageWidth = pageWidth;
+        this.maxPages = Math.max(1, maxPages);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-preview-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        try {
+            Files.createDirectories(scratchLocation);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create preview directory", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues a blob for rendering unless it has been rendered, is already queued, or the
+     * queue is full. Never blocks.
+     */
+    public void enqueue(String sha256) {
+        if (!enabled || Files.isDirectory(directory(sha256)) || !pending.add(sha256)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    render(sha256);
+                } finally {
+                    pending.remove(sha256);
+                }
+            });
+            submitted.incrementAndGet();
+        } catch (RejectedExecutionException ex) {
+            pending.remove(sha256);
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * The blob's thumbnail, or empty if it is not rendered (yet, or at all).
+     */
+    public Optional<Path> thumbnail(String sha256) {
+        return existing(directory(sha256).resolve(THUMBNAIL));
+    }
+
+    /**
+     * Preview of a page, counted from 1. Empty if the blob is not rendered or the page
+     * has no preview.
+     */
+    public Optional<Path> page(String sha256, int page) {
+        if (page < 1 || page > maxPages) {
+            return Optional.empty();
+        }
+        return existing(directory(sha256).resolve(pageName(page)));
+    }
+
+    /**
+     * Number of pages with a preview; empty if the blob is not rendered yet.
+     */
+    public Optional<Integer> pageCount(String sha256) {
+        Path directory = directory(sha256);
+        if (Files.isRegularFile(directory.resolve(FAILED))) {
+            return Optional.of(0);
+        }
+        try {
+            return Optional.of(Integer.parseInt(
+                    Files.readString(directory.resolve(PAGE_COUNT), StandardCharsets.US_ASCII).trim()));
+        } catch (IOException | NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * True once the blob has been tried, whether or not it rendered.
+     */
+    public boolean isDone(String sha256) {
+        return Files.isDirectory(directory(sha256));
+    }
+
+    /**
+     * Drops a blob's previews; called when the blob itself is deleted.
+     */
+    public void evict(String sha256) {
+        try {
+            FileSystemUtils.deleteRecursively(directory(sha256));
+        } catch (IOException ex) {
+            log.warn("Could not delete previews of {}: {}", sha256, ex.getMessage());
+        }
+    }
+
+    public PdfPreviewStatsDTO getStats() {
+        long renderedCount = rendered.get();
+        long pages = pagesRendered.get();
+        long millis = TimeUnit.NANOSECONDS.toMillis(renderNanos.get());
+        return PdfPreviewStatsDTO.builder()
+                .workers(workers)
+                .activeWorkers(executor.getActiveCount())
+                .queued(executor.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .submitted(submitted.get())
+                .rendered(renderedCount)
+                .failed(failed.get())
+                .dropped(dropped.get())
+                .pagesRendered(pages)
+                .renderMillis(millis)
+                .averageMillisPerDocument(renderedCount == 0 ? 0 : (double) millis / renderedCount)
+                .pagesPerWorkerSecond(millis == 0 ? 0 : pages * 1000.0 / millis)
+                .build();
+    }
+
+    private void render(String sha256) {
+        Path target = directory(sha256);
+        if (Files.isDirectory(target)) {
+            return;
+        }
+        String key = FileStorageService.blobKey(sha256);
+        Path scratch = scratchLocation.resolve(UUID.randomUUID().toString());
+        Path download = null;
+        long started = System.nanoTime();
+        try {
+            Path source = storageBackend.localFile(key).orElse(null);
+            if (source == null) {
+                // Object storage: fetch a local copy, so PDFBox can seek in it.
+                download = scratchLocation.resolve(UUID.randomUUID() + ".pdf");
+                try (InputStream in = storageBackend.get(key)) {
+                    Files.copy(in, download);
+                }
+                source = download;
+            }
+            Files.createDirectories(scratch);
+            int pages;
+            try {
+                pages = renderInto(source, scratch);
+            } catch (IOException | RuntimeException ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                // Unreadable or unsupported PDF: remember that, so it is not tried again.
+                FileSystemUtils.deleteRecursively(scratch);
+                Files.createDirectories(scratch);
+                Files.createFile(scratch.resolve(FAILED));
+                failed.incrementAndGet();
+                log.debug("Could not render previews of {}: {}", sha256, ex.getMessage());
+                pages = 0;
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(scratch, target, StandardCopyOption.ATOMIC_MOVE);
+            if (pages > 0) {
+                rendered.incrementAndGet();
+                pagesRendered.addAndGet(pages);
+                renderNanos.addAndGet(System.nanoTime() - started);
+            }
+        } catch (IOException ex) {
+            // Storage trouble, or another instance finished first; the next request retries.
+            log.warn("Could not store previews of {}: {}", sha256, ex.getMessage());
+        } finally {
+            try {
+                FileSystemUtils.deleteRecursively(scratch);
+                if (download != null) {
+                    Files.deleteIfExists(download);
+                }
+            } catch (IOException ignored) {
+                // Best effort; leftovers in the scratch directory are harmless.
+            }
+        }
+    }
+
+    private int renderInto(Path source, Path output) throws IOException {
+        try (PDDocument document = PDDocument.load(source.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            int pages = Math.min(document.getNumberOfPages(), maxPages);
+            for (int i = 0; i < pages; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Interrupted");
+                }
+                PDPage page = document.getPage(i);
+                if (i == 0) {
+                    write(renderer.renderImage(i, scale(page, thumbnailWidth), ImageType.RGB),
+                            output.resolve(THUMBNAIL));
+                }
+                write(renderer.renderImage(i, scale(page, pageWidth), ImageType.RGB), output.resolve(pageName(i + 1)));
+            }
+            // Written last: its presence means every page above is there.
+            Files.writeString(output.resolve(PAGE_COUNT), Integer.toString(pages), StandardCharsets.US_ASCII);
+            return pages;
+        }
+    }
+
+    // Scale that renders the page at the given pixel width, whatever its rotation.
+    private static float scale(PDPage page, int width) {
+        PDRectangle box = page.getCropBox();
+        boolean sideways = page.getRotation() % 180 != 0;
+        float pageWidth = sideways ? box.getHeight() : box.getWidth();
+        float pageHeight = sideways ? box.getWidth() : box.getHeight();
+        if (pageWidth <= 0 || pageHeight <= 0) {
+            throw new IllegalArgumentException("Page has no area");
+        }
+        return Math.min(width / pageWidth, width * MAX_ASPECT / pageHeight);
+    }
+
+    private static void write(BufferedImage image, Path path) throws IOException {
+        if (!ImageIO.write(image, "jpg", path.toFile())) {
+            throw new IOException("No JPEG writer available");
+        }
+    }
+
+    private static String pageName(int page) {
+        return "page-" + page + ".jpg";
+    }
+
+    private static Optional<Path> existing(Path path) {
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path directory(String sha256) {
+        return previewLocation.resolve(FileStorageService.blobKey(sha256));
+    }
+}
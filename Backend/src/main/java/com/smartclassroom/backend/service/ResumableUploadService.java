@@ -0,0 +1,344 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.file.UploadSessionDTO;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ConflictException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.UploadSession;
+import com.smartclassroom.backend.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable uploads, following the tus protocol: create an upload of a declared length,
+ * append chunks at the current offset, ask for the offset after a dropped connection, and
+ * finalize once every byte is in.
+ * <p>
+ * Chunks are read from the request body through one small buffer and written with
+ * positional {@link FileChannel} writes straight into a partial file, so memory use does
+ * not depend on chunk or file size and nothing goes through multipart parsing. The data
+ * is forced to disk before the offset is confirmed, and the offset moves with a
+ * compare-and-set, so a confirmed offset always has its bytes behind it; a chunk cut off
+ * mid-way still keeps, and confirms, what arrived. Finalizing hands the partial file to
+ * {@link FileStorageService}, which (with local storage) renames it into place. Sessions
+ * not touched within the expiry are removed with their partial file. Partial files live
+ * on the instance that created them, so load balancers must keep an upload's requests
+ * on one instance.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CLEANUP_BATCH = 500;
+
+    private final UploadSessionRepository sessionRepository;
+    private final FileStorageService fileStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path partialLocation;
+    private final long maxLength;
+    private final Duration expiry;
+    // Serializes the chunks and the finalize of one upload on this instance. Entries are
+    // only made for uploads that exist and belong to the caller, so the map holds at most
+    // one per live session; an entry is dropped when its upload is cancelled or expires.
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(UploadSessionRepository sessionRepository,
+                                  FileStorageService fileStorageService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${file.upload-dir:uploads}") String uploadDir,
+                                  @Value("${app.uploads.max-length:2147483648}") long maxLength,
+                                  @Value("${app.uploads.expiry:PT24H}") Duration expiry) {
+        this.sessionRepository = sessionRepository;
+        this.fileStorageService = fileStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partialLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve("partial");
+        this.maxLength = maxLength;
+        this.expiry = expiry;
+        try {
+            Files.createDirectories(partialLocation);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create partial upload directory", ex);
+        }
+    }
+
+    /**
+     * @param metadata the tus {@code Upload-Metadata} header: comma-separated
+     *                 {@code key base64value} pairs; {@code filename} and {@code filetype}
+     *                 are used
+     */
+    public UploadSessionDTO create(Long ownerId, long length, String metadata) {
+        if (length <= 0 || length > maxLength) {
+            throw new BadRequestException("Upload length must be between 1 and " + maxLength + " bytes");
+        }
+        Map<String, String> fields = parseMetadata(metadata);
+        String filename = fields.getOrDefault("filename", "upload");
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .ownerId(ownerId)
+                .originalName(filename.length() > 255 ? filename.substring(0, 255) : filename)
+                .contentType(fields.get("filetype"))
+                .uploadLength(length)
+                .uploadOffset(0)
+                .expiresAt(LocalDateTime.now().plus(expiry))
+                .build();
+        sessionRepository.save(session);
+        try {
+            Files.createFile(partialPath(session.getId()));
+        } catch (IOException ex) {
+            sessionRepository.deleteById(session.getId());
+            throw new UncheckedIOException("Could not create upload", ex);
+        }
+        return toDTO(session);
+    }
+
+    public UploadSessionDTO getStatus(String id, Long ownerId) {
+        return toDTO(load(id, ownerId));
+    }
+
+    /**
+     * Appends a chunk at {@code offset}, which must be the upload's current offset.
+     *
+     * @return the new offset
+     */
+    public long append(String id, Long ownerId, long offset, InputStream body) throws IOException {
+        ReentrantLock lock = lockFor(id, ownerId);
+        if (!lock.tryLock()) {
+            throw new ConflictException("Another chunk of this upload is still being written");
+        }
+        try {
+            UploadSession session = load(id, ownerId);
+            if (session.getStoredName() != null) {
+                throw new ConflictException("Upload is already finalized");
+            }
+            if (offset != session.getUploadOffset()) {
+                throw new ConflictException("Upload offset is " + session.getUploadOffset() + ", not " + offset);
+            }
+
+            long position = offset;
+            try (FileChannel channel = FileChannel.open(partialPath(id), StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(body);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                try {
+                    while (source.read(buffer) >= 0) {
+                        buffer.flip();
+                        if (position + buffer.remaining() > session.getUploadLength()) {
+                            throw new BadRequestException("Chunk runs past the upload length of "
+                                    + session.getUploadLength() + " bytes");
+                        }
+                        while (buffer.hasRemaining()) {
+                            position += channel.write(buffer, position);
+                        }
+                        buffer.clear();
+                    }
+                } catch (IOException ex) {
+                    // The client went away mid-chunk: keep what arrived so it can resume from there.
+                    channel.force(false);
+                    confirm(id, offset, position);
+                    throw ex;
+                }
+                channel.force(false);
+            }
+            confirm(id, offset, position);
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Turns a complete upload into a stored file. Safe to repeat: a finalized upload
+     * returns the same file name until the session expires.
+     *
+     * @return the name in the stored file's {@code /api/files/{name}} URL
+     */
+    public String finalizeUpload(String id, Long ownerId) {
+        ReentrantLock lock = lockFor(id, ownerId);
+        if (!lock.tryLock()) {
+            throw new ConflictException("A chunk of this upload is still being written");
+        }
+        try {
+            UploadSession session = load(id, ownerId);
+            if (session.getStoredName() != null) {
+                return session.getStoredName();
+            }
+            if (session.getUploadOffset() != session.getUploadLength()) {
+                throw new BadRequestException("Upload is incomplete: " + session.getUploadOffset() + " of "
+                        + session.getUploadLength() + " bytes received");
+            }
+
+            Path partial = partialPath(id);
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                // The stored file must end exactly at the declared length.
+                channel.truncate(session.getUploadLength());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            String storedName = fileStorageService.storeFile(partial, session.getOriginalName(),
+                    session.getContentType(), ownerId);
+            Integer marked = transactionTemplate.execute(status -> sessionRepository.markFinalized(id, storedName));
+            deletePartial(id);
+            if (marked == null || marked == 0) {
+                // Finalized elsewhere in the meantime; keep that file.
+                fileStorageService.deleteFile(storedName);
+                return load(id, ownerId).getStoredName();
+            }
+            return storedName;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(String id, Long ownerId) {
+        ReentrantLock lock = lockFor(id, ownerId);
+        lock.lock();
+        try {
+            UploadSession session = load(id, ownerId);
+            sessionRepository.delete(session);
+            deletePartial(id);
+        } finally {
+            lock.unlock();
+            locks.remove(id, lock);
+        }
+    }
+
+    /**
+     * Removes sessions past their expiry, with whatever they had received. A session
+     * with a chunk being written right now is left for the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-interval:PT1H}")
+    public void removeExpired() {
+        int removed = 0;
+        int batchRemoved;
+        List<String> ids;
+        do {
+            ids = sessionRepository.findExpiredIds(LocalDateTime.now(), CLEANUP_BATCH);
+            batchRemoved = 0;
+            for (String id : ids) {
+                ReentrantLock lock = locks.computeIfAbsent(id, key -> new ReentrantLock());
+                if (!lock.tryLock()) {
+                    continue;
+                }
+                try {
+                    sessionRepository.deleteById(id);
+                    deletePartial(id);
+                    batchRemoved++;
+                } catch (RuntimeException ex) {
+                    log.warn("Could not remove expired upload {}: {}", id, ex.getMessage());
+                } finally {
+                    lock.unlock();
+                    locks.remove(id, lock);
+                }
+            }
+            removed += batchRemoved;
+        } while (ids.size() == CLEANUP_BATCH && batchRemoved > 0);
+        if (removed > 0) {
+            log.info("Removed {} expired uploads", removed);
+        }
+    }
+
+    private void confirm(String id, long expectedOffset, long newOffset) {
+        if (newOffset == expectedOffset) {
+            return;
+        }
+        Integer updated = transactionTemplate.execute(status -> sessionRepository.advanceOffset(
+                id, expectedOffset, newOffset, LocalDateTime.now().plus(expiry)));
+        if (updated == null || updated == 0) {
+            throw new ConflictException("Upload offset moved while the chunk was being written");
+        }
+    }
+
+    private UploadSession load(String id, Long ownerId) {
+        UploadSession session = sessionRepository.findById(id)
+                .filter(found -> found.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found with id " + id));
+        if (!session.getOwnerId().equals(ownerId)) {
+            // Same answer as a missing upload, so ids cannot be probed.
+            throw new ResourceNotFoundException("Upload not found with id " + id);
+        }
+        return session;
+    }
+
+    // Checked first so that made-up or foreign ids never get an entry; callers load the
+    // session again once they hold the lock.
+    private ReentrantLock lockFor(String id, Long ownerId) {
+        partialPath(id);
+        load(id, ownerId);
+        return locks.computeIfAbsent(id, key -> new ReentrantLock());
+    }
+
+    private Path partialPath(String id) {
+        // Ids come from URLs; only ones we generated name a file.
+        try {
+            return partialLocation.resolve(UUID.fromString(id).toString());
+        } catch (IllegalArgumentException ex) {
+            throw new ResourceNotFoundException("Upload not found with id " + id);
+        }
+    }
+
+    private void deletePartial(String id) {
+        try {
+            Files.deleteIfExists(partialPath(id));
+        } catch (IOException ex) {
+            log.warn("Could not delete partial upload {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private static Map<String, String> parseMetadata(String metadata) {
+        Map<String, String> fields = new HashMap<>();
+        if (metadata == null || metadata.isBlank()) {
+            return fields;
+        }
+        for (String pair : metadata.split(",")) {
+            String[] parts = pair.trim().split(" ", 2);
+            try {
+                fields.put(parts[0], parts.length > 1
+                        ? new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8)
+                        : "");
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Upload-Metadata value for " + parts[0] + " is not base64");
+            }
+        }
+        return fields;
+    }
+
+    private static UploadSessionDTO toDTO(UploadSession session) {
+        return UploadSessionDTO.builder()
+                .id(session.getId())
+                .originalName(session.getOriginalName())
+                .contentType(session.getContentType())
+                .uploadLength(session.getUploadLength())
+                .uploadOffset(session.getUploadOffset())
+                .fileName(session.getStoredName())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
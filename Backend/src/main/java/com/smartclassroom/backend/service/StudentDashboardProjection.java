@@ -0,0 +1,175 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.StudentAssignmentResponseDTO;
+import com.smartclassroom.backend.dto.stats.StudentDashboardCheckDTO;
+import com.smartclassroom.backend.repository.StudentDashboardRepository;
+import com.smartclassroom.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the {@code student_dashboard} read model behind "My assignments".
+ * <p>
+ * The change hooks join the caller's transaction and each rewrite the affected rows from
+ * the source tables with one statement, so the dashboard commits or rolls back together
+ * with the change that caused it. {@link #check()} compares the whole read model with the
+ * source tables and {@link #rebuildAll()} regenerates it one student at a time. A rebuild
+ * is an operator task: it runs in the background after startup when
+ * {@code app.student-dashboard.rebuild-on-startup} is set, which should be on one instance only.
+ */
+@Service
+public class StudentDashboardProjection {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentDashboardProjection.class);
+
+    private final StudentDashboardRepository dashboardRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildBatchSize;
+    private final boolean rebuildOnStartup;
+
+    public StudentDashboardProjection(StudentDashboardRepository dashboardRepository,
+                                      UserRepository userRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.student-dashboard.rebuild-batch-size:500}") int rebuildBatchSize,
+                                      @Value("${app.student-dashboard.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.dashboardRepository = dashboardRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        Thread rebuild = new Thread(() -> {
+            StudentDashboardCheckDTO result = rebuildAll();
+            if (!result.isConsistent()) {
+                log.warn("Student dashboard still differs after rebuild: {} missing, {} unexpected rows",
+                        result.getMissingRows(), result.getUnexpectedRows());
+            }
+        }, "student-dashboard-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    public List<StudentAssignmentResponseDTO> getDashboard(Long studentId) {
+        return dashboardRepository.findDashboard(studentId, LocalDateTime.now());
+    }
+
+    /**
+     * Adds a row for every member of the assignment's classroom. Call after the assignment
+     * has been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assignmentCreated(Long assignmentId) {
+        dashboardRepository.insertForAssignment(assignmentId);
+    }
+
+    /**
+     * Copies the assignment's current title, description, due date, marks and attachment
+     * to its rows. Call after the change has been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assignmentUpdated(Long assignmentId) {
+        dashboardRepository.refreshAssignment(assignmentId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assignmentDeleted(Long assignmentId) {
+        dashboardRepository.deleteByAssignmentId(assignmentId);
+    }
+
+    /**
+     * Copies a submission's state (submitted, marks, feedback) to the student's row. Used
+     * for both submitting and grading; call after the submission has been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void submissionChanged(Long assignmentId, Long studentId) {
+        dashboardRepository.refreshSubmission(assignmentId, studentId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void submissionsChanged(Collection<Long> submissionIds) {
+        if (!submissionIds.isEmpty()) {
+            dashboardRepository.refreshSubmissions(submissionIds);
+        }
+    }
+
+    /**
+     * Adds the classroom's assignments to a new member's dashboard. Call after the
+     * membership has been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void memberJoined(Long classroomId, Long userId) {
+        dashboardRepository.insertForMember(classroomId, userId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void memberLeft(Long classroomId, Long userId) {
+        dashboardRepository.deleteForMember(classroomId, userId);
+    }
+
+    /**
+     * Compares the read model with what the source tables imply. Both counts are zero
+     * when they agree; a stale row counts once as missing and once as unexpected.
+     */
+    @Transactional(readOnly = true)
+    public StudentDashboardCheckDTO check() {
+        long missing = dashboardRepository.countMissing();
+        long unexpected = dashboardRepository.countUnexpected();
+        return StudentDashboardCheckDTO.builder()
+                .missingRows(missing)
+                .unexpectedRows(unexpected)
+                .consistent(missing == 0 && unexpected == 0)
+                .build();
+    }
+
+    /**
+     * Regenerates every user's rows from the source tables, one short transaction per
+     * user so live traffic on other dashboards is not blocked. Meant for repair and for
+     * populating the table after it is first created; a change to a user's data that
+     * commits while that user is being rebuilt can be missed, so run {@link #check()}
+     * afterwards.
+     */
+    public StudentDashboardCheckDTO rebuildAll() {
+        long afterId = 0;
+        int rebuilt = 0;
+        List<Long> ids;
+        do {
+            ids = userRepository.findIdsAfter(afterId, rebuildBatchSize);
+            for (Long id : ids) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        dashboardRepository.deleteByStudentId(id);
+                        dashboardRepository.insertForStudent(id);
+                    });
+                    rebuilt++;
+                } catch (RuntimeException ex) {
+                    log.warn("Could not rebuild dashboard for user {}: {}", id, ex.getMessage());
+                }
+                afterId = id;
+            }
+        } while (ids.size() == rebuildBatchSize);
+        log.info("Rebuilt student dashboards for {} users", rebuilt);
+
+        StudentDashboardCheckDTO result = check();
+        result.setStudentsRebuilt(rebuilt);
+        return result;
+    }
+}
@@ -0,0 +1,216 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Assignment;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams every submission file of an assignment as one ZIP, named by student.
+ * <p>
+ * Only the submission list (one small row per student) is read up front, so no database
+ * connection is held while files are copied. Each file is then copied from storage
+ * through a {@link FileChannel} straight into a {@link ZipOutputStream} on the response,
+ * or relayed from object storage when there is no local copy, so neither the archive nor
+ * a whole file is ever held in memory or written to disk.
+ * Formats that are already compressed (PDF, images, Office documents, archives) are
+ * STORED rather than deflated: deflating them costs CPU and saves nothing. STORED entries
+ * need their CRC before the data, so those files are read twice; the second read normally
+ * comes from the page cache. Submissions whose file is not in local storage (external
+ * links, missing files) are listed in {@value #MISSING_FILES_ENTRY} instead.
+ */
+@Service
+public class SubmissionArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionArchiveService.class);
+
+    private static final String MISSING_FILES_ENTRY = "missing-files.txt";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,16}");
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "pdf", "png", "jpg", "jpeg", "gif", "webp", "heic",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub",
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar",
+            "mp3", "mp4", "m4a", "mov", "webm");
+
+    private static final String SUBMISSIONS_SQL =
+            "SELECT u.id AS student_id, u.name, s.content_url FROM assignment_submissions s " +
+                    "JOIN users u ON u.id = s.student_id WHERE s.assignment_id = ? ORDER BY u.name, u.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AssignmentRepository assignmentRepository;
+    private final FileStorageService fileStorageService;
+
+    public SubmissionArchiveService(JdbcTemplate jdbcTemplate,
+                                    AssignmentRepository assignmentRepository,
+                                    FileStorageService fileStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.assignmentRepository = assignmentRepository;
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * Only the classroom's teacher may download the submissions. Called before the
+     * response starts streaming so errors can still be reported with a proper status.
+     */
+    public void verifyTeacher(Long assignmentId, Long teacherId) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .filter(found -> found.getClassroom().getDeletedAt() == null)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id " + assignmentId));
+        if (!assignment.getClassroom().getTeacher().getId().equals(teacherId)) {
+            throw new BadRequestException("Only the classroom teacher can download submissions");
+        }
+    }
+
+    public void write(Long assignmentId, OutputStream out) throws IOException {
+        List<SubmissionFile> submissions = jdbcTemplate.query(SUBMISSIONS_SQL, (rs, rowNum) ->
+                new SubmissionFile(rs.getLong("student_id"), rs.getString("name"), rs.getString("content_url")),
+                assignmentId);
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        WritableByteChannel target = Channels.newChannel(zip);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        Set<String> usedNames = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+        for (SubmissionFile submission : submissions) {
+            Optional<FileStorageService.ResolvedFile> file = fileStorageService.resolveStoredFile(submission.contentUrl);
+            if (file.isEmpty()) {
+                missing.add(submission.studentName + " (" + submission.studentId + "): "
+                        + (submission.contentUrl == null ? "no file" : submission.contentUrl));
+                continue;
+            }
+            // Blobs are named by hash, so the extension comes from the uploaded name.
+            String extension = extension(file.get().originalName() != null
+                    ? file.get().originalName()
+                    : lastSegment(submission.contentUrl));
+            String name = uniqueName(usedNames, sanitize(submission.studentName) + "_" + submission.studentId, extension);
+            try {
+                Optional<Path> local = fileStorageService.localFile(file.get());
+                if (local.isPresent()) {
+                    addFile(zip, target, buffer, name, local.get(), COMPRESSED_EXTENSIONS.contains(extension));
+                } else {
+                    addRemoteFile(zip, name, file.get());
+                }
+            } catch (NoSuchFileException ex) {
+                usedNames.remove(name);
+                missing.add(submission.studentName + " (" + submission.studentId + "): " + submission.contentUrl);
+            }
+        }
+        if (!missing.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(MISSING_FILES_ENTRY));
+            zip.write((String.join("\n", missing) + "\n").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+        log.debug("Streamed {} submission files for assignment {} ({} missing)",
+                submissions.size() - missing.size(), assignmentId, missing.size());
+    }
+
+    private static void addFile(ZipOutputStream zip, WritableByteChannel target, ByteBuffer buffer,
+                                String name, Path path, boolean store) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ZipEntry entry = new ZipEntry(name);
+            if (store) {
+                long size = channel.size();
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(size);
+                entry.setCompressedSize(size);
+                entry.setCrc(crc(channel, buffer));
+                channel.position(0);
+            }
+            zip.putNextEntry(entry);
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+            zip.closeEntry();
+        }
+    }
+
+    // Read once, from object storage, so deflated: a STORED entry would need a second read for its CRC.
+    private void addRemoteFile(ZipOutputStream zip, String name, FileStorageService.ResolvedFile file)
+            throws IOException {
+        try (InputStream in = fileStorageService.open(file, 0, file.size())) {
+            zip.putNextEntry(new ZipEntry(name));
+            in.transferTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    private static long crc(FileChannel channel, ByteBuffer buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        buffer.clear();
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            crc.update(buffer);
+            buffer.clear();
+        }
+        return crc.getValue();
+    }
+
+    private static String uniqueName(Set<String> usedNames, String base, String extension) {
+        String suffix = extension.isEmpty() ? "" : "." + extension;
+        String name = base + suffix;
+        for (int i = 2; !usedNames.add(name); i++) {
+            name = base + "_" + i + suffix;
+        }
+        return name;
+    }
+
+    // Keeps names portable across the archive tools teachers are likely to use.
+    private static String sanitize(String name) {
+        String cleaned = name == null ? "" : name.trim().replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]+", "_").replaceAll("\\s+", " ");
+        if (cleaned.isEmpty()) {
+            return "student";
+        }
+        return cleaned.length() > 100 ? cleaned.substring(0, 100) : cleaned;
+    }
+
+    // Anything but a short alphanumeric extension is dropped, so an uploaded name such as
+    // "a.x/../../evil" cannot put path segments into the entry name.
+    private static String extension(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String extension = dot >= 0 ? filename.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return EXTENSION.matcher(extension).matches() ? extension : "";
+    }
+
+    private static String lastSegment(String url) {
+        int query = url.indexOf('?');
+        String path = query >= 0 ? url.substring(0, query) : url;
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private record SubmissionFile(long studentId, String studentName, String contentUrl) {
+    }
+}
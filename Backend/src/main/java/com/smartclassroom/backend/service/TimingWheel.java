@@ -0,0 +1,154 @@
+package com.smartclassroom.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding timers in memory.
+ * <p>
+ * Level 0 has {@code wheelSize} slots of {@code tickMs}; every level above has slots as
+ * wide as the whole level below, so a timer days away sits in a coarse slot and is moved
+ * down a level each time its slot comes up. Adding a timer and advancing one tick are
+ * O(1) however many timers are pending, and each timer costs one small object. Timers fire
+ * no earlier than their expiration and at most one tick after it.
+ * <p>
+ * Timers cannot be cancelled; callers re-check whatever the timer stands for when it
+ * fires. Not thread-safe on its own; {@link DeadlineScheduler} guards it.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    // Start of the current level-0 slot; everything before it has fired.
+    private long currentTime;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    /**
+     * Adds a timer. Returns false, without adding it, if it has already expired.
+     */
+    boolean add(long expirationMs, T item) {
+        if (expirationMs < currentTime) {
+            return false;
+        }
+        insert(new Entry<>(expirationMs, item));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the clock forward to {@code nowMs}, handing every timer that expired on the
+     * way to {@code expired} in expiration order (to tick precision).
+     */
+    void advance(long nowMs, Consumer<T> expired) {
+        while (currentTime + tickMs <= nowMs) {
+            // The slot being left holds only timers that expired before the new time.
+            drain(currentTime, expired);
+            currentTime += tickMs;
+            cascade(expired);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(Entry<T> entry) {
+        long tick = tickMs;
+        for (int level = 0; ; level++) {
+            long span = tick > Long.MAX_VALUE / wheelSize ? Long.MAX_VALUE : tick * wheelSize;
+            long levelStart = currentTime - Math.floorMod(currentTime, tick);
+            if (entry.expirationMs - levelStart < span) {
+                bucket(level, entry.expirationMs / tick).add(entry);
+                return;
+            }
+            tick = span;
+        }
+    }
+
+    /**
+     * Redistributes the higher-level slots that start at the new current time, highest
+     * first, so their timers land in the finer levels below.
+     */
+    private void cascade(Consumer<T> expired) {
+        int top = 0;
+        long tick = tickMs;
+        while (top + 1 < levels.size()) {
+            long nextTick = tick * wheelSize;
+            if (Math.floorMod(currentTime, nextTick) != 0) {
+                break;
+            }
+            top++;
+            tick = nextTick;
+        }
+        for (int level = top; level >= 1; level--) {
+            List<Entry<T>> entries = takeBucket(level, currentTime / levelTick(level));
+            if (entries == null) {
+                continue;
+            }
+            for (Entry<T> entry : entries) {
+                if (entry.expirationMs < currentTime) {
+                    size--;
+                    expired.accept(entry.item);
+                } else {
+                    insert(entry);
+                }
+            }
+        }
+    }
+
+    private void drain(long slotTime, Consumer<T> expired) {
+        List<Entry<T>> entries = takeBucket(0, slotTime / tickMs);
+        if (entries != null) {
+            size -= entries.size();
+            entries.forEach(entry -> expired.accept(entry.item));
+        }
+    }
+
+    private long levelTick(int level) {
+        long tick = tickMs;
+        for (int i = 0; i < level; i++) {
+            tick *= wheelSize;
+        }
+        return tick;
+    }
+
+    private List<Entry<T>> bucket(int level, long slot) {
+        while (levels.size() <= level) {
+            @SuppressWarnings("unchecked")
+            List<Entry<T>>[] buckets = new List[wheelSize];
+            levels.add(buckets);
+        }
+        List<Entry<T>>[] buckets = levels.get(level);
+        int index = (int) Math.floorMod(slot, (long) wheelSize);
+        if (buckets[index] == null) {
+            buckets[index] = new ArrayList<>(4);
+        }
+        return buckets[index];
+    }
+
+    private List<Entry<T>> takeBucket(int level, long slot) {
+        if (level >= levels.size()) {
+            return null;
+        }
+        List<Entry<T>>[] buckets = levels.get(level);
+        int index = (int) Math.floorMod(slot, (long) wheelSize);
+        List<Entry<T>> entries = buckets[index];
+        // Dropped rather than cleared so a burst of timers does not pin memory afterwards.
+        buckets[index] = null;
+        return entries;
+    }
+
+    private record Entry<T>(long expirationMs, T item) {
+    }
+}
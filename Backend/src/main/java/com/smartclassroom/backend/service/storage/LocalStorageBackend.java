@@ -0,0 +1,182 @@
+package com.smartclassroom.backend.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Blobs as files under a root directory, one file per key. Content is written under a
+ * temporary name and renamed into place, so a key is never seen half-written. Keys whose
+ * file is not at its path are also looked for directly under the root, where blobs were
+ * kept before the fan-out layout.
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+    private final Path tempDir;
+
+    public LocalStorageBackend(Path root, Path tempDir) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tempDir = tempDir.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+            Files.createDirectories(this.tempDir);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create storage directory " + this.root, ex);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        Path temp = tempDir.resolve(UUID.randomUUID().toString());
+        try {
+            Files.copy(content, temp);
+            moveIntoPlace(temp, path(key));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        try {
+            moveIntoPlace(source, path(key));
+        } catch (AtomicMoveNotSupportedException ex) {
+            // Another filesystem: copy instead.
+            StorageBackend.super.putFile(key, source);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return find(key).isPresent();
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(existing(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long length) throws IOException {
+        FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ);
+        try {
+            channel.position(start);
+            return new LimitedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(path(key));
+        Files.deleteIfExists(flatPath(key));
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return find(key);
+    }
+
+    long size(String key) throws IOException {
+        return Files.size(existing(key));
+    }
+
+    Path path(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    private Path flatPath(String key) {
+        return root.resolve(path(key).getFileName());
+    }
+
+    // Checked in this order so a migration rename between the two checks still finds the file.
+    private Optional<Path> find(String key) {
+        Path path = path(key);
+        if (Files.isRegularFile(path)) {
+            return Optional.of(path);
+        }
+        Path flat = flatPath(key);
+        if (Files.isRegularFile(flat)) {
+            return Optional.of(flat);
+        }
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path existing(String key) throws NoSuchFileException {
+        return find(key).orElseThrow(() -> new NoSuchFileException(key));
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Ends after a byte range; closing it closes the underlying channel.
+    public static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        public LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
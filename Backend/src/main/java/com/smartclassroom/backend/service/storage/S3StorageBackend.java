@@ -0,0 +1,320 @@
+package com.smartclassroom.backend.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Blobs in a bucket of any S3-compatible object store (AWS S3, MinIO, Ceph, R2, ...),
+ * spoken to over plain HTTP with Signature Version 4 and path-style addressing, which
+ * every such store accepts. Content up to one part size is sent with a single PUT;
+ * larger content goes up as a multipart upload, one part at a time, so memory use is at
+ * most one part however large the blob. A multipart upload that fails is aborted so the
+ * store does not keep its parts. Payloads are sent unsigned (the signature covers the
+ * request, not the body), which avoids reading everything twice.
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    /** The smallest part S3 accepts, except for the last one. */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String SIGNED_HEADERS = "host;x-amz-content-sha256;x-amz-date";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final String prefix;
+    private final int partSize;
+    private final HttpClient client;
+
+    public S3StorageBackend(URI endpoint, String region, String bucket, String accessKey, String secretKey,
+                            String prefix, int partSize) {
+        String base = endpoint.toString();
+        this.endpoint = URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) : base);
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix == null ? "" : prefix;
+        this.partSize = partSize;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(partSize, Math.max(size, 1))];
+        upload(key, size, length -> {
+            int read = content.readNBytes(buffer, 0, length);
+            if (read != length) {
+                throw new IOException("Content ended after " + read + " of " + length + " bytes of a part");
+            }
+            return HttpRequest.BodyPublishers.ofByteArray(buffer, 0, length);
+        });
+    }
+
+    // Parts are read from the file as they are sent, with no buffer in between.
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        long[] offset = {0};
+        upload(key, Files.size(source), length -> {
+            long start = offset[0];
+            offset[0] += length;
+            return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> {
+                try {
+                    FileChannel channel = FileChannel.open(source, StandardOpenOption.READ).position(start);
+                    return new LocalStorageBackend.LimitedInputStream(Channels.newInputStream(channel), length);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }), length);
+        });
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        expect(response, 200);
+        return true;
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        HttpResponse<InputStream> response = send("GET", key, Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        return body(key, response, 200);
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        HttpResponse<InputStream> response = send("GET", key, Map.of(),
+                Map.of("Range", "bytes=" + start + "-" + (start + length - 1)),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 200) {
+            // The store ignored the range and sent everything.
+            InputStream in = response.body();
+            in.skipNBytes(start);
+            return new LocalStorageBackend.LimitedInputStream(in, length);
+        }
+        return body(key, response, 206);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send("DELETE", key, Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            expect(response, 200, 204);
+        }
+    }
+
+    private interface PartSource {
+        HttpRequest.BodyPublisher next(int length) throws IOException;
+    }
+
+    private void upload(String key, long size, PartSource parts) throws IOException {
+        if (size <= partSize) {
+            HttpResponse<String> response = send("PUT", key, Map.of(), Map.of(),
+                    parts.next((int) size), HttpResponse.BodyHandlers.ofString());
+            expect(response, 200);
+            return;
+        }
+
+        HttpResponse<String> created = send("POST", key, Map.of("uploads", ""), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        expect(created, 200);
+        Matcher matcher = UPLOAD_ID.matcher(created.body());
+        if (!matcher.find()) {
+            throw new IOException("No UploadId in CreateMultipartUpload response for " + key);
+        }
+        String uploadId = matcher.group(1);
+        try {
+            List<String> etags = new ArrayList<>();
+            for (long sent = 0; sent < size; ) {
+                int length = (int) Math.min(partSize, size - sent);
+                HttpResponse<String> part = send("PUT", key,
+                        Map.of("partNumber", String.valueOf(etags.size() + 1), "uploadId", uploadId), Map.of(),
+                        parts.next(length), HttpResponse.BodyHandlers.ofString());
+                expect(part, 200);
+                etags.add(part.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("No ETag for part of " + key)));
+                sent += length;
+            }
+
+            StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i).replace("&", "&amp;").replace("<", "&lt;"))
+                        .append("</ETag></Part>");
+            }
+            xml.append("</CompleteMultipartUpload>");
+            HttpResponse<String> completed = send("POST", key, Map.of("uploadId", uploadId),
+                    Map.of("Content-Type", "application/xml"),
+                    HttpRequest.BodyPublishers.ofString(xml.toString()), HttpResponse.BodyHandlers.ofString());
+            expect(completed, 200);
+            // S3 can report a failed completion in the body of a 200.
+            if (completed.body().contains("<Error>")) {
+                throw new IOException("CompleteMultipartUpload failed for " + key + ": " + completed.body());
+            }
+        } catch (IOException | RuntimeException ex) {
+            try {
+                send("DELETE", key, Map.of("uploadId", uploadId), Map.of(),
+                        HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+            } catch (IOException abortFailure) {
+                ex.addSuppressed(abortFailure);
+            }
+            throw ex;
+        }
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> query, Map<String, String> headers,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        String path = "/" + encode(bucket, false) + "/" + encode(prefix + key, true);
+        String canonicalQuery = canonicalQuery(query);
+        URI uri = URI.create(endpoint + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = AMZ_DATE.format(now);
+        String date = amzDate.substring(0, 8);
+        String host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        String canonicalRequest = method + "\n" + endpoint.getRawPath() + path + "\n" + canonicalQuery + "\n"
+                + "host:" + host + "\n"
+                + "x-amz-content-sha256:" + UNSIGNED_PAYLOAD + "\n"
+                + "x-amz-date:" + amzDate + "\n\n"
+                + SIGNED_HEADERS + "\n" + UNSIGNED_PAYLOAD;
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest));
+        byte[] signingKey = hmac(hmac(hmac(hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date),
+                region), "s3"), "aws4_request");
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .method(method, body)
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + SIGNED_HEADERS + ", Signature=" + signature);
+        headers.forEach(request::header);
+        try {
+            return client.send(request.build(), handler);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + method + " " + key);
+        }
+    }
+
+    private static InputStream body(String key, HttpResponse<InputStream> response, int expected) throws IOException {
+        if (response.statusCode() == expected) {
+            return response.body();
+        }
+        try (InputStream in = response.body()) {
+            if (response.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("Object store answered " + response.statusCode() + " for " + key + ": "
+                    + new String(in.readNBytes(512), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void expect(HttpResponse<?> response, int... statuses) throws IOException {
+        for (int status : statuses) {
+            if (response.statusCode() == status) {
+                return;
+            }
+        }
+        Object body = response.body();
+        throw new IOException("Object store answered " + response.statusCode() + " to "
+                + response.request().method() + " " + response.request().uri().getRawPath()
+                + (body instanceof String text && !text.isEmpty() ? ": " + text : ""));
+    }
+
+    private static String canonicalQuery(Map<String, String> query) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, String> parameter : new TreeMap<>(query).entrySet()) {
+            if (!result.isEmpty()) {
+                result.append('&');
+            }
+            result.append(encode(parameter.getKey(), false)).append('=').append(encode(parameter.getValue(), false));
+        }
+        return result.toString();
+    }
+
+    // RFC 3986 percent-encoding as SigV4 requires: everything but unreserved characters.
+    private static String encode(String value, boolean keepSlashes) {
+        StringBuilder result = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (keepSlashes && c == '/')) {
+                result.append(c);
+            } else {
+                result.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return result.toString();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
@@ -0,0 +1,55 @@
+package com.smartclassroom.backend.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where blob content is kept: a local directory, an S3-compatible bucket, or a bucket
+ * with a local cache in front. Keys are relative paths such as {@code ab/cd/abcd...};
+ * content under a key is written once and never changed, only deleted. Every method
+ * streams, so no implementation holds a whole blob in memory. Reads of a missing key
+ * throw {@link java.nio.file.NoSuchFileException}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores {@code size} bytes read from {@code content} under {@code key}, replacing
+     * anything already there. The local backend also accepts -1 for an unknown size.
+     */
+    void put(String key, InputStream content, long size) throws IOException;
+
+    /**
+     * Stores a file's content under {@code key}. Implementations may move the file
+     * rather than copy it; callers delete it afterwards if it is still there.
+     */
+    default void putFile(String key, Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            put(key, in, Files.size(source));
+        }
+    }
+
+    boolean exists(String key) throws IOException;
+
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Reads {@code length} bytes starting at {@code start}.
+     */
+    InputStream getRange(String key, long start, long length) throws IOException;
+
+    /**
+     * Deletes the content under {@code key}; does nothing if there is none.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * The content as a local file, for zero-copy sends, or empty if this backend does not
+     * keep one. A backend with a cache may fetch the content into it first.
+     */
+    default Optional<Path> localFile(String key) throws IOException {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,240 @@
+package com.smartclassroom.backend.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Object storage with a local disk cache in front: the remote backend holds every blob,
+ * and recently read blobs are also kept on local disk, least recently used first out once
+ * the cache passes its size limit. Reads fetch a missing blob into the cache and serve it
+ * from there, so repeated downloads cost no remote requests and can still be sent with
+ * sendfile. Blobs larger than a quarter of the cache are streamed from the remote without
+ * being cached, so one of them cannot flush everything else. New uploads go to the remote
+ * first and are then kept in the cache, since files are usually read soon after upload.
+ * The cache is rebuilt from its directory (oldest modified first out) on startup.
+ * <p>
+ * An evicted file is only unlinked once {@code evictionGrace} has passed, so a caller that
+ * has just been handed its path by {@link #localFile} can still open it (an open file
+ * keeps reading after it is unlinked). Until then it may also be taken back into the
+ * cache without a remote read. Evicted files waiting out the grace period are not counted
+ * against the size limit.
+ * <p>
+ * Two concurrent misses on the same blob may both fetch it; the second rename simply
+ * replaces the first with identical content.
+ */
+public class TieredStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredStorageBackend.class);
+
+    private final StorageBackend remote;
+    private final LocalStorageBackend cache;
+    private final long maxBytes;
+    private final long evictionGraceNanos;
+    // Key -> size, in access order. Guarded by itself.
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    // Evicted key -> System.nanoTime() after which its file may be deleted, oldest first.
+    // Guarded by entries.
+    private final LinkedHashMap<String, Long> retired = new LinkedHashMap<>();
+    // Keys found too large to cache; content never changes, so neither does their size.
+    private final Set<String> uncacheable = ConcurrentHashMap.newKeySet();
+
+    public TieredStorageBackend(StorageBackend remote, LocalStorageBackend cache, long maxBytes) {
+        this(remote, cache, maxBytes, Duration.ZERO);
+    }
+
+    public TieredStorageBackend(StorageBackend remote, LocalStorageBackend cache, long maxBytes,
+                                Duration evictionGrace) {
+        this.remote = remote;
+        this.cache = cache;
+        this.maxBytes = maxBytes;
+        this.evictionGraceNanos = evictionGrace.toNanos();
+        load();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        remote.put(key, content, size);
+    }
+
+    @Override
+    public void putFile(String key, Path source) throws IOException {
+        remote.putFile(key, source);
+        if (Files.exists(source) && cacheable(Files.size(source))) {
+            long size = Files.size(source);
+            cache.putFile(key, source);
+            admit(key, size);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return isCached(key) || remote.exists(key);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        Optional<Path> local = localFile(key);
+        return local.isPresent() ? Files.newInputStream(local.get()) : remote.get(key);
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long length) throws IOException {
+        return localFile(key).isPresent() ? cache.getRange(key, start, length) : remote.getRange(key, start, length);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        remote.delete(key);
+        uncacheable.remove(key);
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                cachedBytes -= size;
+            }
+            retired.remove(key);
+        }
+        cache.delete(key);
+    }
+
+    /**
+     * The cached copy, fetched from the remote first if needed. Empty for blobs too large
+     * to cache.
+     */
+    @Override
+    public Optional<Path> localFile(String key) throws IOException {
+        if (isCached(key)) {
+            Optional<Path> cached = cache.localFile(key);
+            if (cached.isPresent()) {
+                return cached;
+            }
+        }
+        if (uncacheable.contains(key)) {
+            return Optional.empty();
+        }
+        Optional<Path> revived = revive(key);
+        return revived.isPresent() ? revived : fetch(key);
+    }
+
+    // Takes an evicted file still in its grace period back into the cache.
+    private Optional<Path> revive(String key) throws IOException {
+        synchronized (entries) {
+            if (retired.remove(key) == null) {
+                return Optional.empty();
+            }
+        }
+        Optional<Path> file = cache.localFile(key);
+        if (file.isPresent()) {
+            admit(key, cache.size(key));
+        }
+        return file;
+    }
+
+    // Reads at most one byte past the cacheable size, so a blob too large to cache is
+    // found out without downloading all of it.
+    private Optional<Path> fetch(String key) throws IOException {
+        long limit = maxBytes / 4;
+        try (InputStream in = new LocalStorageBackend.LimitedInputStream(remote.get(key), limit + 1)) {
+            cache.put(key, in, -1);
+        }
+        long size = cache.size(key);
+        if (!cacheable(size)) {
+            cache.delete(key);
+            uncacheable.add(key);
+            return Optional.empty();
+        }
+        admit(key, size);
+        return cache.localFile(key);
+    }
+
+    private boolean isCached(String key) {
+        synchronized (entries) {
+            return entries.get(key) != null;
+        }
+    }
+
+    private boolean cacheable(long size) {
+        return size <= maxBytes / 4;
+    }
+
+    private void admit(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Long previous = entries.put(key, size);
+            cachedBytes += size - (previous != null ? previous : 0);
+            retired.remove(key);
+            long now = System.nanoTime();
+            Iterator<Map.Entry<String, Long>> oldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && oldest.hasNext()) {
+                Map.Entry<String, Long> entry = oldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                cachedBytes -= entry.getValue();
+                retired.put(entry.getKey(), now + evictionGraceNanos);
+                oldest.remove();
+            }
+            Iterator<Map.Entry<String, Long>> expired = retired.entrySet().iterator();
+            while (expired.hasNext()) {
+                Map.Entry<String, Long> entry = expired.next();
+                if (entry.getValue() - now > 0) {
+                    break;
+                }
+                evicted.add(entry.getKey());
+                expired.remove();
+            }
+        }
+        for (String evictedKey : evicted) {
+            try {
+                cache.delete(evictedKey);
+            } catch (IOException ex) {
+                log.warn("Could not evict cached blob {}: {}", evictedKey, ex.getMessage());
+            }
+        }
+    }
+
+    private void load() {
+        Path root = cache.getRoot();
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read storage cache " + root, ex);
+        }
+        files.sort(Comparator.comparing(TieredStorageBackend::lastModified));
+        for (Path file : files) {
+            try {
+                admit(root.relativize(file).toString().replace('\\', '/'), Files.size(file));
+            } catch (IOException ex) {
+                log.warn("Skipping cached blob {}: {}", file, ex.getMessage());
+            }
+        }
+        log.info("Storage cache holds {} blobs, {} bytes", entries.size(), cachedBytes);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+}
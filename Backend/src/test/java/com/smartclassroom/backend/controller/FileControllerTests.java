@@ -0,0 +1,146 @@
+package com.smartclassroom.backend.controller;
+
+import com.smartclassroom.backend.exception.GlobalExceptionHandler;
+import com.smartclassroom.backend.service.FileStorageService;
+import com.smartclassroom.backend.service.PdfPreviewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class FileControllerTests {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final String ETAG = "\"abc123\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private PdfPreviewService pdfPreviewService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileStorageService, pdfPreviewService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        stored("notes.txt", "text/plain");
+
+        mockMvc.perform(get("/api/files/notes.txt").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("2345".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws Exception {
+        stored("notes.txt", "text/plain");
+
+        mockMvc.perform(get("/api/files/notes.txt").header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void multipleRangesGetTheWholeFile() throws Exception {
+        stored("notes.txt", "text/plain");
+
+        mockMvc.perform(get("/api/files/notes.txt").header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws Exception {
+        stored("notes.txt", "text/plain");
+
+        mockMvc.perform(get("/api/files/notes.txt")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"older\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+
+        mockMvc.perform(get("/api/files/notes.txt")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent());
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        stored("notes.txt", "text/plain");
+
+        mockMvc.perform(get("/api/files/notes.txt").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void htmlAndSvgAreDownloadedWithNosniff() throws Exception {
+        stored("page.html", "text/html");
+        stored("image.svg", "image/svg+xml");
+        stored("photo.png", "image/png");
+
+        mockMvc.perform(get("/api/files/page.html"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        startsWith("attachment")));
+        mockMvc.perform(get("/api/files/image.svg"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        startsWith("attachment")));
+        mockMvc.perform(get("/api/files/photo.png"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        startsWith("inline")));
+    }
+
+    @Test
+    void unknownFileIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/files/missing.txt"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void stored(String name, String contentType) throws IOException {
+        Path path = Files.write(tempDir.resolve(name), CONTENT);
+        FileStorageService.ResolvedFile file = new FileStorageService.ResolvedFile("ab/cd/" + name, null,
+                CONTENT.length, LAST_MODIFIED, ETAG, name, contentType);
+        Mockito.when(fileStorageService.resolveStoredFile(name)).thenReturn(Optional.of(file));
+        Mockito.when(fileStorageService.localFile(file)).thenReturn(Optional.of(path));
+    }
+}
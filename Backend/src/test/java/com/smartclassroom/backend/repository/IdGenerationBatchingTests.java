@@ -0,0 +1,75 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.model.AuditLog;
+import com.smartclassroom.backend.model.User;
+import com.smartclassroom.backend.model.UserRole;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Guards pooled sequence id generation: persisting many rows must not cost a sequence
+ * round trip per row, and the inserts must go out as JDBC batches.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+public class IdGenerationBatchingTests {
+
+    private static final int ROWS = 500;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void persist_allocatesIdsInBlocksAndBatchesInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User user = userRepository.saveAndFlush(User.builder()
+                .name("Auditor")
+                .email("auditor@example.com")
+                .password("pwd")
+                .role(UserRole.TEACHER)
+                .build());
+        List<AuditLog> logs = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            logs.add(AuditLog.builder()
+                    .user(user)
+                    .action("VIEW")
+                    .resourceType("ASSIGNMENT")
+                    .resourceId(String.valueOf(i))
+                    .build());
+        }
+
+        statistics.clear();
+        logs.forEach(entityManager::persist);
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+
+        Set<Long> ids = new HashSet<>();
+        logs.forEach(log -> ids.add(log.getId()));
+        Assertions.assertEquals(ROWS, ids.size());
+        Assertions.assertEquals(ROWS, statistics.getEntityInsertCount());
+        // ~10 sequence calls plus ~10 insert batches; one per row would be 1000.
+        Assertions.assertTrue(statements <= 2 * (ROWS / 50) + 4,
+                "Expected batched inserts but saw " + statements + " statements");
+    }
+}
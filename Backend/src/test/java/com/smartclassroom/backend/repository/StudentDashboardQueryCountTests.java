@@ -0,0 +1,138 @@
+package com.smartclassroom.backend.repository;
+
+import com.smartclassroom.backend.dto.assignment.StudentAssignmentResponseDTO;
+import com.smartclassroom.backend.model.StudentDashboardRow;
+import com.smartclassroom.backend.service.StudentDashboardProjection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guards the student dashboard against N+1 regressions: loading "my assignments" from the
+ * read model must cost one SQL statement no matter how many classrooms and assignments
+ * the student has.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class StudentDashboardQueryCountTests {
+
+    private static final long SMALL_STUDENT = 1L;
+    private static final long LARGE_STUDENT = 2L;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StudentDashboardRepository dashboardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private StudentDashboardProjection projection;
+    private long assignmentSequence;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        projection = new StudentDashboardProjection(dashboardRepository, userRepository, transactionManager, 500,
+                false);
+    }
+
+    @Test
+    void getDashboard_singleStatementRegardlessOfAssignmentCount() {
+        seed(SMALL_STUDENT, 1, 1);
+        seed(LARGE_STUDENT, 8, 40);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        List<StudentAssignmentResponseDTO> small = projection.getDashboard(SMALL_STUDENT);
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<StudentAssignmentResponseDTO> large = projection.getDashboard(LARGE_STUDENT);
+        long largeStatements = statistics.getPrepareStatementCount();
+
+        Assertions.assertEquals(1, small.size());
+        Assertions.assertEquals(320, large.size());
+        Assertions.assertEquals(1, smallStatements);
+        Assertions.assertEquals(smallStatements, largeStatements);
+    }
+
+    @Test
+    void findDashboard_returnsOnlyTheStudentsRowsByDueDate() {
+        LocalDateTime now = LocalDateTime.now();
+        StudentDashboardRow graded = row(SMALL_STUDENT, 1L, now.minusDays(1));
+        graded.setSubmittedAt(now.minusDays(2));
+        graded.setMarks(7);
+        graded.setFeedback("ok");
+        StudentDashboardRow open = row(SMALL_STUDENT, 1L, now.plusDays(1));
+        StudentDashboardRow classmate = row(LARGE_STUDENT, 1L, now.plusDays(1));
+        classmate.setAssignmentId(open.getAssignmentId());
+        dashboardRepository.saveAll(List.of(open, graded, classmate));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<StudentAssignmentResponseDTO> result = dashboardRepository.findDashboard(SMALL_STUDENT, now);
+
+        Assertions.assertEquals(2, result.size());
+        StudentAssignmentResponseDTO first = result.get(0);
+        Assertions.assertEquals(graded.getAssignmentId(), first.getId());
+        Assertions.assertTrue(first.getIsSubmitted());
+        Assertions.assertTrue(first.getIsPastDeadline());
+        Assertions.assertEquals(7, first.getMarks());
+        Assertions.assertEquals("ok", first.getFeedback());
+        StudentAssignmentResponseDTO second = result.get(1);
+        Assertions.assertEquals(open.getAssignmentId(), second.getId());
+        Assertions.assertFalse(second.getIsSubmitted());
+        Assertions.assertFalse(second.getIsPastDeadline());
+        Assertions.assertNull(second.getMarks());
+    }
+
+    private void seed(long studentId, int classrooms, int assignmentsPerClassroom) {
+        List<StudentDashboardRow> rows = new ArrayList<>();
+        for (long c = 1; c <= classrooms; c++) {
+            for (int a = 0; a < assignmentsPerClassroom; a++) {
+                StudentDashboardRow row = row(studentId, c, LocalDateTime.now().plusDays(a + 1));
+                if (a % 2 == 0) {
+                    row.setSubmittedAt(LocalDateTime.now());
+                }
+                rows.add(row);
+            }
+        }
+        dashboardRepository.saveAll(rows);
+    }
+
+    private StudentDashboardRow row(long studentId, long classroomId, LocalDateTime dueDate) {
+        return StudentDashboardRow.builder()
+                .studentId(studentId)
+                .assignmentId(++assignmentSequence)
+                .classroomId(classroomId)
+                .classroomName("Class " + classroomId)
+                .title("HW")
+                .dueDate(dueDate)
+                .maxMarks(10)
+                .assignmentCreatedAt(LocalDateTime.now().minusDays(7))
+                .build();
+    }
+}
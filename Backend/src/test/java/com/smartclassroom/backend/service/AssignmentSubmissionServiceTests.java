@@ -0,0 +1,214 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.AssignmentSubmissionRequestDTO;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.DuplicateResourceException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.Assignment;
+import com.smartclassroom.backend.model.AssignmentSubmission;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import com.smartclassroom.backend.repository.AssignmentSubmissionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AssignmentSubmissionServiceTests {
+
+    private static final long ASSIGNMENT_ID = 4L;
+    private static final long STUDENT_ID = 11L;
+
+    @Mock
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentDeadlineCache deadlineCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AssignmentStatsService assignmentStatsService;
+
+    @Mock
+    private StudentDashboardProjection studentDashboardProjection;
+
+    @Mock
+    private GradeDistributionService gradeDistributionService;
+
+    @InjectMocks
+    private AssignmentSubmissionService service;
+
+    private final AssignmentSubmissionRequestDTO request = new AssignmentSubmissionRequestDTO();
+
+    @BeforeEach
+    void setUp() {
+        request.setContentUrl("/api/files/answer.pdf");
+    }
+
+    @Test
+    void submitAssignment_closedAssignmentIsBadRequest() {
+        insertMatchesNothing();
+        stored(Assignment.builder().id(ASSIGNMENT_ID).closed(true).build());
+
+        BadRequestException ex = Assertions.assertThrows(BadRequestException.class,
+                () -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request));
+        Assertions.assertEquals("Assignment is closed for submissions", ex.getMessage());
+    }
+
+    @Test
+    void submitAssignment_pastDueDateIsBadRequest() {
+        insertMatchesNothing();
+        stored(Assignment.builder().id(ASSIGNMENT_ID).closed(false)
+                .dueDate(LocalDateTime.now().minusMinutes(1)).build());
+
+        BadRequestException ex = Assertions.assertThrows(BadRequestException.class,
+                () -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request));
+        Assertions.assertEquals("Cannot submit assignment after the deadline", ex.getMessage());
+    }
+
+    @Test
+    void submitAssignment_openAssignmentThatMatchedNothingIsDuplicate() {
+        insertMatchesNothing();
+        stored(Assignment.builder().id(ASSIGNMENT_ID).closed(false)
+                .dueDate(LocalDateTime.now().plusDays(1)).build());
+
+        Assertions.assertThrows(DuplicateResourceException.class,
+                () -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request));
+        Mockito.verifyNoInteractions(assignmentStatsService, studentDashboardProjection);
+    }
+
+    @Test
+    void submitAssignment_unknownAssignmentIsNotFound() {
+        insertMatchesNothing();
+        Mockito.when(assignmentRepository.findById(ASSIGNMENT_ID)).thenReturn(Optional.empty());
+
+        ResourceNotFoundException ex = Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request));
+        Assertions.assertEquals("Assignment not found with id " + ASSIGNMENT_ID, ex.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitAssignment_unknownStudentIsNotFound() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.any(Object[].class)))
+                .thenThrow(new DataIntegrityViolationException("violates foreign key constraint on student_id"));
+
+        ResourceNotFoundException ex = Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request));
+        Assertions.assertEquals("User not found with id " + STUDENT_ID, ex.getMessage());
+        Mockito.verifyNoInteractions(assignmentRepository);
+    }
+
+    @Test
+    void submitAssignment_lateSubmitIsTurnedAwayBeforeTheInsert() {
+        Mockito.doThrow(new BadRequestException("Cannot submit assignment after the deadline"))
+                .when(deadlineCache).checkOpen(Mockito.eq(ASSIGNMENT_ID), Mockito.any());
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request));
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Many submits for the same student at once, with the table's unique (assignment,
+     * student) key modelled by an atomic set: exactly one is stored and counted, every
+     * other caller gets a 409 instead of an error or a second row.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitAssignment_racingDuplicatesStoreOneAndRejectTheRest() throws Exception {
+        Set<Long> rows = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.any(Object[].class)))
+                .thenAnswer(inv -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    // Arguments: studentId, contentUrl, submittedAt, assignmentId, now
+                    if (!rows.add(inv.<Long>getArgument(2))) {
+                        return List.of();
+                    }
+                    RowMapper<AssignmentSubmission> mapper = inv.getArgument(1);
+                    return List.of(mapper.mapRow(insertedRow(inv.getArgument(4)), 0));
+                });
+        stored(Assignment.builder().id(ASSIGNMENT_ID).closed(false)
+                .dueDate(LocalDateTime.now().plusDays(1)).build());
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<AssignmentSubmission>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> service.submitAssignment(ASSIGNMENT_ID, STUDENT_ID, request)));
+            }
+            start.countDown();
+
+            int stored = 0;
+            int duplicates = 0;
+            for (Future<AssignmentSubmission> result : results) {
+                try {
+                    Assertions.assertEquals(100L, result.get(5, TimeUnit.SECONDS).getId());
+                    stored++;
+                } catch (ExecutionException ex) {
+                    Assertions.assertInstanceOf(DuplicateResourceException.class, ex.getCause());
+                    duplicates++;
+                }
+            }
+            Assertions.assertEquals(1, stored);
+            Assertions.assertEquals(callers - 1, duplicates);
+        } finally {
+            executor.shutdownNow();
+        }
+        Mockito.verify(assignmentStatsService, Mockito.times(1)).submissionCreated(Mockito.any(), Mockito.any());
+        Mockito.verify(studentDashboardProjection, Mockito.times(1)).submissionChanged(ASSIGNMENT_ID, STUDENT_ID);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void insertMatchesNothing() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.any(Object[].class)))
+                .thenReturn(List.of());
+    }
+
+    private void stored(Assignment assignment) {
+        Mockito.when(assignmentRepository.findById(ASSIGNMENT_ID)).thenReturn(Optional.of(assignment));
+    }
+
+    private static ResultSet insertedRow(Timestamp submittedAt) throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.getLong("id")).thenReturn(100L);
+        Mockito.when(rs.getTimestamp("submitted_at")).thenReturn(submittedAt);
+        Mockito.when(rs.getTimestamp("due_date")).thenReturn(Timestamp.valueOf(LocalDateTime.now().plusDays(1)));
+        Mockito.when(rs.getString("name")).thenReturn("Ann Lee");
+        Mockito.when(rs.getString("email")).thenReturn("ann@example.com");
+        Mockito.when(rs.getString("role")).thenReturn("STUDENT");
+        return rs;
+    }
+}
@@ -0,0 +1,82 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.BulkGradeEntryDTO;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class BulkGradingServiceTests {
+
+    private static final long ASSIGNMENT_ID = 4L;
+    private static final long TEACHER_ID = 7L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AssignmentStatsService assignmentStatsService;
+
+    @Mock
+    private StudentDashboardProjection studentDashboardProjection;
+
+    @Mock
+    private GradeDistributionService gradeDistributionService;
+
+    private BulkGradingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkGradingService(jdbcTemplate, assignmentStatsService, studentDashboardProjection,
+                gradeDistributionService, 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gradeAll_otherUserIsRejectedBeforeAnyRowIsLocked() throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.getInt("max_marks")).thenReturn(10);
+        Mockito.when(rs.getLong("teacher_id")).thenReturn(TEACHER_ID);
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.eq(ASSIGNMENT_ID)))
+                .thenAnswer(inv -> List.of(inv.<RowMapper<?>>getArgument(1).mapRow(rs, 0)));
+
+        BadRequestException ex = Assertions.assertThrows(BadRequestException.class,
+                () -> service.gradeAll(ASSIGNMENT_ID, 99L, List.of(entry(1L, 5))));
+        Assertions.assertEquals("Only the classroom teacher can grade submissions", ex.getMessage());
+
+        Mockito.verify(jdbcTemplate).query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.eq(ASSIGNMENT_ID));
+        Mockito.verifyNoMoreInteractions(jdbcTemplate);
+        Mockito.verifyNoInteractions(assignmentStatsService, studentDashboardProjection, gradeDistributionService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gradeAll_assignmentOfDeletedOrUnknownClassroomIsNotFound() {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.eq(ASSIGNMENT_ID)))
+                .thenReturn(List.of());
+
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.gradeAll(ASSIGNMENT_ID, TEACHER_ID, List.of(entry(1L, 5))));
+    }
+
+    private static BulkGradeEntryDTO entry(Long submissionId, int marks) {
+        BulkGradeEntryDTO entry = new BulkGradeEntryDTO();
+        entry.setSubmissionId(submissionId);
+        entry.setMarks(marks);
+        return entry;
+    }
+}
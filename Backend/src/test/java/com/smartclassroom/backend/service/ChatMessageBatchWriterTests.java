@@ -0,0 +1,210 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.exception.ServiceUnavailableException;
+import com.smartclassroom.backend.model.ChatMessage;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the writer thread against a fake sequence and a recording batch insert. A "gate"
+ * message holds the writer inside its first insert so the next messages queue up and are
+ * written together.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ChatMessageBatchWriterTests {
+
+    private static final long INCREMENT = 3;
+    private static final long GATE_SENDER = 100L;
+    private static final long BAD_SENDER = 666L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ChatMessageCache chatMessageCache;
+
+    @Mock
+    private ClassroomVersionService classroomVersionService;
+
+    private final AtomicLong sequence = new AtomicLong(1 - INCREMENT);
+    private final List<List<Object[]>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch gateEntered = new CountDownLatch(1);
+    private final CountDownLatch gateReleased = new CountDownLatch(1);
+    private final ExecutorService posters = Executors.newCachedThreadPool();
+    private ChatMessageBatchWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Long.class))).thenReturn(INCREMENT);
+        // nextval on a sequence with "start 1 increment 3": 1, 4, 7, ...
+        Mockito.when(jdbcTemplate.queryForList(Mockito.anyString(), Mockito.eq(Long.class), Mockito.anyInt()))
+                .thenAnswer(inv -> {
+                    int blocks = inv.getArgument(2);
+                    List<Long> values = new ArrayList<>();
+                    for (int i = 0; i < blocks; i++) {
+                        values.add(sequence.addAndGet(INCREMENT));
+                    }
+                    return values;
+                });
+        Mockito.when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.<List<Object[]>>any())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            if (rows.stream().anyMatch(row -> row[2].equals(GATE_SENDER))) {
+                gateEntered.countDown();
+                Assertions.assertTrue(gateReleased.await(5, TimeUnit.SECONDS));
+            }
+            if (rows.stream().anyMatch(row -> row[2].equals(BAD_SENDER))) {
+                throw new DataIntegrityViolationException("sender does not exist");
+            }
+            batches.add(List.copyOf(rows));
+            return new int[rows.size()];
+        });
+        writer = new ChatMessageBatchWriter(jdbcTemplate, transactionManager, chatMessageCache,
+                classroomVersionService, Duration.ofMillis(1), 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gateReleased.countDown();
+        writer.shutdown();
+        posters.shutdownNow();
+    }
+
+    @Test
+    void write_messagesQueuedTogetherAreInsertedAsOneBatch() throws Exception {
+        Future<ChatMessage> gate = holdWriter();
+        List<Future<ChatMessage>> posted = List.of(post(message(1L, 1L)), post(message(1L, 2L)),
+                post(message(2L, 3L)));
+        awaitQueued(3);
+        gateReleased.countDown();
+
+        Assertions.assertNotNull(gate.get(5, TimeUnit.SECONDS).getId());
+        for (Future<ChatMessage> future : posted) {
+            Assertions.assertNotNull(future.get(5, TimeUnit.SECONDS).getId());
+        }
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertEquals(3, batches.get(1).size());
+        // The second batch touches two classrooms; each version is bumped once.
+        Mockito.verify(classroomVersionService).bump(ClassroomVersionService.Resource.CHAT, 1L);
+        Mockito.verify(classroomVersionService).bump(ClassroomVersionService.Resource.CHAT, 2L);
+        Mockito.verify(chatMessageCache, Mockito.times(4)).append(Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    void write_badRowFailsAloneAndTheRestAreRetriedIndividually() throws Exception {
+        Future<ChatMessage> gate = holdWriter();
+        Future<ChatMessage> first = post(message(1L, 1L));
+        Future<ChatMessage> bad = post(message(1L, BAD_SENDER));
+        Future<ChatMessage> last = post(message(1L, 3L));
+        awaitQueued(3);
+        gateReleased.countDown();
+
+        gate.get(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+        Assertions.assertNotNull(last.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+                () -> bad.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, failure.getCause());
+
+        // Gate batch, then the two good rows one at a time.
+        Assertions.assertEquals(List.of(1, 1, 1), batches.stream().map(List::size).toList());
+        Mockito.verify(chatMessageCache, Mockito.times(3)).append(Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    void write_idsAreTakenFromWholeSequenceBlocks() throws Exception {
+        Future<ChatMessage> gate = holdWriter();
+        List<Future<ChatMessage>> posted = new ArrayList<>();
+        for (long sender = 1; sender <= 4; sender++) {
+            posted.add(post(message(1L, sender)));
+        }
+        awaitQueued(4);
+        gateReleased.countDown();
+
+        // The first value (1) has no full block below it and is skipped; the gate then
+        // gets the block ending at 4.
+        Assertions.assertEquals(2L, gate.get(5, TimeUnit.SECONDS).getId());
+        // Four rows need two blocks: 5-7 and 8-10. The unused 10 is not handed out later.
+        List<Long> ids = new ArrayList<>();
+        for (Future<ChatMessage> future : posted) {
+            ids.add(future.get(5, TimeUnit.SECONDS).getId());
+        }
+        Assertions.assertEquals(List.of(5L, 6L, 7L, 8L), ids.stream().sorted().toList());
+        Assertions.assertEquals(ids.stream().sorted().toList(),
+                batches.get(1).stream().map(row -> (Long) row[0]).sorted().toList());
+        Assertions.assertEquals(10L, sequence.get());
+    }
+
+    @Test
+    void write_fullQueueIsRejectedImmediately() throws Exception {
+        holdWriter();
+        for (long sender = 1; sender <= 4; sender++) {
+            post(message(1L, sender));
+        }
+        awaitQueued(4);
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> writer.write(message(1L, 5L)));
+    }
+
+    @Test
+    void write_afterShutdownIsRejected() throws InterruptedException {
+        writer.shutdown();
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> writer.write(message(1L, 1L)));
+    }
+
+    private Future<ChatMessage> holdWriter() throws InterruptedException {
+        Future<ChatMessage> gate = post(message(1L, GATE_SENDER));
+        Assertions.assertTrue(gateEntered.await(5, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private Future<ChatMessage> post(ChatMessage message) {
+        return posters.submit(() -> writer.write(message));
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.queued() < count) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "messages were not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private static ChatMessage message(Long classroomId, Long senderId) {
+        return ChatMessage.builder()
+                .classroom(Classroom.builder().id(classroomId).build())
+                .sender(User.builder().id(senderId).name("User " + senderId).build())
+                .content("hello")
+                .build();
+    }
+}
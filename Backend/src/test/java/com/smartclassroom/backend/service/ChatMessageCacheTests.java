@@ -0,0 +1,100 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.chat.ChatMessageView;
+import com.smartclassroom.backend.model.UserRole;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChatMessageCacheTests {
+
+    private static final long CLASSROOM_ID = 3L;
+
+    private final ChatMessageCache cache = new ChatMessageCache(50, 1 << 20, Duration.ofMinutes(30));
+    private final List<ChatMessageView> database = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void getOrLoad_sameVersionIsServedFromTheRing() {
+        database.add(message(1L));
+
+        read(4);
+        List<ChatMessageView> cached = read(4);
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(List.of(1L), ids(cached));
+    }
+
+    @Test
+    void getOrLoad_newerVersionFromAnotherInstanceReloadsTheRing() {
+        database.add(message(1L));
+        read(4);
+
+        // Posted through another instance: the database and the shared version move, this ring does not.
+        database.add(message(2L));
+        List<ChatMessageView> messages = read(5);
+
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(List.of(1L, 2L), ids(messages));
+    }
+
+    @Test
+    void append_nextVersionIsWrittenThroughWithoutAReload() {
+        database.add(message(1L));
+        read(4);
+
+        database.add(message(2L));
+        cache.append(message(2L), 5);
+        database.add(message(3L));
+        cache.append(message(3L), 6);
+
+        Assertions.assertEquals(List.of(1L, 2L, 3L), ids(read(6)));
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    void append_afterAMissedVersionDropsTheRing() {
+        database.add(message(1L));
+        read(4);
+
+        // Version 5 was written through another instance; this append is version 6.
+        database.add(message(2L));
+        database.add(message(3L));
+        cache.append(message(3L), 6);
+
+        Assertions.assertEquals(List.of(1L, 2L, 3L), ids(read(6)));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void append_messageAlreadyLoadedIsNotAddedTwice() {
+        database.add(message(1L));
+        database.add(message(2L));
+        read(5);
+
+        cache.append(message(2L), 5);
+
+        Assertions.assertEquals(List.of(1L, 2L), ids(read(5)));
+    }
+
+    private List<ChatMessageView> read(long version) {
+        return cache.getOrLoad(CLASSROOM_ID, version, () -> {
+            loads.incrementAndGet();
+            return List.copyOf(database);
+        });
+    }
+
+    private static List<Long> ids(List<ChatMessageView> messages) {
+        return messages.stream().map(ChatMessageView::getId).toList();
+    }
+
+    private static ChatMessageView message(Long id) {
+        return new ChatMessageView(id, CLASSROOM_ID, 9L, "Ann Lee", UserRole.STUDENT, null,
+                "message " + id, LocalDateTime.now());
+    }
+}
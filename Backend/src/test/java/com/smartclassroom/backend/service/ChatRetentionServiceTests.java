@@ -0,0 +1,106 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import com.smartclassroom.backend.service.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ChatRetentionServiceTests {
+
+    private static final long CLASSROOM_ID = 3L;
+    private static final String JANUARY = "chat-archive/3-2025-01.jsonl.gz";
+    private static final String FEBRUARY = "chat-archive/3-2025-02.jsonl.gz";
+
+    @TempDir
+    Path archiveDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ClassroomRepository classroomRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    private ChatRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ChatRetentionService(jdbcTemplate, transactionManager, classroomRepository, storageBackend,
+                archiveDir.toString(), 12, 2);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void deleteArchives_removesTheStoredFilesOnlyAfterCommit() throws IOException {
+        Mockito.when(jdbcTemplate.queryForList(Mockito.startsWith("DELETE FROM chat_archives"),
+                Mockito.eq(String.class), Mockito.eq(CLASSROOM_ID))).thenReturn(List.of(JANUARY, FEBRUARY));
+
+        service.deleteArchives(CLASSROOM_ID);
+        Mockito.verifyNoInteractions(storageBackend);
+
+        commit();
+        Mockito.verify(storageBackend).delete(JANUARY);
+        Mockito.verify(storageBackend).delete(FEBRUARY);
+    }
+
+    @Test
+    void deleteArchiveChunk_deletesFilesThenTheirRows() throws IOException {
+        Mockito.when(jdbcTemplate.queryForList(Mockito.startsWith("SELECT storage_key FROM chat_archives"),
+                Mockito.eq(String.class), Mockito.eq(CLASSROOM_ID), Mockito.eq(5)))
+                .thenReturn(List.of(JANUARY, FEBRUARY));
+
+        Assertions.assertEquals(2, service.deleteArchiveChunk(CLASSROOM_ID, 5));
+
+        Mockito.verify(storageBackend).delete(JANUARY);
+        Mockito.verify(storageBackend).delete(FEBRUARY);
+        Mockito.verify(jdbcTemplate).batchUpdate(Mockito.eq("DELETE FROM chat_archives WHERE storage_key = ?"),
+                Mockito.<List<Object[]>>argThat(rows -> rows.size() == 2));
+    }
+
+    @Test
+    void deleteArchiveChunk_storageFailureKeepsTheRows() throws IOException {
+        Mockito.when(jdbcTemplate.queryForList(Mockito.startsWith("SELECT storage_key FROM chat_archives"),
+                Mockito.eq(String.class), Mockito.eq(CLASSROOM_ID), Mockito.eq(5)))
+                .thenReturn(List.of(JANUARY, FEBRUARY));
+        Mockito.doThrow(new IOException("bucket unavailable")).when(storageBackend).delete(FEBRUARY);
+
+        Assertions.assertThrows(UncheckedIOException.class, () -> service.deleteArchiveChunk(CLASSROOM_ID, 5));
+
+        Mockito.verify(jdbcTemplate, Mockito.never()).batchUpdate(Mockito.anyString(), Mockito.<List<Object[]>>any());
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,182 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.classroom.ClassroomDeletionJobDTO;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.model.ClassroomDeletionJob;
+import com.smartclassroom.backend.model.User;
+import com.smartclassroom.backend.repository.ClassroomDeletionJobRepository;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ClassroomDeletionServiceTests {
+
+    private static final long CLASSROOM_ID = 42L;
+    private static final long TEACHER_ID = 7L;
+    private static final long JOB_ID = 3L;
+
+    @Mock
+    private ClassroomRepository classroomRepository;
+
+    @Mock
+    private ClassroomDeletionJobRepository jobRepository;
+
+    @Mock
+    private BulkDeleteService bulkDeleteService;
+
+    @Mock
+    private ClassroomMembershipCache membershipCache;
+
+    @Mock
+    private ChatMessageCache chatMessageCache;
+
+    @Mock
+    private ClassroomVersionService classroomVersionService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClassroomDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ClassroomDeletionService(classroomRepository, jobRepository, bulkDeleteService,
+                membershipCache, chatMessageCache, classroomVersionService, jdbcTemplate, transactionManager,
+                Duration.ZERO, Duration.ofSeconds(30), Duration.ofMinutes(2), Duration.ofMinutes(1), 5);
+        Mockito.when(bulkDeleteService.getChunkSize()).thenReturn(100);
+        Mockito.when(jdbcTemplate.update(Mockito.anyString(), Mockito.any(Object[].class))).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void processNext_resumesAtRecordedStepWhenLeaseHasRunOut() throws Exception {
+        // The previous worker got through steps 0-2 and then stopped renewing its lease;
+        // the claim query hands the job out again with the step it had committed.
+        claimReturns(JOB_ID, CLASSROOM_ID, 3);
+        Mockito.when(bulkDeleteService.deleteClassroomChunk(Mockito.eq(CLASSROOM_ID), Mockito.anyInt()))
+                .thenReturn(100, 40, 0, 0, 0, 0);
+
+        Assertions.assertTrue(service.processNext());
+
+        Mockito.verify(bulkDeleteService, Mockito.never()).deleteClassroomChunk(CLASSROOM_ID, 0);
+        Mockito.verify(bulkDeleteService, Mockito.never()).deleteClassroomChunk(CLASSROOM_ID, 1);
+        Mockito.verify(bulkDeleteService, Mockito.never()).deleteClassroomChunk(CLASSROOM_ID, 2);
+        // A full chunk repeats the step; a short one moves on.
+        Mockito.verify(bulkDeleteService, Mockito.times(2)).deleteClassroomChunk(CLASSROOM_ID, 3);
+        for (int step = 4; step < BulkDeleteService.CLASSROOM_STEPS; step++) {
+            Mockito.verify(bulkDeleteService).deleteClassroomChunk(CLASSROOM_ID, step);
+        }
+        InOrder order = Mockito.inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update("DELETE FROM classrooms WHERE id = ?", CLASSROOM_ID);
+        order.verify(jdbcTemplate).update(Mockito.startsWith("UPDATE classroom_deletion_jobs SET status = 'COMPLETED'"),
+                Mockito.any(Object[].class));
+        Mockito.verify(classroomVersionService).bumpAll(CLASSROOM_ID);
+    }
+
+    @Test
+    void processNext_stopsWhenTheLeaseWasTakenOver() throws Exception {
+        claimReturns(JOB_ID, CLASSROOM_ID, 5);
+        Mockito.when(bulkDeleteService.deleteClassroomChunk(CLASSROOM_ID, 5)).thenReturn(0);
+        Mockito.when(jdbcTemplate.update(Mockito.startsWith("UPDATE classroom_deletion_jobs SET step"),
+                Mockito.any(Object[].class))).thenReturn(0);
+
+        Assertions.assertTrue(service.processNext());
+
+        Mockito.verify(bulkDeleteService, Mockito.never()).deleteClassroomChunk(CLASSROOM_ID, 6);
+        Mockito.verify(jdbcTemplate, Mockito.never()).update("DELETE FROM classrooms WHERE id = ?", CLASSROOM_ID);
+    }
+
+    @Test
+    void processNext_returnsFalseWhenNothingIsClaimable() throws Exception {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.any(Object[].class)))
+                .thenReturn(List.of());
+
+        Assertions.assertFalse(service.processNext());
+        Mockito.verifyNoInteractions(bulkDeleteService);
+    }
+
+    @Test
+    void requestDeletion_requeuesFailedJobForHiddenClassroom() {
+        TransactionSynchronizationManager.initSynchronization();
+        Classroom classroom = classroom(LocalDateTime.now().minusHours(1));
+        Mockito.when(classroomRepository.findById(CLASSROOM_ID)).thenReturn(Optional.of(classroom));
+        Mockito.when(jobRepository.findByClassroomId(CLASSROOM_ID)).thenReturn(Optional.of(ClassroomDeletionJob.builder()
+                .id(JOB_ID).classroomId(CLASSROOM_ID).requestedBy(TEACHER_ID)
+                .status(ClassroomDeletionJob.Status.PENDING).step(4).build()));
+
+        ClassroomDeletionJobDTO job = service.requestDeletion(CLASSROOM_ID, TEACHER_ID);
+
+        Mockito.verify(jdbcTemplate).update(Mockito.contains("ON CONFLICT (classroom_id) DO UPDATE"),
+                Mockito.eq(CLASSROOM_ID), Mockito.eq(TEACHER_ID));
+        // Already hidden; the original deletion time is kept.
+        Mockito.verify(classroomRepository, Mockito.never()).save(Mockito.any());
+        Assertions.assertEquals(ClassroomDeletionJob.Status.PENDING, job.getStatus());
+        Assertions.assertEquals(4, job.getStepsCompleted());
+    }
+
+    @Test
+    void requestDeletion_hidesActiveClassroom() {
+        TransactionSynchronizationManager.initSynchronization();
+        Classroom classroom = classroom(null);
+        Mockito.when(classroomRepository.findById(CLASSROOM_ID)).thenReturn(Optional.of(classroom));
+        Mockito.when(jobRepository.findByClassroomId(CLASSROOM_ID)).thenReturn(Optional.of(ClassroomDeletionJob.builder()
+                .id(JOB_ID).classroomId(CLASSROOM_ID).requestedBy(TEACHER_ID)
+                .status(ClassroomDeletionJob.Status.PENDING).build()));
+
+        service.requestDeletion(CLASSROOM_ID, TEACHER_ID);
+
+        Assertions.assertNotNull(classroom.getDeletedAt());
+        Mockito.verify(classroomRepository).save(classroom);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void claimReturns(long jobId, long classroomId, int step) {
+        Mockito.when(jdbcTemplate.query(Mockito.startsWith("UPDATE classroom_deletion_jobs SET status = 'RUNNING'"),
+                Mockito.any(RowMapper.class), Mockito.any(Object[].class))).thenAnswer(invocation -> {
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            Mockito.when(rs.getLong("id")).thenReturn(jobId);
+            Mockito.when(rs.getLong("classroom_id")).thenReturn(classroomId);
+            Mockito.when(rs.getInt("step")).thenReturn(step);
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            return List.of(mapper.mapRow(rs, 0));
+        });
+    }
+
+    private static Classroom classroom(LocalDateTime deletedAt) {
+        Classroom classroom = new Classroom();
+        classroom.setId(CLASSROOM_ID);
+        classroom.setTeacher(User.builder().id(TEACHER_ID).build());
+        classroom.setDeletedAt(deletedAt);
+        return classroom;
+    }
+}
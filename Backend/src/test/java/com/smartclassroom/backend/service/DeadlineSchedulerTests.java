@@ -0,0 +1,205 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.model.Assignment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the wheel by hand with {@code tick} and answers the fire statements from a
+ * recording mock, so each test sees exactly which job ids every statement was run for.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class DeadlineSchedulerTests {
+
+    private static final long TICK_MS = 1000;
+    private static final long CLASSROOM_ID = 3L;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ClassroomVersionService classroomVersionService;
+
+    private final Map<String, Long> jobIds = new HashMap<>();
+    private final AtomicLong nextJobId = new AtomicLong(1);
+    private final List<List<Long>> closeCalls = new ArrayList<>();
+    // Job ids the fake table treats as due; the rest are "rescheduled" and match nothing.
+    private final List<Long> due = new ArrayList<>();
+    private final List<String> notifications = new ArrayList<>();
+    private boolean failNextClose;
+    private DeadlineScheduler scheduler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Long.class), Mockito.any(),
+                Mockito.any(), Mockito.any())).thenAnswer(inv -> jobIds.computeIfAbsent(
+                inv.getArgument(2) + "/" + inv.getArgument(3), key -> nextJobId.getAndIncrement()));
+        Mockito.doAnswer(inv -> notifications.add(inv.getArgument(2)))
+                .when(jdbcTemplate).query(Mockito.contains("pg_notify"), Mockito.any(RowCallbackHandler.class),
+                        Mockito.anyString());
+        Mockito.when(jdbcTemplate.query(Mockito.any(PreparedStatementCreator.class), Mockito.any(RowMapper.class)))
+                .thenAnswer(inv -> {
+                    PreparedStatementCreator statement = inv.getArgument(0);
+                    Assertions.assertTrue(((SqlProvider) statement).getSql().contains("SET closed = TRUE"));
+                    List<Long> ids = boundIds(statement);
+                    closeCalls.add(ids);
+                    if (failNextClose) {
+                        failNextClose = false;
+                        throw new QueryTimeoutException("database busy");
+                    }
+                    return ids.stream().anyMatch(due::contains) ? List.of(CLASSROOM_ID) : List.of();
+                });
+        scheduler = newScheduler();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void tick_closesAssignmentOnceItIsDue() {
+        long now = System.currentTimeMillis();
+        scheduleAndCommit(assignment(1L, now + 10_000));
+        Long jobId = jobIds.get("CLOSE/1");
+        due.add(jobId);
+
+        scheduler.tick(now + 5_000);
+        Assertions.assertTrue(closeCalls.isEmpty());
+
+        scheduler.tick(now + 12_000);
+        Assertions.assertEquals(List.of(List.of(jobId)), closeCalls);
+        Assertions.assertEquals(0, scheduler.pendingTimers());
+        Mockito.verify(classroomVersionService)
+                .bump(ClassroomVersionService.Resource.ASSIGNMENTS, CLASSROOM_ID);
+    }
+
+    @Test
+    void tick_failedFireIsRetriedAfterTheRetryDelay() {
+        long now = System.currentTimeMillis();
+        scheduleAndCommit(assignment(1L, now));
+        Long jobId = jobIds.get("CLOSE/1");
+        due.add(jobId);
+        failNextClose = true;
+
+        scheduler.tick(now + 2_000);
+        Assertions.assertEquals(1, closeCalls.size());
+        Assertions.assertEquals(1, scheduler.pendingTimers());
+        Mockito.verifyNoInteractions(classroomVersionService);
+
+        scheduler.tick(now + 2_000 + RETRY_DELAY.toMillis() + TICK_MS);
+        Assertions.assertEquals(List.of(List.of(jobId), List.of(jobId)), closeCalls);
+        Mockito.verify(classroomVersionService)
+                .bump(ClassroomVersionService.Resource.ASSIGNMENTS, CLASSROOM_ID);
+    }
+
+    @Test
+    void tick_rescheduledJobFiresAtItsNewTimeOnly() {
+        long now = System.currentTimeMillis();
+        scheduleAndCommit(assignment(1L, now + 10_000));
+        scheduleAndCommit(assignment(1L, now + 60_000));
+        Long jobId = jobIds.get("CLOSE/1");
+
+        // The first timer still fires, but the row now has the later fire_at and is left alone.
+        scheduler.tick(now + 12_000);
+        Assertions.assertEquals(List.of(List.of(jobId)), closeCalls);
+        Mockito.verifyNoInteractions(classroomVersionService);
+
+        due.add(jobId);
+        scheduler.tick(now + 62_000);
+        Assertions.assertEquals(2, closeCalls.size());
+        Mockito.verify(classroomVersionService)
+                .bump(ClassroomVersionService.Resource.ASSIGNMENTS, CLASSROOM_ID);
+    }
+
+    @Test
+    void schedule_armsTheTimerOnOtherInstancesThroughTheirNotification() {
+        long now = System.currentTimeMillis();
+        DeadlineScheduler other = newScheduler();
+        scheduleAndCommit(assignment(1L, now + 10_000));
+        Assertions.assertEquals(1, notifications.size());
+
+        // Its own notification comes back too; the timer is already armed.
+        scheduler.onNotification(notifications.get(0));
+        other.onNotification(notifications.get(0));
+        other.onNotification("not a deadline job");
+
+        Assertions.assertEquals(1, scheduler.pendingTimers());
+        Assertions.assertEquals(1, other.pendingTimers());
+        due.add(jobIds.get("CLOSE/1"));
+        other.tick(now + 12_000);
+        Assertions.assertEquals(List.of(List.of(jobIds.get("CLOSE/1"))), closeCalls);
+    }
+
+    private DeadlineScheduler newScheduler() {
+        return new DeadlineScheduler(dataSource, jdbcTemplate, transactionManager, classroomVersionService,
+                Duration.ofMillis(TICK_MS), 64, Duration.ofHours(24), RETRY_DELAY);
+    }
+
+    private void scheduleAndCommit(Assignment assignment) {
+        scheduler.schedule(assignment);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static Assignment assignment(Long id, long dueMs) {
+        return Assignment.builder().id(id).dueDate(new Timestamp(dueMs).toLocalDateTime()).build();
+    }
+
+    /** The Long parameters the statement binds, i.e. the expanded job id list. */
+    private static List<Long> boundIds(PreparedStatementCreator statement) throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        PreparedStatement prepared = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(prepared);
+        statement.createPreparedStatement(connection);
+        List<Long> ids = new ArrayList<>();
+        for (Invocation invocation : Mockito.mockingDetails(prepared).getInvocations()) {
+            if (invocation.getMethod().getName().equals("setObject") && invocation.getArgument(1) instanceof Long id) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,230 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.assignment.GradeDistributionDTO;
+import com.smartclassroom.backend.dto.assignment.MarkCountView;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.model.Classroom;
+import com.smartclassroom.backend.model.User;
+import com.smartclassroom.backend.repository.AssignmentMarkCountRepository;
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import com.smartclassroom.backend.repository.ClassroomRepository;
+import com.smartclassroom.backend.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class GradeDistributionServiceTests {
+
+    private static final long ASSIGNMENT_ID = 7L;
+    private static final long CLASSROOM_ID = 3L;
+    private static final long TEACHER_ID = 9L;
+    private static final long OTHER_USER_ID = 10L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AssignmentMarkCountRepository markCountRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private ClassroomRepository classroomRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GradeDistributionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new GradeDistributionService(jdbcTemplate, markCountRepository, assignmentRepository,
+                classroomRepository, userRepository, transactionManager, 2);
+    }
+
+    @Test
+    void forAssignment_bucketsMarksAndPutsTheMaximumInTheLastBucket() {
+        assignment(10, count(0, 1), count(4, 2), count(5, 1), count(10, 1));
+
+        GradeDistributionDTO result = service.forAssignment(ASSIGNMENT_ID, TEACHER_ID, 2);
+
+        Assertions.assertEquals(10.0, result.getScale());
+        Assertions.assertEquals(List.of(new GradeDistributionDTO.Bucket(0, 5, 3),
+                new GradeDistributionDTO.Bucket(5, 10, 2)), result.getHistogram());
+        Assertions.assertEquals(5, result.getGradedCount());
+    }
+
+    @Test
+    void forAssignment_percentilesAreNearestRankWeightedBySubmissionCount() {
+        assignment(10, count(2, 3), count(7, 1));
+
+        GradeDistributionDTO result = service.forAssignment(ASSIGNMENT_ID, TEACHER_ID, 10);
+
+        Assertions.assertEquals(4, result.getGradedCount());
+        Assertions.assertEquals(3.25, result.getMean());
+        // Ranks 1, 2 and 3 of 4 fall on the three 2s; only p90 (rank 4) reaches the 7.
+        Assertions.assertEquals(2.0, result.getP25());
+        Assertions.assertEquals(2.0, result.getMedian());
+        Assertions.assertEquals(2.0, result.getP75());
+        Assertions.assertEquals(7.0, result.getP90());
+        Assertions.assertEquals(2.0, result.getMin());
+        Assertions.assertEquals(7.0, result.getMax());
+    }
+
+    @Test
+    void forAssignment_withoutMaxMarksScalesToTheHighestMark() {
+        assignment(null, count(2, 1), count(12, 1));
+
+        GradeDistributionDTO result = service.forAssignment(ASSIGNMENT_ID, TEACHER_ID, 4);
+
+        Assertions.assertEquals(12.0, result.getScale());
+        Assertions.assertEquals(List.of(1L, 0L, 0L, 1L),
+                result.getHistogram().stream().map(GradeDistributionDTO.Bucket::getCount).toList());
+    }
+
+    @Test
+    void forAssignment_withoutGradesHasAnEmptyHistogramAndNoStatistics() {
+        assignment(null);
+
+        GradeDistributionDTO result = service.forAssignment(ASSIGNMENT_ID, TEACHER_ID, 4);
+
+        Assertions.assertEquals(0, result.getGradedCount());
+        Assertions.assertNull(result.getMedian());
+        Assertions.assertTrue(result.getHistogram().stream().allMatch(bucket -> bucket.getCount() == 0));
+    }
+
+    @Test
+    void forClassroom_mergesAssignmentsAsPercentOfMaxAndSkipsThoseWithoutMax() {
+        ownedClassroom();
+        Mockito.when(markCountRepository.findByClassroom(CLASSROOM_ID)).thenReturn(List.of(
+                new MarkCountView(1L, 10, 5, 2),
+                new MarkCountView(2L, 20, 20, 1),
+                new MarkCountView(3L, null, 7, 4),
+                new MarkCountView(4L, 0, 0, 1)));
+
+        GradeDistributionDTO result = service.forClassroom(CLASSROOM_ID, TEACHER_ID, 4);
+
+        Assertions.assertEquals(2, result.getAssignmentCount());
+        Assertions.assertEquals(100.0, result.getScale());
+        Assertions.assertEquals(3, result.getGradedCount());
+        Assertions.assertEquals(200.0 / 3, result.getMean(), 1e-9);
+        Assertions.assertEquals(50.0, result.getMedian());
+        Assertions.assertEquals(List.of(0L, 0L, 2L, 1L),
+                result.getHistogram().stream().map(GradeDistributionDTO.Bucket::getCount).toList());
+    }
+
+    @Test
+    void distributions_areOnlyForTheTeacherWhoOwnsThem() {
+        assignment(10, count(5, 1));
+        ownedClassroom();
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.forAssignment(ASSIGNMENT_ID, OTHER_USER_ID, 10));
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.forClassroom(CLASSROOM_ID, OTHER_USER_ID, 10));
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.forTeacher(TEACHER_ID, OTHER_USER_ID, 10));
+        Mockito.verifyNoInteractions(markCountRepository);
+    }
+
+    @Test
+    void gradeChanged_regradeMovesOneCountAndRemovesEmptiedMarks() {
+        service.gradeChanged(ASSIGNMENT_ID, 8, 5);
+
+        InOrder inOrder = Mockito.inOrder(markCountRepository);
+        inOrder.verify(markCountRepository).applyDelta(ASSIGNMENT_ID, 5, 1);
+        inOrder.verify(markCountRepository).applyDelta(ASSIGNMENT_ID, 8, -1);
+        inOrder.verify(markCountRepository).deleteEmpty(ASSIGNMENT_ID);
+    }
+
+    @Test
+    void gradeChanged_firstGradeOnlyIncrementsAndUnchangedGradeDoesNothing() {
+        service.gradeChanged(ASSIGNMENT_ID, null, 6);
+        service.gradeChanged(ASSIGNMENT_ID, 6, 6);
+
+        Mockito.verify(markCountRepository).applyDelta(ASSIGNMENT_ID, 6, 1);
+        Mockito.verify(markCountRepository, Mockito.never()).deleteEmpty(Mockito.any());
+        Mockito.verifyNoMoreInteractions(markCountRepository);
+    }
+
+    @Test
+    void marksChanged_bulkChangesThatCancelOutAreNotWritten() {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        GradeDistributionService.addChange(deltas, 4, 9);
+        GradeDistributionService.addChange(deltas, 9, 4);
+        GradeDistributionService.addChange(deltas, 4, null);
+
+        service.marksChanged(ASSIGNMENT_ID, deltas);
+
+        Mockito.verify(markCountRepository).applyDelta(ASSIGNMENT_ID, 4, -1);
+        Mockito.verify(markCountRepository).deleteEmpty(ASSIGNMENT_ID);
+        Mockito.verifyNoMoreInteractions(markCountRepository);
+    }
+
+    @Test
+    void repairAll_recomputesEveryAssignmentWhenItHoldsTheLock() {
+        lock(true);
+        Mockito.when(assignmentRepository.findIdsAfter(0L, 2)).thenReturn(List.of(1L, 2L));
+        Mockito.when(assignmentRepository.findIdsAfter(2L, 2)).thenReturn(List.of(5L));
+        Mockito.doThrow(new IllegalStateException("boom")).when(markCountRepository).insertFromSubmissions(2L);
+
+        service.repairAll();
+
+        for (long id : new long[]{1L, 2L, 5L}) {
+            Mockito.verify(markCountRepository).deleteByAssignmentId(id);
+            Mockito.verify(markCountRepository).insertFromSubmissions(id);
+        }
+    }
+
+    @Test
+    void repairAll_skipsWhenAnotherInstanceHoldsTheLock() {
+        lock(false);
+
+        service.repairAll();
+
+        Mockito.verifyNoInteractions(assignmentRepository, markCountRepository);
+    }
+
+    private void lock(boolean acquired) {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.contains("pg_try_advisory_xact_lock"),
+                Mockito.eq(Boolean.class), Mockito.anyLong())).thenReturn(acquired);
+    }
+
+    private void ownedClassroom() {
+        Classroom classroom = Classroom.builder().id(CLASSROOM_ID).teacher(User.builder().id(TEACHER_ID).build()).build();
+        Mockito.when(classroomRepository.findActiveById(CLASSROOM_ID)).thenReturn(Optional.of(classroom));
+    }
+
+    private void assignment(Integer maxMarks, MarkCountView... counts) {
+        Mockito.when(assignmentRepository.findActiveTeacherIdById(ASSIGNMENT_ID)).thenReturn(Optional.of(TEACHER_ID));
+        Mockito.when(assignmentRepository.findMaxMarksById(ASSIGNMENT_ID))
+                .thenReturn(Collections.singletonList(maxMarks));
+        Mockito.when(markCountRepository.findByAssignment(ASSIGNMENT_ID)).thenReturn(Arrays.asList(counts));
+    }
+
+    private static MarkCountView count(int marks, int submissions) {
+        return new MarkCountView(ASSIGNMENT_ID, null, marks, submissions);
+    }
+}
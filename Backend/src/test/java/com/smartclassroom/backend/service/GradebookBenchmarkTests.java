@@ -0,0 +1,140 @@
+package com.smartclassroom.backend.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gradebook export for a 2,000 student × 200 assignment classroom.
+ * <p>
+ * Run with {@code mvn test -Dtest=GradebookBenchmarkTests -Dbenchmark=true}. Logs the
+ * time, output size and heap growth per format; the heap figure should stay roughly flat
+ * as STUDENTS grows, since only one row is buffered at a time.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(GradebookService.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class GradebookBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(GradebookBenchmarkTests.class);
+
+    private static final int STUDENTS = 2000;
+    private static final int ASSIGNMENTS = 200;
+    private static final long ID_BASE = 1_000_000L;
+    private static final long CLASSROOM_ID = ID_BASE;
+    private static final long TEACHER_ID = ID_BASE;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @BeforeEach
+    void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.update("INSERT INTO users (id, name, email, password, role, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                TEACHER_ID, "Teacher", "teacher@bench.test", "pwd", "TEACHER", created);
+        jdbcTemplate.update("INSERT INTO classrooms (id, name, code, teacher_id, created_at) VALUES (?, ?, ?, ?, ?)",
+                CLASSROOM_ID, "Benchmark", "BENCH", TEACHER_ID, created);
+
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> members = new ArrayList<>();
+        for (int i = 1; i <= STUDENTS; i++) {
+            long id = ID_BASE + i;
+            users.add(new Object[]{id, "Student " + i, "s" + i + "@bench.test", "pwd", "STUDENT", created});
+            members.add(new Object[]{id, CLASSROOM_ID, id, "STUDENT", created});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email, password, role, created_at) VALUES (?, ?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO classroom_members (id, classroom_id, user_id, role_in_class, joined_at) " +
+                "VALUES (?, ?, ?, ?, ?)", members);
+
+        List<Object[]> assignments = new ArrayList<>();
+        for (int a = 1; a <= ASSIGNMENTS; a++) {
+            assignments.add(new Object[]{ID_BASE + a, CLASSROOM_ID, "Assignment " + a,
+                    Timestamp.valueOf(now.plusDays(a - ASSIGNMENTS / 2)), 10, false, created, TEACHER_ID});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO assignments (id, classroom_id, title, due_date, max_marks, closed, " +
+                "created_at, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", assignments);
+
+        // Three quarters of the cells submitted, half of those graded.
+        long submissionId = ID_BASE;
+        List<Object[]> submissions = new ArrayList<>();
+        for (int s = 1; s <= STUDENTS; s++) {
+            for (int a = 1; a <= ASSIGNMENTS; a++) {
+                if ((s + a) % 4 == 0) {
+                    continue;
+                }
+                submissions.add(new Object[]{++submissionId, ID_BASE + a, ID_BASE + s, created,
+                        (s + a) % 2 == 0 ? (s + a) % 11 : null});
+                if (submissions.size() == 10_000) {
+                    insertSubmissions(submissions);
+                    submissions.clear();
+                }
+            }
+        }
+        insertSubmissions(submissions);
+    }
+
+    @Test
+    void exportLargeGradebook() throws Exception {
+        for (GradebookService.Format format : GradebookService.Format.values()) {
+            CountingOutputStream out = new CountingOutputStream();
+            System.gc();
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            gradebookService.write(CLASSROOM_ID, format, out);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            long heapAfter = usedHeap();
+            log.info("gradebook {}: {} students x {} assignments in {} ms, {} bytes, heap +{} KiB",
+                    format, STUDENTS, ASSIGNMENTS, elapsedMillis, out.count, (heapAfter - heapBefore) / 1024);
+            Assertions.assertTrue(out.count > 0);
+        }
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        gradebookService.write(CLASSROOM_ID, GradebookService.Format.CSV, csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\r\n");
+        Assertions.assertEquals(STUDENTS + 1, lines.length);
+        Assertions.assertEquals(ASSIGNMENTS + 3, lines[0].split(",").length);
+    }
+
+    private void insertSubmissions(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO assignment_submissions (id, assignment_id, student_id, submitted_at, marks) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
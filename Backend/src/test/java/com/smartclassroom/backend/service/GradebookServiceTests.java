@@ -0,0 +1,77 @@
+package com.smartclassroom.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(GradebookService.class)
+public class GradebookServiceTests {
+
+    private static final long CLASSROOM_ID = 500L;
+    private static final long TEACHER_ID = 500L;
+    private static final long STUDENT_ID = 501L;
+    private static final long UNGRADED_ID = 510L;
+    private static final long GRADED_ID = 511L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @BeforeEach
+    void seed() {
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (id, name, email, password, role, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                TEACHER_ID, "Teacher", "teacher@gradebook.test", "pwd", "TEACHER", created);
+        jdbcTemplate.update("INSERT INTO users (id, name, email, password, role, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                STUDENT_ID, "Student", "student@gradebook.test", "pwd", "STUDENT", created);
+        jdbcTemplate.update("INSERT INTO classrooms (id, name, code, teacher_id, created_at) VALUES (?, ?, ?, ?, ?)",
+                CLASSROOM_ID, "Gradebook", "GRADE", TEACHER_ID, created);
+        jdbcTemplate.update("INSERT INTO classroom_members (id, classroom_id, user_id, role_in_class, joined_at) " +
+                "VALUES (?, ?, ?, ?, ?)", STUDENT_ID, CLASSROOM_ID, STUDENT_ID, "STUDENT", created);
+        // The ungraded assignment sorts first, so its null max_marks is read before the graded one's.
+        jdbcTemplate.update("INSERT INTO assignments (id, classroom_id, title, due_date, max_marks, closed, " +
+                        "created_at, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                UNGRADED_ID, CLASSROOM_ID, "Reading", Timestamp.valueOf(LocalDateTime.now().plusDays(1)), null,
+                false, created, TEACHER_ID);
+        jdbcTemplate.update("INSERT INTO assignments (id, classroom_id, title, due_date, max_marks, closed, " +
+                        "created_at, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                GRADED_ID, CLASSROOM_ID, "Quiz", Timestamp.valueOf(LocalDateTime.now().plusDays(2)), 10,
+                false, created, TEACHER_ID);
+    }
+
+    @Test
+    void csvHeaderOnlyShowsMaxMarksWhenSet() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        gradebookService.write(CLASSROOM_ID, GradebookService.Format.CSV, out);
+
+        String header = out.toString(StandardCharsets.UTF_8).split("\r\n")[0];
+        Assertions.assertEquals("Student ID,Name,Email,Reading,Quiz (/10)", header);
+    }
+
+    @Test
+    void jsonWritesNullMaxMarks() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        gradebookService.write(CLASSROOM_ID, GradebookService.Format.JSON, out);
+
+        JsonNode assignments = new ObjectMapper().readTree(out.toByteArray()).get("assignments");
+        Assertions.assertEquals(2, assignments.size());
+        Assertions.assertEquals(UNGRADED_ID, assignments.get(0).get("id").asLong());
+        Assertions.assertTrue(assignments.get(0).get("maxMarks").isNull());
+        Assertions.assertEquals(GRADED_ID, assignments.get(1).get("id").asLong());
+        Assertions.assertEquals(10, assignments.get(1).get("maxMarks").asInt());
+    }
+}
@@ -0,0 +1,217 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.dto.file.UploadSessionDTO;
+import com.smartclassroom.backend.exception.BadRequestException;
+import com.smartclassroom.backend.exception.ConflictException;
+import com.smartclassroom.backend.exception.ResourceNotFoundException;
+import com.smartclassroom.backend.model.UploadSession;
+import com.smartclassroom.backend.repository.UploadSessionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Runs the upload protocol against an in-memory session table and a real partial-file
+ * directory.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ResumableUploadServiceTests {
+
+    private static final long OWNER_ID = 1L;
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private UploadSessionRepository sessionRepository;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, UploadSession> sessions = new HashMap<>();
+    private ResumableUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(sessionRepository.save(Mockito.any(UploadSession.class))).thenAnswer(inv -> {
+            UploadSession session = inv.getArgument(0);
+            sessions.put(session.getId(), session);
+            return session;
+        });
+        Mockito.when(sessionRepository.findById(Mockito.anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(sessions.get(inv.<String>getArgument(0))));
+        Mockito.doAnswer(inv -> sessions.remove(inv.<String>getArgument(0)))
+                .when(sessionRepository).deleteById(Mockito.anyString());
+        Mockito.when(sessionRepository.advanceOffset(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong(),
+                Mockito.any())).thenAnswer(inv -> {
+            UploadSession session = sessions.get(inv.<String>getArgument(0));
+            if (session == null || session.getStoredName() != null
+                    || session.getUploadOffset() != inv.<Long>getArgument(1)) {
+                return 0;
+            }
+            session.setUploadOffset(inv.getArgument(2));
+            session.setExpiresAt(inv.getArgument(3));
+            return 1;
+        });
+        Mockito.when(sessionRepository.markFinalized(Mockito.anyString(), Mockito.anyString())).thenAnswer(inv -> {
+            UploadSession session = sessions.get(inv.<String>getArgument(0));
+            if (session == null || session.getStoredName() != null) {
+                return 0;
+            }
+            session.setStoredName(inv.getArgument(1));
+            return 1;
+        });
+        Mockito.when(sessionRepository.findExpiredIds(Mockito.any(), Mockito.anyInt())).thenAnswer(inv -> {
+            LocalDateTime now = inv.getArgument(0);
+            return sessions.values().stream()
+                    .filter(session -> session.getExpiresAt().isBefore(now))
+                    .map(UploadSession::getId)
+                    .toList();
+        });
+        service = new ResumableUploadService(sessionRepository, fileStorageService, transactionManager,
+                uploadDir.toString(), 1024 * 1024, Duration.ofHours(24));
+    }
+
+    @Test
+    void append_wrongOffsetIsConflict() throws IOException {
+        UploadSessionDTO upload = service.create(OWNER_ID, 10, null);
+        service.append(upload.getId(), OWNER_ID, 0, new ByteArrayInputStream(new byte[4]));
+
+        Assertions.assertThrows(ConflictException.class,
+                () -> service.append(upload.getId(), OWNER_ID, 0, new ByteArrayInputStream(new byte[4])));
+        Assertions.assertEquals(4, service.getStatus(upload.getId(), OWNER_ID).getUploadOffset());
+    }
+
+    @Test
+    void append_chunkPastUploadLengthIsRejectedAndNotConfirmed() throws IOException {
+        UploadSessionDTO upload = service.create(OWNER_ID, 10, null);
+        service.append(upload.getId(), OWNER_ID, 0, new ByteArrayInputStream(new byte[6]));
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.append(upload.getId(), OWNER_ID, 6, new ByteArrayInputStream(new byte[5])));
+        Assertions.assertEquals(6, service.getStatus(upload.getId(), OWNER_ID).getUploadOffset());
+    }
+
+    @Test
+    void append_resumesAfterChunkIsCutOff() throws IOException {
+        byte[] content = new byte[300_000];
+        new Random(1).nextBytes(content);
+        UploadSessionDTO upload = service.create(OWNER_ID, content.length, null);
+
+        // The connection drops after 100,000 bytes of the first chunk.
+        InputStream cutOff = new InputStream() {
+            private final InputStream in = new ByteArrayInputStream(content, 0, 100_000);
+
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("connection reset");
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n < 0) {
+                    throw new IOException("connection reset");
+                }
+                return n;
+            }
+        };
+        Assertions.assertThrows(IOException.class, () -> service.append(upload.getId(), OWNER_ID, 0, cutOff));
+        long offset = service.getStatus(upload.getId(), OWNER_ID).getUploadOffset();
+        Assertions.assertEquals(100_000, offset);
+
+        long end = service.append(upload.getId(), OWNER_ID, offset,
+                new ByteArrayInputStream(content, (int) offset, content.length - (int) offset));
+        Assertions.assertEquals(content.length, end);
+        Assertions.assertArrayEquals(content, Files.readAllBytes(partial(upload.getId())));
+    }
+
+    @Test
+    void finalizeUpload_isRepeatable() throws IOException {
+        byte[] content = "complete".getBytes();
+        UploadSessionDTO upload = service.create(OWNER_ID, content.length, null);
+        service.append(upload.getId(), OWNER_ID, 0, new ByteArrayInputStream(content));
+        Mockito.when(fileStorageService.storeFile(Mockito.any(Path.class), Mockito.any(), Mockito.any(),
+                Mockito.eq(OWNER_ID))).thenAnswer(inv -> {
+            Assertions.assertArrayEquals(content, Files.readAllBytes(inv.<Path>getArgument(0)));
+            return "stored.txt";
+        });
+
+        Assertions.assertEquals("stored.txt", service.finalizeUpload(upload.getId(), OWNER_ID));
+        Assertions.assertEquals("stored.txt", service.finalizeUpload(upload.getId(), OWNER_ID));
+
+        Mockito.verify(fileStorageService, Mockito.times(1))
+                .storeFile(Mockito.any(Path.class), Mockito.any(), Mockito.any(), Mockito.eq(OWNER_ID));
+        Assertions.assertFalse(Files.exists(partial(upload.getId())));
+        Assertions.assertThrows(ConflictException.class,
+                () -> service.append(upload.getId(), OWNER_ID, content.length, new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    void finalizeUpload_incompleteIsRejected() throws IOException {
+        UploadSessionDTO upload = service.create(OWNER_ID, 10, null);
+        service.append(upload.getId(), OWNER_ID, 0, new ByteArrayInputStream(new byte[9]));
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.finalizeUpload(upload.getId(), OWNER_ID));
+        Mockito.verifyNoInteractions(fileStorageService);
+    }
+
+    @Test
+    void removeExpired_deletesSessionAndPartialFile() throws IOException {
+        UploadSessionDTO expired = service.create(OWNER_ID, 10, null);
+        UploadSessionDTO live = service.create(OWNER_ID, 10, null);
+        sessions.get(expired.getId()).setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        service.removeExpired();
+
+        Assertions.assertFalse(sessions.containsKey(expired.getId()));
+        Assertions.assertFalse(Files.exists(partial(expired.getId())));
+        Assertions.assertTrue(sessions.containsKey(live.getId()));
+        Assertions.assertTrue(Files.exists(partial(live.getId())));
+    }
+
+    @Test
+    void otherUsersAndUnknownIdsAreNotFound() throws IOException {
+        UploadSessionDTO upload = service.create(OWNER_ID, 10, null);
+
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> service.getStatus(upload.getId(), 2L));
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.append(upload.getId(), 2L, 0, new ByteArrayInputStream(new byte[1])));
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.append("../../etc/passwd", OWNER_ID, 0, new ByteArrayInputStream(new byte[1])));
+        Assertions.assertEquals(0, service.getStatus(upload.getId(), OWNER_ID).getUploadOffset());
+        Assertions.assertEquals(0, Files.size(partial(upload.getId())));
+    }
+
+    private Path partial(String id) {
+        return uploadDir.toAbsolutePath().normalize().resolve("partial").resolve(id);
+    }
+}
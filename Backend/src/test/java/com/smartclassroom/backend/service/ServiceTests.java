@@ -1,6 +1,7 @@
 package com.smartclassroom.backend.service;
 
 import com.smartclassroom.backend.dto.assignment.AssignmentCreateRequestDTO;
+import com.smartclassroom.backend.dto.assignment.AssignmentUpdateRequestDTO;
 import com.smartclassroom.backend.dto.auth.RegisterRequestDTO;
 import com.smartclassroom.backend.exception.DuplicateResourceException;
 import com.smartclassroom.backend.model.*;
@@ -16,6 +17,7 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +35,24 @@ public class ServiceTests {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ClassroomVersionService classroomVersionService;
+
+    @Mock
+    private AssignmentStatsService assignmentStatsService;
+
+    @Mock
+    private DeadlineScheduler deadlineScheduler;
+
+    @Mock
+    private StudentDashboardProjection studentDashboardProjection;
+
+    @Mock
+    private GradeDistributionService gradeDistributionService;
+
+    @Mock
+    private AssignmentDeadlineCache assignmentDeadlineCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -79,9 +99,9 @@ public class ServiceTests {
         Classroom classroom = Classroom.builder().id(10L).name("Math").build();
         User teacher = User.builder().id(2L).name("Teacher").role(UserRole.TEACHER).build();
 
-        Mockito.when(classroomRepository.findById(10L)).thenReturn(Optional.of(classroom));
+        Mockito.when(classroomRepository.findActiveById(10L)).thenReturn(Optional.of(classroom));
         Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(teacher));
-        Mockito.when(assignmentRepository.save(Mockito.any(Assignment.class))).thenAnswer(inv -> {
+        Mockito.when(assignmentRepository.saveAndFlush(Mockito.any(Assignment.class))).thenAnswer(inv -> {
             Assignment a = inv.getArgument(0);
             a.setId(5L);
             return a;
@@ -95,4 +115,35 @@ public class ServiceTests {
         Assertions.assertNotNull(assignment.getId());
         Assertions.assertEquals("HW 1", assignment.getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateAssignment_extendingTheDueDateReopensAnAutoClosedAssignment() {
+        Classroom classroom = Classroom.builder().id(10L).name("Math").build();
+        Assignment closed = Assignment.builder().id(5L).classroom(classroom).closed(true)
+                .dueDate(LocalDateTime.now().minusHours(1)).build();
+        Mockito.when(assignmentRepository.findById(5L)).thenReturn(Optional.of(closed));
+        Mockito.when(assignmentRepository.saveAndFlush(Mockito.any(Assignment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        AssignmentUpdateRequestDTO req = new AssignmentUpdateRequestDTO();
+        req.setDueDate(LocalDateTime.now().plusDays(2));
+
+        Assignment updated = assignmentService.updateAssignment(5L, req);
+        Assertions.assertFalse(updated.getClosed());
+        Mockito.verify(deadlineScheduler).schedule(updated);
+    }
+
+    @Test
+    void updateAssignment_explicitClosedWinsOverTheDueDateChange() {
+        Classroom classroom = Classroom.builder().id(10L).name("Math").build();
+        Assignment open = Assignment.builder().id(5L).classroom(classroom).closed(false)
+                .dueDate(LocalDateTime.now().plusHours(1)).build();
+        Mockito.when(assignmentRepository.findById(5L)).thenReturn(Optional.of(open));
+        Mockito.when(assignmentRepository.saveAndFlush(Mockito.any(Assignment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        AssignmentUpdateRequestDTO req = new AssignmentUpdateRequestDTO();
+        req.setDueDate(LocalDateTime.now().plusDays(2));
+        req.setClosed(true);
+
+        Assertions.assertTrue(assignmentService.updateAssignment(5L, req).getClosed());
+    }
+}
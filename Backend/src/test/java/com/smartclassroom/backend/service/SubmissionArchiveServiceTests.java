@@ -0,0 +1,130 @@
+package com.smartclassroom.backend.service;
+
+import com.smartclassroom.backend.repository.AssignmentRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+@ExtendWith(MockitoExtension.class)
+public class SubmissionArchiveServiceTests {
+
+    private static final long ASSIGNMENT_ID = 9L;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private SubmissionArchiveService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SubmissionArchiveService(jdbcTemplate, assignmentRepository, fileStorageService);
+    }
+
+    @Test
+    void write_storesCompressedFormatsDeflatesTheRestAndListsMissingFiles() throws IOException {
+        byte[] pdf = "%PDF-1.7 already compressed".getBytes(StandardCharsets.UTF_8);
+        byte[] text = "plain text answer ".repeat(50).getBytes(StandardCharsets.UTF_8);
+        storedFile("report.pdf", "Ann Lee", pdf);
+        storedFile("answer.txt", "Bo Chan", text);
+        submissions(List.of(
+                new Object[]{1L, "Ann Lee", "/api/files/report.pdf"},
+                new Object[]{2L, "Bo Chan", "/api/files/answer.txt"},
+                new Object[]{3L, "Cy Diaz", "https://example.com/elsewhere"}));
+
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        read(entries, contents);
+
+        Assertions.assertEquals(List.of("Ann Lee_1.pdf", "Bo Chan_2.txt", "missing-files.txt"),
+                new ArrayList<>(entries.keySet()));
+        Assertions.assertEquals(ZipEntry.STORED, entries.get("Ann Lee_1.pdf").getMethod());
+        Assertions.assertArrayEquals(pdf, contents.get("Ann Lee_1.pdf"));
+        Assertions.assertEquals(ZipEntry.DEFLATED, entries.get("Bo Chan_2.txt").getMethod());
+        Assertions.assertArrayEquals(text, contents.get("Bo Chan_2.txt"));
+        Assertions.assertEquals("Cy Diaz (3): https://example.com/elsewhere\n",
+                new String(contents.get("missing-files.txt"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_dropsExtensionsThatAreNotPlainAlphanumeric() throws IOException {
+        storedFile("blob", "Ann Lee", "x".getBytes(StandardCharsets.UTF_8), "notes.x/../../evil");
+        submissions(List.<Object[]>of(new Object[]{1L, "Ann Lee", "/api/files/blob"}));
+
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        read(entries, new LinkedHashMap<>());
+
+        Assertions.assertEquals(List.of("Ann Lee_1"), new ArrayList<>(entries.keySet()));
+    }
+
+    private void read(Map<String, ZipEntry> entries, Map<String, byte[]> contents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(ASSIGNMENT_ID, out);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), entry);
+                contents.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+    }
+
+    private void storedFile(String name, String studentName, byte[] content) throws IOException {
+        storedFile(name, studentName, content, name);
+    }
+
+    private void storedFile(String name, String studentName, byte[] content, String originalName) throws IOException {
+        Path path = Files.write(tempDir.resolve(studentName.replace(' ', '_')), content);
+        FileStorageService.ResolvedFile file = new FileStorageService.ResolvedFile(null, path, content.length, 0L,
+                "\"etag\"", originalName, null);
+        Mockito.when(fileStorageService.resolveStoredFile("/api/files/" + name)).thenReturn(Optional.of(file));
+        Mockito.when(fileStorageService.localFile(file)).thenReturn(Optional.of(path));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void submissions(List<Object[]> rows) {
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.eq(ASSIGNMENT_ID)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> mapped = new ArrayList<>();
+                    for (Object[] row : rows) {
+                        ResultSet rs = Mockito.mock(ResultSet.class);
+                        Mockito.when(rs.getLong("student_id")).thenReturn((Long) row[0]);
+                        Mockito.when(rs.getString("name")).thenReturn((String) row[1]);
+                        Mockito.when(rs.getString("content_url")).thenReturn((String) row[2]);
+                        mapped.add(mapper.mapRow(rs, mapped.size()));
+                    }
+                    return mapped;
+                });
+    }
+}
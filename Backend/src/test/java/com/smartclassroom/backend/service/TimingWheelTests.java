@@ -0,0 +1,86 @@
+package com.smartclassroom.backend.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TimingWheelTests {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void timersFireNotBeforeExpirationAndWithinOneTick() {
+        long start = 1_700_000_000_000L;
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 8, start);
+        Random random = new Random(42);
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            // Spread over ~3 days so timers pass through several levels.
+            long expiration = start + (long) (random.nextDouble() * 3 * 86_400_000L);
+            Assertions.assertTrue(wheel.add(expiration, expiration));
+        }
+        Assertions.assertEquals(count, wheel.size());
+
+        int fired = 0;
+        for (long now = start; wheel.size() > 0; now += TICK) {
+            List<Long> expirations = new ArrayList<>();
+            wheel.advance(now, expirations::add);
+            for (long expiration : expirations) {
+                Assertions.assertTrue(expiration <= now && now - expiration <= TICK);
+            }
+            fired += expirations.size();
+        }
+        Assertions.assertEquals(count, fired);
+    }
+
+    @Test
+    void firesAtTheRightTick() {
+        long start = 0;
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 4, start);
+        long[] expirations = {0, 999, 1000, 3999, 4000, 17_500, 70_000, 1_000_000};
+        for (long expiration : expirations) {
+            wheel.add(expiration, expiration);
+        }
+
+        for (long now = 0; now <= 1_001_000; now += TICK) {
+            long at = now;
+            wheel.advance(at, expiration -> {
+                Assertions.assertTrue(expiration <= at, "fired early: " + expiration + " at " + at);
+                Assertions.assertTrue(at - expiration <= TICK, "fired late: " + expiration + " at " + at);
+            });
+        }
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rejectsExpiredTimers() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 16, 10_000);
+        Assertions.assertFalse(wheel.add(9_999, "past"));
+        Assertions.assertTrue(wheel.add(10_000, "now"));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(10_999, fired::add);
+        Assertions.assertTrue(fired.isEmpty());
+        wheel.advance(11_000, fired::add);
+        Assertions.assertEquals(List.of("now"), fired);
+    }
+
+    @Test
+    void catchesUpAfterALongPause() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 8, 0);
+        for (int i = 1; i <= 100; i++) {
+            wheel.add(i * 60_000L, i);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(6_000_000L + TICK, fired::add);
+
+        Assertions.assertEquals(100, fired.size());
+        for (int i = 0; i < fired.size(); i++) {
+            Assertions.assertEquals(i + 1, fired.get(i));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.smartclassroom.backend.service.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the S3 backend, and the tiered backend on top of it, against an in-process
+ * stand-in for an S3-compatible store that keeps objects in memory.
+ */
+public class S3StorageBackendTests {
+
+    private static final int PART_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private FakeS3 s3;
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void startStore() throws IOException {
+        s3 = new FakeS3();
+        backend = new S3StorageBackend(s3.endpoint(), "us-east-1", "bucket", "access", "secret", "blobs/", PART_SIZE);
+    }
+
+    @AfterEach
+    void stopStore() {
+        s3.stop();
+    }
+
+    @Test
+    void putGetRangeAndDelete() throws IOException {
+        byte[] content = "hello object storage".getBytes(StandardCharsets.UTF_8);
+        backend.put("ab/cd/abcd", new ByteArrayInputStream(content), content.length);
+
+        Assertions.assertTrue(s3.objects.containsKey("/bucket/blobs/ab/cd/abcd"));
+        Assertions.assertTrue(backend.exists("ab/cd/abcd"));
+        Assertions.assertArrayEquals(content, read(backend.get("ab/cd/abcd")));
+        Assertions.assertEquals("object", new String(read(backend.getRange("ab/cd/abcd", 6, 6)), StandardCharsets.UTF_8));
+
+        backend.delete("ab/cd/abcd");
+        Assertions.assertFalse(backend.exists("ab/cd/abcd"));
+        Assertions.assertThrows(NoSuchFileException.class, () -> backend.get("ab/cd/abcd"));
+        Assertions.assertEquals(0, s3.unsigned.get());
+    }
+
+    @Test
+    void largeContentGoesUpInParts() throws IOException {
+        byte[] content = randomBytes(5 * PART_SIZE + 17);
+        backend.put("big", new ByteArrayInputStream(content), content.length);
+        Assertions.assertEquals(6, s3.partsUploaded.get());
+        Assertions.assertArrayEquals(content, read(backend.get("big")));
+
+        Path file = tempDir.resolve("upload");
+        Files.write(file, content);
+        backend.putFile("from-file", file);
+        Assertions.assertEquals(12, s3.partsUploaded.get());
+        Assertions.assertArrayEquals(content, read(backend.get("from-file")));
+        Assertions.assertTrue(s3.uploads.isEmpty());
+    }
+
+    @Test
+    void failedMultipartUploadIsAborted() {
+        byte[] content = randomBytes(3 * PART_SIZE);
+        // Claims more bytes than the stream has, so the last part cannot be read.
+        Assertions.assertThrows(IOException.class,
+                () -> backend.put("short", new ByteArrayInputStream(content), content.length + PART_SIZE));
+        Assertions.assertTrue(s3.uploads.isEmpty());
+        Assertions.assertFalse(s3.objects.containsKey("/bucket/blobs/short"));
+    }
+
+    @Test
+    void tieredBackendServesRepeatReadsFromItsCache() throws IOException {
+        // Room for four blobs of one part each.
+        TieredStorageBackend tiered = new TieredStorageBackend(backend,
+                new LocalStorageBackend(tempDir.resolve("cache"), tempDir.resolve("tmp")), 4 * PART_SIZE);
+        byte[][] blobs = new byte[5][];
+        for (int i = 0; i < blobs.length; i++) {
+            blobs[i] = randomBytes(PART_SIZE - i);
+            backend.put("blob-" + i, new ByteArrayInputStream(blobs[i]), blobs[i].length);
+        }
+
+        Assertions.assertArrayEquals(blobs[0], read(tiered.get("blob-0")));
+        int gets = s3.gets.get();
+        Assertions.assertArrayEquals(blobs[0], read(tiered.get("blob-0")));
+        Assertions.assertArrayEquals(blobs[0], read(tiered.getRange("blob-0", 0, blobs[0].length)));
+        Assertions.assertTrue(tiered.localFile("blob-0").isPresent());
+        Assertions.assertEquals(gets, s3.gets.get());
+
+        // The other four overflow the cache and push out the least recently used one.
+        for (int i = 1; i < blobs.length; i++) {
+            Assertions.assertArrayEquals(blobs[i], read(tiered.get("blob-" + i)));
+        }
+        Assertions.assertArrayEquals(blobs[0], read(tiered.get("blob-0")));
+        Assertions.assertEquals(gets + 5, s3.gets.get());
+    }
+
+    @Test
+    void tieredBackendKeepsEvictedFilesForReadersDuringGracePeriod() throws IOException {
+        TieredStorageBackend tiered = new TieredStorageBackend(backend,
+                new LocalStorageBackend(tempDir.resolve("cache"), tempDir.resolve("tmp")), 4 * PART_SIZE,
+                Duration.ofMinutes(1));
+        byte[][] blobs = new byte[5][];
+        for (int i = 0; i < blobs.length; i++) {
+            blobs[i] = randomBytes(PART_SIZE - i);
+            backend.put("blob-" + i, new ByteArrayInputStream(blobs[i]), blobs[i].length);
+        }
+
+        Path resolved = tiered.localFile("blob-0").orElseThrow();
+        // The other four overflow the cache and evict blob-0.
+        for (int i = 1; i < blobs.length; i++) {
+            Assertions.assertTrue(tiered.localFile("blob-" + i).isPresent());
+        }
+
+        // A reader already holding the path can still open it.
+        Assertions.assertArrayEquals(blobs[0], Files.readAllBytes(resolved));
+        // Asking again takes it back without another remote read.
+        int gets = s3.gets.get();
+        Assertions.assertEquals(resolved, tiered.localFile("blob-0").orElseThrow());
+        Assertions.assertEquals(gets, s3.gets.get());
+    }
+
+    @Test
+    void tieredBackendStreamsBlobsTooLargeToCache() throws IOException {
+        TieredStorageBackend tiered = new TieredStorageBackend(backend,
+                new LocalStorageBackend(tempDir.resolve("cache"), tempDir.resolve("tmp")), 4 * PART_SIZE);
+        byte[] content = randomBytes(2 * PART_SIZE);
+        backend.put("large", new ByteArrayInputStream(content), content.length);
+
+        Assertions.assertTrue(tiered.localFile("large").isEmpty());
+        Assertions.assertArrayEquals(content, read(tiered.get("large")));
+        Assertions.assertArrayEquals(content, read(tiered.get("large")));
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Just enough of the S3 REST API for the backend: single PUT, multipart uploads,
+     * ranged GET, HEAD and DELETE, with path-style addressing.
+     */
+    private static final class FakeS3 {
+
+        private static final Pattern PART = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        final AtomicInteger partsUploaded = new AtomicInteger();
+        final AtomicInteger gets = new AtomicInteger();
+        final AtomicInteger unsigned = new AtomicInteger();
+        private final AtomicInteger uploadIds = new AtomicInteger();
+        private final HttpServer server;
+
+        FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        URI endpoint() {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=access/")) {
+                    unsigned.incrementAndGet();
+                    respond(exchange, 403, new byte[0]);
+                    return;
+                }
+                String path = exchange.getRequestURI().getPath();
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> {
+                        if (query.containsKey("uploadId")) {
+                            uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+                            partsUploaded.incrementAndGet();
+                            exchange.getResponseHeaders().add("ETag", "\"part-" + query.get("partNumber") + "\"");
+                        } else {
+                            objects.put(path, body);
+                        }
+                        respond(exchange, 200, new byte[0]);
+                    }
+                    case "POST" -> {
+                        if (query.containsKey("uploads")) {
+                            String uploadId = "upload-" + uploadIds.incrementAndGet();
+                            uploads.put(uploadId, new TreeMap<>());
+                            respond(exchange, 200, ("<InitiateMultipartUploadResult><UploadId>" + uploadId
+                                    + "</UploadId></InitiateMultipartUploadResult>").getBytes(StandardCharsets.UTF_8));
+                            return;
+                        }
+                        TreeMap<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+                        Matcher matcher = PART.matcher(new String(body, StandardCharsets.UTF_8));
+                        while (matcher.find()) {
+                            assembled.write(parts.get(Integer.parseInt(matcher.group(1))));
+                        }
+                        objects.put(path, assembled.toByteArray());
+                        respond(exchange, 200, "<CompleteMultipartUploadResult/>".getBytes(StandardCharsets.UTF_8));
+                    }
+                    case "GET", "HEAD" -> {
+                        byte[] object = objects.get(path);
+                        if (object == null) {
+                            respond(exchange, 404, new byte[0]);
+                            return;
+                        }
+                        if ("HEAD".equals(exchange.getRequestMethod())) {
+                            exchange.sendResponseHeaders(200, -1);
+                            return;
+                        }
+                        gets.incrementAndGet();
+                        String range = exchange.getRequestHeaders().getFirst("Range");
+                        if (range == null) {
+                            respond(exchange, 200, object);
+                            return;
+                        }
+                        String[] bounds = range.substring("bytes=".length()).split("-");
+                        int start = Integer.parseInt(bounds[0]);
+                        int end = Math.min(object.length - 1, Integer.parseInt(bounds[1]));
+                        byte[] slice = new byte[end - start + 1];
+                        System.arraycopy(object, start, slice, 0, slice.length);
+                        respond(exchange, 206, slice);
+                    }
+                    case "DELETE" -> {
+                        if (query.containsKey("uploadId")) {
+                            uploads.remove(query.get("uploadId"));
+                        } else {
+                            objects.remove(path);
+                        }
+                        exchange.sendResponseHeaders(204, -1);
+                    }
+                    default -> respond(exchange, 405, new byte[0]);
+                }
+            }
+        }
+
+        private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+
+        private static Map<String, String> query(String rawQuery) {
+            Map<String, String> result = new HashMap<>();
+            if (rawQuery != null) {
+                for (String parameter : rawQuery.split("&")) {
+                    int equals = parameter.indexOf('=');
+                    result.put(equals < 0 ? parameter : parameter.substring(0, equals),
+                            equals < 0 ? "" : parameter.substring(equals + 1));
+                }
+            }
+            return result;
+        }
+    }
+}
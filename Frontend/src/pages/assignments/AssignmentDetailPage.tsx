@@ -5,7 +5,9 @@ import type {
   Assignment,
   Submission,
   AssignmentStatistics,
+  GradeDistribution,
   NonSubmittedStudent,
+  NonSubmittedStudentPage,
 } from '../../types/domain';
 import { Card } from '../../components/ui/Card';
 import { Button } from '../../components/ui/Button';
@@ -22,8 +24,11 @@ export const AssignmentDetailPage: React.FC = () => {
 
   const [assignment, setAssignment] = useState<Assignment | null>(null);
   const [submissions, setSubmissions] = useState<Submission[] | null>(null);
+  const [downloading, setDownloading] = useState(false);
   const [statistics, setStatistics] = useState<AssignmentStatistics | null>(null);
+  const [distribution, setDistribution] = useState<GradeDistribution | null>(null);
   const [nonSubmittedStudents, setNonSubmittedStudents] = useState<NonSubmittedStudent[]>([]);
+  const [nonSubmittedCursor, setNonSubmittedCursor] = useState<NonSubmittedStudentPage | null>(null);
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
   const [grading, setGrading] = useState(false);
@@ -49,14 +54,17 @@ export const AssignmentDetailPage: React.FC = () => {
         );
 
         if (isTeacher) {
-          const [subs, stats, nonSub] = await Promise.all([
+          const [subs, stats, nonSub, dist] = await Promise.all([
             assignmentApi.getSubmissions(id),
             assignmentApi.getAssignmentStatistics(asg.classroomId, id),
             assignmentApi.getNonSubmittedStudents(asg.classroomId, id),
+            assignmentApi.getGradeDistribution(id),
           ]);
           setSubmissions(subs);
           setStatistics(stats);
-          setNonSubmittedStudents(nonSub);
+          setDistribution(dist);
+          setNonSubmittedStudents(nonSub.students);
+          setNonSubmittedCursor(nonSub);
         } else {
           // For students, get their own submission
           if (user) {
@@ -71,6 +79,16 @@ export const AssignmentDetailPage: React.FC = () => {
     load();
   }, [id, isTeacher]);
 
+  const handleLoadMoreNonSubmitted = async () => {
+    if (!id || !assignment || !nonSubmittedCursor?.hasMore) return;
+    const page = await assignmentApi.getNonSubmittedStudents(assignment.classroomId, id, {
+      afterName: nonSubmittedCursor.nextAfterName,
+      afterId: nonSubmittedCursor.nextAfterId,
+    });
+    setNonSubmittedStudents((prev) => [...prev, ...page.students]);
+    setNonSubmittedCursor(page);
+  };
+
   const handleUpdateDeadline = async () => {
     if (!id || !assignment) return;
     const parsed = new Date(newDeadline);
@@ -147,6 +165,25 @@ export const AssignmentDetailPage: React.FC = () => {
     }
   };
 
+  const handleDownloadArchive = async () => {
+    if (!id || !user) return;
+    setDownloading(true);
+    try {
+      const blob = await assignmentApi.downloadSubmissionArchive(id);
+      const url = URL.createObjectURL(blob);
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = `assignment-${id}-submissions.zip`;
+      link.click();
+      URL.revokeObjectURL(url);
+    } catch (e) {
+      console.error(e);
+      toast.error('Failed to download submissions');
+    } finally {
+      setDownloading(false);
+    }
+  };
+
   const handleOpenGrade = (submission: Submission) => {
     setSelectedSubmission(submission);
     setGradeMarks(submission.marks?.toString() ?? '');
@@ -348,6 +385,33 @@ export const AssignmentDetailPage: React.FC = () => {
               </p>
             </div>
           </div>
+          {statistics.gradedCount > 0 && (
+            <p className="text-xs text-[var(--text-secondary)]">
+              Average {statistics.meanMarks?.toFixed(1)} · Highest {statistics.highestMarks}
+              {statistics.lateCount ? ` · ${statistics.lateCount} late` : ''}
+            </p>
+          )}
+          {distribution && distribution.gradedCount > 0 && (
+            <div className="space-y-1">
+              <div className="flex h-16 items-end gap-1">
+                {distribution.histogram.map((bucket) => {
+                  const peak = Math.max(...distribution.histogram.map((b) => b.count));
+                  return (
+                    <div
+                      key={bucket.from}
+                      className="flex-1 rounded-t bg-blue-400"
+                      style={{ height: `${peak ? (bucket.count / peak) * 100 : 0}%` }}
+                      title={`${bucket.from.toFixed(0)}–${bucket.to.toFixed(0)}: ${bucket.count}`}
+                    />
+                  );
+                })}
+              </div>
+              <p className="text-xs text-[var(--text-secondary)]">
+                Median {distribution.median} · 25th {distribution.p25} · 75th {distribution.p75} · 90th{' '}
+                {distribution.p90}
+              </p>
+            </div>
+          )}
         </Card>
       )}
 
@@ -370,6 +434,11 @@ export const AssignmentDetailPage: React.FC = () => {
               </div>
             ))}
           </div>
+          {nonSubmittedCursor?.hasMore && (
+            <Button size="sm" variant="secondary" onClick={handleLoadMoreNonSubmitted}>
+              Load more
+            </Button>
+          )}
         </Card>
       )}
 
@@ -377,9 +446,16 @@ export const AssignmentDetailPage: React.FC = () => {
         <Card className="space-y-3">
           <div className="flex items-center justify-between">
             <h2 className="text-sm font-semibold text-[var(--text)]">Submissions</h2>
-            <span className="text-xs text-[var(--text-secondary)]">
-              {submissions?.length ?? 0} submissions
-            </span>
+            <div className="flex items-center gap-3">
+              <span className="text-xs text-[var(--text-secondary)]">
+                {submissions?.length ?? 0} submissions
+              </span>
+              {submissions && submissions.length > 0 && (
+                <Button size="sm" variant="secondary" onClick={handleDownloadArchive} disabled={downloading}>
+                  {downloading ? 'Preparing…' : 'Download all'}
+                </Button>
+              )}
+            </div>
           </div>
           {(!submissions || submissions.length === 0) && (
             <p className="text-sm text-[var(--text-secondary)]">No submissions yet.</p>
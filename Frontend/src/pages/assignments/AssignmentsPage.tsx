@@ -107,7 +107,11 @@ export const AssignmentsPage: React.FC = () => {
                   })}{' '}
                   · Max {a.maxMarks} marks
                 </p>
-                {a.isSubmitted && (
+                {a.totalStudents != null ? (
+                  <p className="mt-1 text-xs text-[var(--text-secondary)]">
+                    {a.submittedCount ?? 0}/{a.totalStudents} submitted · {a.gradedCount ?? 0} graded
+                  </p>
+                ) : a.isSubmitted && (
                   <p className="mt-1 text-xs text-[var(--text-secondary)]">
                     Submitted on {new Date(a.submittedAt!).toLocaleDateString()}
                     {a.marks != null && (
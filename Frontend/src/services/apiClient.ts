@@ -1,4 +1,4 @@
-import axios from 'axios';
+import axios, { type InternalAxiosRequestConfig } from 'axios';
 import { useAuthContext } from '../context/AuthContext';
 
 const normalizeBaseUrl = (url: string) => {
@@ -15,8 +15,17 @@ export const apiClient = axios.create({
   headers: {
     'Content-Type': 'application/json',
   },
+  // 304 is answered from the ETag cache below rather than treated as an error
+  validateStatus: (status) => (status >= 200 && status < 300) || status === 304,
 });
 
+// Last ETag and body per GET URL (and token, so users never see each other's lists)
+const MAX_ETAG_ENTRIES = 100;
+const etagCache = new Map<string, { etag: string; data: unknown }>();
+
+const etagKey = (config: InternalAxiosRequestConfig) =>
+  `${config.headers?.Authorization ?? ''} ${apiClient.getUri(config)}`;
+
 // attach token on each request
 apiClient.interceptors.request.use((config) => {
   const stored = localStorage.getItem('smart-classroom-auth');
@@ -30,9 +39,44 @@ apiClient.interceptors.request.use((config) => {
       // ignore
     }
   }
+  if ((config.method ?? 'get').toLowerCase() === 'get') {
+    const cached = etagCache.get(etagKey(config));
+    if (cached && config.headers) {
+      config.headers['If-None-Match'] = cached.etag;
+    }
+  }
   return config;
 });
 
+// revalidate list responses with If-None-Match
+apiClient.interceptors.response.use((response) => {
+  if ((response.config.method ?? 'get').toLowerCase() !== 'get') {
+    return response;
+  }
+  const key = etagKey(response.config);
+  if (response.status === 304) {
+    const cached = etagCache.get(key);
+    if (cached) {
+      // refresh its position so the least recently used entry is evicted first
+      etagCache.delete(key);
+      etagCache.set(key, cached);
+      response.status = 200;
+      response.data = cached.data;
+    }
+    return response;
+  }
+  const etag = response.headers['etag'];
+  if (typeof etag === 'string' && etag) {
+    etagCache.delete(key);
+    etagCache.set(key, { etag, data: response.data });
+    if (etagCache.size > MAX_ETAG_ENTRIES) {
+      const oldest = etagCache.keys().next().value;
+      if (oldest !== undefined) etagCache.delete(oldest);
+    }
+  }
+  return response;
+});
+
 // Optional hook-based helper for components if needed
 export const useApiClient = () => {
   // eslint-disable-next-line @typescript-eslint/no-unused-vars
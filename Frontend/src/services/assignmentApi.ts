@@ -4,7 +4,10 @@ import type {
   Submission,
   StudentAssignment,
   AssignmentStatistics,
-  NonSubmittedStudent,
+  GradeDistribution,
+  NonSubmittedStudentPage,
+  Gradebook,
+  BulkGradeResult,
 } from '../types/domain';
 
 export const assignmentApi = {
@@ -91,6 +94,16 @@ export const assignmentApi = {
     );
     return data;
   },
+  async gradeSubmissions(
+    assignmentId: string,
+    grades: { submissionId: string; marks: number; feedback?: string }[]
+  ): Promise<BulkGradeResult> {
+    const { data } = await apiClient.post<BulkGradeResult>(
+      `/assignments/${assignmentId}/submissions/grades`,
+      { grades }
+    );
+    return data;
+  },
   async updateAssignment(
     classroomId: string,
     assignmentId: string,
@@ -120,12 +133,28 @@ export const assignmentApi = {
     );
     return data;
   },
+  async getGradeDistribution(assignmentId: string, buckets = 10): Promise<GradeDistribution> {
+    const { data } = await apiClient.get<GradeDistribution>(
+      `/assignments/${assignmentId}/grade-distribution`,
+      { params: { buckets } }
+    );
+    return data;
+  },
+  async getClassroomGradeDistribution(classroomId: string, buckets = 10): Promise<GradeDistribution> {
+    const { data } = await apiClient.get<GradeDistribution>(
+      `/classrooms/${classroomId}/grade-distribution`,
+      { params: { buckets } }
+    );
+    return data;
+  },
   async getNonSubmittedStudents(
     classroomId: string,
-    assignmentId: string
-  ): Promise<NonSubmittedStudent[]> {
-    const { data } = await apiClient.get<NonSubmittedStudent[]>(
-      `/classrooms/${classroomId}/assignments/${assignmentId}/non-submitted-students`
+    assignmentId: string,
+    options: { name?: string; afterName?: string; afterId?: string; limit?: number } = {}
+  ): Promise<NonSubmittedStudentPage> {
+    const { data } = await apiClient.get<NonSubmittedStudentPage>(
+      `/classrooms/${classroomId}/assignments/${assignmentId}/non-submitted-students`,
+      { params: options }
     );
     return data;
   },
@@ -138,4 +167,21 @@ export const assignmentApi = {
     );
     return data;
   },
+  async downloadSubmissionArchive(assignmentId: string): Promise<Blob> {
+    const { data } = await apiClient.get<Blob>(`/assignments/${assignmentId}/submissions/archive`, {
+      responseType: 'blob',
+    });
+    return data;
+  },
+  async getGradebook(classroomId: string): Promise<Gradebook> {
+    const { data } = await apiClient.get<Gradebook>(`/classrooms/${classroomId}/gradebook`);
+    return data;
+  },
+  async downloadGradebook(classroomId: string, format: 'csv' | 'xlsx'): Promise<Blob> {
+    const { data } = await apiClient.get<Blob>(`/classrooms/${classroomId}/gradebook`, {
+      params: { format },
+      responseType: 'blob',
+    });
+    return data;
+  },
 };
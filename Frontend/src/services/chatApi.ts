@@ -15,6 +15,24 @@ type ChatMessageResponseDTO = {
   createdAt: string;
 };
 
+type ChatSenderDTO = {
+  id: number;
+  name: string;
+  role: string;
+  profileImageUrl?: string;
+};
+
+type ChatPageResponseDTO = {
+  classroomId: number;
+  messages: {
+    id: number;
+    senderId: number;
+    content: string;
+    createdAt: string;
+  }[];
+  senders: Record<string, ChatSenderDTO>;
+};
+
 const mapChatMessage = (dto: ChatMessageResponseDTO): ChatMessage => ({
   id: String(dto.id),
   classroomId: String(dto.classroomId),
@@ -26,11 +44,21 @@ const mapChatMessage = (dto: ChatMessageResponseDTO): ChatMessage => ({
 
 export const chatApi = {
   async getMessages(classroomId: string, userId: string): Promise<ChatMessage[]> {
-    const { data } = await apiClient.get<ChatMessageResponseDTO[]>(
+    const { data } = await apiClient.get<ChatPageResponseDTO>(
       `/classrooms/${classroomId}/chat/messages`,
       { params: { userId } }
     );
-    return data.map(mapChatMessage);
+    return data.messages.map((message) => {
+      const sender = data.senders[String(message.senderId)];
+      return {
+        id: String(message.id),
+        classroomId: String(data.classroomId),
+        senderName: sender?.name ?? 'Unknown',
+        senderProfileImageUrl: sender?.profileImageUrl,
+        content: message.content,
+        createdAt: message.createdAt,
+      };
+    });
   },
   async sendMessage(
     classroomId: string,
@@ -48,6 +48,10 @@ export interface StudentAssignment {
   marks?: number;
   feedback?: string;
   isPastDeadline: boolean;
+  // Teacher view only: class-wide totals
+  submittedCount?: number;
+  gradedCount?: number;
+  totalStudents?: number;
 }
 
 export interface AssignmentStatistics {
@@ -56,6 +60,26 @@ export interface AssignmentStatistics {
   submittedCount: number;
   notSubmittedCount: number;
   gradedCount: number;
+  meanMarks?: number;
+  highestMarks?: number;
+  lateCount?: number;
+}
+
+export interface GradeDistribution {
+  scope: 'ASSIGNMENT' | 'CLASSROOM' | 'TEACHER';
+  scopeId: string;
+  assignmentCount: number;
+  // Max marks for a single assignment, 100 (percent) for merged scopes
+  scale: number;
+  gradedCount: number;
+  mean?: number;
+  median?: number;
+  p25?: number;
+  p75?: number;
+  p90?: number;
+  min?: number;
+  max?: number;
+  histogram: { from: number; to: number; count: number }[];
 }
 
 export interface NonSubmittedStudent {
@@ -65,6 +89,35 @@ export interface NonSubmittedStudent {
   role: UserRole;
 }
 
+export interface BulkGradeResult {
+  assignmentId: number;
+  updatedCount: number;
+  rejectedCount: number;
+  results: { submissionId: number; status: 'UPDATED' | 'REJECTED'; message?: string }[];
+}
+
+export type GradebookCellStatus = 'GRADED' | 'SUBMITTED' | 'LATE' | 'MISSING' | 'PENDING';
+
+// marks and status are in the same order as assignments
+export interface Gradebook {
+  classroomId: number;
+  assignments: { id: number; title: string; dueDate?: string; maxMarks?: number }[];
+  students: {
+    id: number;
+    name: string;
+    email: string;
+    marks: (number | null)[];
+    status: GradebookCellStatus[];
+  }[];
+}
+
+export interface NonSubmittedStudentPage {
+  students: NonSubmittedStudent[];
+  hasMore: boolean;
+  nextAfterName?: string;
+  nextAfterId?: string;
+}
+
 export interface Member {
   id: string;
   name: string;